@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Measures cold start of the packaged app in each launch mode, so startup can be
+# tracked between releases.
+#
+#   ./mvnw -Pstartup -DskipTests package && scripts/startup-benchmark.sh [runs]
+#
+# For every mode it prints the median over <runs> (default 5) of:
+#   started_ms  what Spring reports in "Started SignalApplication in ..."
+#   ready_ms    wall clock from launching the JVM until /actuator/health answers UP
+# Modes: jar (java -jar on the fat jar), extracted, extracted+cds, and aot+cds
+# when the jar was built with -Pstartup.
+set -euo pipefail
+
+RUNS=${1:-5}
+JAR=${JAR:-target/signal-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-18080}
+JAVA=${JAVA:-java}
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+[ -f "$JAR" ] || { echo "No $JAR; build it first (./mvnw -Pstartup -DskipTests package)." >&2; exit 1; }
+
+# placeholders the app resolves at startup; the gateway is never called
+export GOOGLE_CLOUD_PROJECT_ID=bench GOOGLE_CLOUD_LOCATION=bench SIGNAL_GATEWAY_MODE=fake
+
+"$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$WORK/app" --application-filename app.jar >/dev/null
+HAS_AOT=$(unzip -l "$JAR" | grep -c '__ApplicationContextInitializer' || true)
+
+train() { # <archive> [jvm args...]
+  local archive=$1; shift
+  (cd "$WORK/app" && "$JAVA" -XX:ArchiveClassesAtExit="$archive" -Dspring.context.exit=onRefresh "$@" \
+      -jar app.jar >/dev/null 2>&1)
+}
+
+run_once() { # <dir> <jar> [jvm args...]
+  local dir=$1 jar=$2; shift 2
+  local log="$WORK/run.log" start end pid
+  start=$(date +%s%N)
+  (cd "$dir" && exec "$JAVA" "$@" -jar "$jar" --server.port="$PORT") >"$log" 2>&1 &
+  pid=$!
+  until curl -sf "http://localhost:$PORT/actuator/health" 2>/dev/null | grep -q UP; do
+    kill -0 "$pid" 2>/dev/null || { cat "$log" >&2; exit 1; }
+    sleep 0.02
+  done
+  end=$(date +%s%N)
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  local started
+  started=$(sed -n 's/.*Started SignalApplication in \([0-9.]*\) seconds.*/\1/p' "$log" | head -1)
+  echo "$(awk -v s="$started" 'BEGIN { printf "%d", s * 1000 }') $(( (end - start) / 1000000 ))"
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'; }
+
+bench() { # <mode> <dir> <jar> [jvm args...]
+  local mode=$1; shift
+  local results="$WORK/$mode.txt"
+  : >"$results"
+  for _ in $(seq "$RUNS"); do
+    run_once "$@" >>"$results"
+  done
+  printf '%-14s %10s %10s\n' "$mode" "$(cut -d' ' -f1 "$results" | median)" "$(cut -d' ' -f2 "$results" | median)"
+}
+
+printf '%-14s %10s %10s\n' mode started_ms ready_ms
+bench jar "$(dirname "$JAR")" "$(basename "$JAR")"
+bench extracted "$WORK/app" app.jar
+train app.jsa
+bench extracted+cds "$WORK/app" app.jar -XX:SharedArchiveFile=app.jsa
+if [ "$HAS_AOT" -gt 0 ]; then
+  train app-aot.jsa -Dspring.aot.enabled=true
+  bench aot+cds "$WORK/app" app.jar -XX:SharedArchiveFile=app-aot.jsa -Dspring.aot.enabled=true
+fi
@@ -0,0 +1,54 @@
+package com.signal.Signal.audio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest → buffer: one 60 KB window arriving as browser-sized frames, then drained and released.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioIngestBenchmark {
+
+    @Param({"1024", "4096"})
+    public int frameSize;
+
+    private AudioSegmentPool pool;
+    private AudioAccumulator accumulator;
+    private ByteBuffer frame;
+
+    @Setup
+    public void setUp() {
+        pool = new AudioSegmentPool(16384, 1024, 1 << 20, 1 << 26);
+        accumulator = pool.newAccumulator();
+        frame = ByteBuffer.allocate(frameSize);
+    }
+
+    @Benchmark
+    public int bufferWindow() {
+        for (int filled = 0; filled < 60000; filled += frameSize) {
+            accumulator.append(frame);
+        }
+        AudioWindow window = accumulator.drain();
+        int size = window.size();
+        window.release();
+        return size;
+    }
+
+    @Benchmark
+    public byte[] bufferAndMaterializeWindow() {
+        for (int filled = 0; filled < 60000; filled += frameSize) {
+            accumulator.append(frame);
+        }
+        AudioWindow window = accumulator.drain();
+        byte[] data = window.toByteArray();
+        window.release();
+        return data;
+    }
+}
@@ -0,0 +1,106 @@
+package com.signal.Signal.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.signal.Signal.codec.SignalCodec;
+import com.signal.Signal.gateway.FakeGeminiGateway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse → serialize: model output into a SignalResponse and signals back out to JSON.
+ * The objectMapper* benchmarks are the pre-codec baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignalResponseBenchmark {
+
+    private ObjectMapper objectMapper;
+    private SignalCodec codec;
+    private SignalResponse welcome;
+    private String modelOutput;
+    private SignalResponse analysisSignal;
+    private SignalResponse codeSignal;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        codec = new SignalCodec(objectMapper);
+        welcome = SignalResponse.builder()
+                .type(SignalResponse.SignalType.IDLE)
+                .title("Signal Active")
+                .description("Listening for high-impact meeting moments...")
+                .confidence(1.0)
+                .build();
+        modelOutput = "```json\n" + FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE + "```";
+        analysisSignal = SignalResponse.builder()
+                .type(SignalResponse.SignalType.DECISION_POINT)
+                .title("Postgres for the order service")
+                .description("We will use Postgres behind a REST API.")
+                .suggestedResponse("Agreed.")
+                .confidence(0.9)
+                .timestamp(Instant.now())
+                .build();
+        codeSignal = SignalResponse.builder()
+                .type(SignalResponse.SignalType.CODE_GENERATED)
+                .title("Live Code Context")
+                .codeSnippets(Map.of("java", "public record Order(long id) {}".repeat(40),
+                        "python", "class Order: pass\n".repeat(40),
+                        "go", "type Order struct{}\n".repeat(40)))
+                .confidence(1.0)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    @Benchmark
+    public SignalResponse objectMapperParseModelOutput() throws Exception {
+        String cleaned = modelOutput.replace("```json", "").replace("```", "").trim();
+        return objectMapper.readValue(cleaned, SignalResponse.class);
+    }
+
+    @Benchmark
+    public String objectMapperSerializeAnalysisSignal() throws Exception {
+        return objectMapper.writeValueAsString(analysisSignal);
+    }
+
+    @Benchmark
+    public String objectMapperSerializeCodeSignal() throws Exception {
+        return objectMapper.writeValueAsString(codeSignal);
+    }
+
+    @Benchmark
+    public String objectMapperWelcomeFrame() throws Exception {
+        return objectMapper.writeValueAsString(welcome.toBuilder().timestamp(Instant.now()).build());
+    }
+
+    @Benchmark
+    public SignalResponse codecParseModelOutput() throws Exception {
+        return codec.readSignal(modelOutput);
+    }
+
+    @Benchmark
+    public TextMessage codecEncodeAnalysisSignal() throws Exception {
+        return codec.encode(analysisSignal);
+    }
+
+    @Benchmark
+    public TextMessage codecEncodeCodeSignal() throws Exception {
+        return codec.encode(codeSignal);
+    }
+
+    @Benchmark
+    public TextMessage codecWelcomeFrame() {
+        return codec.staticFrame(welcome).render(Instant.now());
+    }
+}
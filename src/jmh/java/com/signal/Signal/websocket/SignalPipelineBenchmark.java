@@ -0,0 +1,72 @@
+package com.signal.Signal.websocket;
+
+import com.signal.SignalApplication;
+import com.signal.Signal.audio.AudioAccumulator;
+import com.signal.Signal.audio.AudioSegmentPool;
+import com.signal.Signal.audio.AudioWindow;
+import com.signal.Signal.room.Room;
+import com.signal.Signal.room.RoomRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.CloseStatus;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One analysis window through SignalSocketHandler (model call → parse → trigger →
+ * serialize → send) against the zero-latency fake gateway, so the numbers are the
+ * pipeline's own overhead. Run with {@code -prof gc} to see allocation per window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignalPipelineBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private SignalSocketHandler handler;
+    private AudioSegmentPool pool;
+    private BenchmarkSession session;
+    private Room room;
+    private ByteBuffer frame;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(SignalApplication.class)
+                .run("--signal.gateway.mode=fake",
+                        "--google.cloud.project-id=bench",
+                        "--server.port=0",
+                        // every window gets the same canned answer; measure each one in full
+                        "--signal.dedup.enabled=false",
+                        "--logging.level.com.signal=WARN");
+        handler = context.getBean(SignalSocketHandler.class);
+        pool = context.getBean(AudioSegmentPool.class);
+        session = new BenchmarkSession("bench");
+        handler.afterConnectionEstablished(session);
+        room = context.getBean(RoomRegistry.class).roomOf(session.getId());
+        frame = ByteBuffer.allocate(60000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        context.close();
+    }
+
+    @Benchmark
+    public long processWindow() {
+        AudioAccumulator accumulator = pool.newAccumulator();
+        accumulator.append(frame);
+        AudioWindow window = accumulator.drain();
+        try {
+            handler.processAudioWithGemini(room, window);
+        } finally {
+            window.release();
+        }
+        return session.messages.get();
+    }
+}
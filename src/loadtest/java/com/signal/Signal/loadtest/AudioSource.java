@@ -0,0 +1,81 @@
+package com.signal.Signal.loadtest;
+
+import com.signal.Signal.audio.SyntheticWebm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One meeting's audio cut into the chunks a browser's MediaRecorder would send,
+ * each covering {@code chunkMillis} of audio. Every client replays the same
+ * chunks, so they are built once.
+ */
+final class AudioSource {
+
+    private final String description;
+    private final List<byte[]> chunks;
+    private final int chunkMillis;
+
+    private AudioSource(String description, List<byte[]> chunks, int chunkMillis) {
+        this.description = description;
+        this.chunks = List.copyOf(chunks);
+        this.chunkMillis = chunkMillis;
+    }
+
+    /**
+     * Alternating speech and silence as Opus/WebM, so windows are cut on real
+     * block boundaries and the silence gate has something to skip.
+     */
+    static AudioSource synthetic(long meetingMillis, int chunkMillis) {
+        SyntheticWebm webm = new SyntheticWebm(1000);
+        List<Integer> boundaries = new ArrayList<>();
+        for (long at = 0; at < meetingMillis; at += chunkMillis) {
+            // 6 s of speech, then 2 s of silence
+            if (at % 8000 < 6000) {
+                webm.speech(chunkMillis);
+            } else {
+                webm.silence(chunkMillis);
+            }
+            boundaries.add(webm.size());
+        }
+        byte[] stream = webm.toByteArray();
+        List<byte[]> chunks = new ArrayList<>(boundaries.size());
+        int from = 0;
+        for (int to : boundaries) {
+            chunks.add(Arrays.copyOfRange(stream, from, to));
+            from = to;
+        }
+        return new AudioSource("synthetic WebM/Opus, " + meetingMillis / 1000 + " s meeting", chunks, chunkMillis);
+    }
+
+    /**
+     * A recorded WebM file, cut into equal byte chunks at the given bitrate. Its
+     * first chunk carries the container header, as MediaRecorder's does.
+     */
+    static AudioSource recorded(Path file, int bitsPerSecond, int chunkMillis) throws IOException {
+        byte[] stream = Files.readAllBytes(file);
+        int chunkBytes = Math.max(1, (int) ((long) bitsPerSecond / 8 * chunkMillis / 1000));
+        List<byte[]> chunks = new ArrayList<>();
+        for (int from = 0; from < stream.length; from += chunkBytes) {
+            chunks.add(Arrays.copyOfRange(stream, from, Math.min(stream.length, from + chunkBytes)));
+        }
+        return new AudioSource(file.getFileName() + " (" + stream.length / 1024 + " KB at " + bitsPerSecond / 1000
+                + " kbit/s)", chunks, chunkMillis);
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    List<byte[]> getChunks() {
+        return chunks;
+    }
+
+    int getChunkMillis() {
+        return chunkMillis;
+    }
+}
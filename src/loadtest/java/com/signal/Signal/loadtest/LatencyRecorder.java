@@ -0,0 +1,45 @@
+package com.signal.Signal.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Every latency sample in microseconds, kept exactly; a run produces at most a
+ * few hundred thousand, so sorting them once for the report is cheap.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    synchronized void record(long micros) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = micros;
+    }
+
+    /** p50, p90, p99, p99.9 and max in milliseconds, or "no samples". */
+    synchronized String summary() {
+        if (count == 0) {
+            return "no samples";
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("n=%d  p50 %s  p90 %s  p99 %s  p99.9 %s  max %s", count,
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+                millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)), millis(sorted[count - 1]));
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.1f ms", micros / 1000.0);
+    }
+}
@@ -0,0 +1,145 @@
+package com.signal.Signal.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One simulated meeting participant on its own virtual thread. A publisher
+ * streams the audio at {@code speed} times real time, then leaves and joins
+ * again with a fresh stream until the run ends, so join and leave are part of
+ * the load. A listener joins the same room as a subscriber and only receives.
+ */
+final class LoadClient implements Runnable {
+
+    private static final Duration TRAILING_WAIT = Duration.ofSeconds(3);
+
+    private final HttpClient http;
+    private final URI uri;
+    private final boolean publisher;
+    private final AudioSource audio;
+    private final double speed;
+    private final long endNanos;
+    private final LoadStats stats;
+    private final ObjectMapper objectMapper;
+
+    LoadClient(HttpClient http, URI server, String room, boolean publisher, AudioSource audio, double speed,
+               long endNanos, LoadStats stats, ObjectMapper objectMapper) {
+        this.http = http;
+        this.uri = server.resolve("/ws-signal?room=" + room + "&role=" + (publisher ? "publisher" : "subscriber"));
+        this.publisher = publisher;
+        this.audio = audio;
+        this.speed = speed;
+        this.endNanos = endNanos;
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run() {
+        while (remaining() > 0 && !Thread.currentThread().isInterrupted()) {
+            WebSocket socket;
+            try {
+                socket = http.newWebSocketBuilder().buildAsync(uri, new Connection()).get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                stats.connectFailures.increment();
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                continue;
+            }
+            try {
+                if (publisher) {
+                    stats.meetings.increment();
+                    stream(socket);
+                    // let the last window's analysis arrive before leaving
+                    pause(Math.min(TRAILING_WAIT.toNanos(), remaining()));
+                } else {
+                    pause(remaining());
+                }
+            } catch (Exception e) {
+                stats.abnormalCloses.increment();
+            } finally {
+                socket.sendClose(WebSocket.NORMAL_CLOSURE, "done").exceptionally(e -> null);
+            }
+        }
+    }
+
+    private void stream(WebSocket socket) throws Exception {
+        List<byte[]> chunks = audio.getChunks();
+        long intervalNanos = (long) (TimeUnit.MILLISECONDS.toNanos(audio.getChunkMillis()) / speed);
+        long start = System.nanoTime();
+        for (int i = 0; i < chunks.size() && remaining() > 0; i++) {
+            long wait = start + i * intervalNanos - System.nanoTime();
+            if (wait > 0) {
+                pause(wait);
+            } else if (-wait > intervalNanos) {
+                // the previous send took longer than a chunk interval: the server applies backpressure
+                stats.lateChunks.increment();
+            }
+            byte[] chunk = chunks.get(i);
+            socket.sendBinary(ByteBuffer.wrap(chunk), true).get(10, TimeUnit.SECONDS);
+            stats.audioBytes.add(chunk.length);
+            stats.audioChunks.increment();
+        }
+    }
+
+    private long remaining() {
+        return endNanos - System.nanoTime();
+    }
+
+    private static void pause(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            Thread.sleep(Duration.ofNanos(nanos));
+        }
+    }
+
+    private final class Connection implements WebSocket.Listener {
+
+        private final StringBuilder text = new StringBuilder();
+        private final Set<String> streams = new HashSet<>();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                Instant receivedAt = Instant.now();
+                try {
+                    JsonNode frame = objectMapper.readTree(text.toString());
+                    String streamId = frame.path("streamId").asText(null);
+                    stats.frame(frame, streamId != null && streams.add(streamId), receivedAt);
+                } catch (IOException e) {
+                    stats.frame(objectMapper.createObjectNode().put("type", "UNPARSEABLE"), false, receivedAt);
+                }
+                text.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            if (statusCode != WebSocket.NORMAL_CLOSURE) {
+                stats.abnormalCloses.increment();
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            stats.abnormalCloses.increment();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.signal.Signal.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What every client observed. Only frames received after the warm-up count.
+ */
+final class LoadStats {
+
+    final LatencyRecorder firstFrame = new LatencyRecorder();
+    final LatencyRecorder finalFrame = new LatencyRecorder();
+    final LongAdder audioBytes = new LongAdder();
+    final LongAdder audioChunks = new LongAdder();
+    final LongAdder lateChunks = new LongAdder();
+    final LongAdder meetings = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder abnormalCloses = new LongAdder();
+    private final Map<String, LongAdder> framesByType = new ConcurrentHashMap<>();
+    private final long measureFromNanos;
+
+    LoadStats(long measureFromNanos) {
+        this.measureFromNanos = measureFromNanos;
+    }
+
+    boolean isMeasuring() {
+        return System.nanoTime() - measureFromNanos >= 0;
+    }
+
+    /**
+     * @param firstOfStream whether this connection had not yet seen the frame's stream
+     */
+    void frame(JsonNode frame, boolean firstOfStream, Instant receivedAt) {
+        if (!isMeasuring()) {
+            return;
+        }
+        boolean partial = frame.path("partial").asBoolean(false);
+        String type = frame.path("type").asText("?") + (partial ? " (partial)" : "");
+        framesByType.computeIfAbsent(type, t -> new LongAdder()).increment();
+
+        JsonNode audioReceivedAt = frame.path("audioReceivedAt");
+        if (!audioReceivedAt.isTextual()) {
+            return;
+        }
+        try {
+            long micros = Duration.between(Instant.parse(audioReceivedAt.asText()), receivedAt).toNanos() / 1000;
+            if (firstOfStream) {
+                firstFrame.record(micros);
+            }
+            if (!partial) {
+                finalFrame.record(micros);
+            }
+        } catch (DateTimeParseException e) {
+            // not a frame this harness understands; counted above
+        }
+    }
+
+    Map<String, Long> framesByType() {
+        Map<String, Long> counts = new TreeMap<>();
+        framesByType.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+}
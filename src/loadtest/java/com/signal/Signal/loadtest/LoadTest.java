@@ -0,0 +1,235 @@
+package com.signal.Signal.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signal.SignalApplication;
+import com.signal.Signal.outbound.OutboundQueueFactory;
+import com.signal.Signal.quota.QuotaManager;
+import com.signal.Signal.scheduler.InferenceScheduler;
+import com.signal.Signal.scheduler.SchedulerStats;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts the application in-process against the fake Gemini gateway, drives it
+ * with simulated meetings over {@code /ws-signal} and reports throughput,
+ * end-to-end latency and JVM behaviour. Needs no network.
+ * <p>
+ * {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="clients=50 duration=2m"}
+ * <p>
+ * Options are {@code key=value}: clients, listeners (subscribers per room),
+ * duration, warmup, ramp-up, speed (times real time), chunk-ms, audio (a WebM
+ * file; synthetic when absent), bitrate, meeting, latency and error-rate (of
+ * the fake gateway) and report. Any {@code --name=value} is passed to the
+ * application as a property, e.g. {@code --signal.gateway.fake.error-code=503}.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("clients", "20"),
+            Map.entry("listeners", "0"),
+            Map.entry("duration", "60s"),
+            Map.entry("warmup", "10s"),
+            Map.entry("ramp-up", "5s"),
+            Map.entry("speed", "1"),
+            Map.entry("chunk-ms", "250"),
+            Map.entry("audio", ""),
+            Map.entry("bitrate", "32000"),
+            Map.entry("meeting", "5m"),
+            Map.entry("latency", "800ms"),
+            Map.entry("error-rate", "0.02"),
+            Map.entry("report", "target/loadtest-report.txt"));
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            if (arg.startsWith("--")) {
+                properties.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else if (DEFAULTS.containsKey(arg.substring(0, eq))) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg.substring(0, eq) + "; known: " + DEFAULTS.keySet());
+            }
+        }
+
+        int clients = Integer.parseInt(options.get("clients"));
+        int listeners = Integer.parseInt(options.get("listeners"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration rampUp = DurationStyle.detectAndParse(options.get("ramp-up"));
+        double speed = Double.parseDouble(options.get("speed"));
+        int chunkMillis = Integer.parseInt(options.get("chunk-ms"));
+        AudioSource audio = options.get("audio").isBlank()
+                ? AudioSource.synthetic(DurationStyle.detectAndParse(options.get("meeting")).toMillis(), chunkMillis)
+                : AudioSource.recorded(Path.of(options.get("audio")), Integer.parseInt(options.get("bitrate")), chunkMillis);
+
+        Map<String, String> application = new LinkedHashMap<>();
+        application.put("signal.gateway.mode", "fake");
+        application.put("signal.gateway.fake.latency", options.get("latency"));
+        application.put("signal.gateway.fake.error-rate", options.get("error-rate"));
+        application.put("google.cloud.project-id", "loadtest");
+        application.put("server.port", "0");
+        application.put("logging.level.com.signal", "WARN");
+        // every simulated meeting says the same thing; dedup would hide most of the work
+        application.put("signal.dedup.enabled", "false");
+        application.putAll(properties);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SignalApplication.class)
+                .run(application.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new))) {
+            URI server = URI.create("ws://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            String report = run(context, server, options, application, audio, clients, listeners,
+                    duration, warmup, rampUp, speed);
+            System.out.println(report);
+            Path file = Path.of(options.get("report"));
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, report);
+            System.out.println("Report written to " + file.toAbsolutePath());
+        }
+    }
+
+    private static String run(ConfigurableApplicationContext context, URI server, Map<String, String> options,
+                              Map<String, String> application, AudioSource audio, int clients, int listeners,
+                              Duration duration, Duration warmup, Duration rampUp, double speed)
+            throws InterruptedException, IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Map<String, long[]> gcBefore = gcSnapshot();
+        SchedulerStats schedulerBefore = context.getBean(InferenceScheduler.class).getStats();
+        QuotaManager quota = context.getBean(QuotaManager.class);
+        OutboundQueueFactory outbound = context.getBean(OutboundQueueFactory.class);
+        long retriedBefore = quota.getRetried();
+        long throttledBefore = quota.getThrottled();
+        long evictedBefore = outbound.getEvicted();
+        long closedBefore = outbound.getSlowConsumersClosed();
+
+        long start = System.nanoTime();
+        long measureFrom = start + rampUp.toNanos() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        LoadStats stats = new LoadStats(measureFrom);
+        ObjectMapper objectMapper = new ObjectMapper();
+        threads.resetPeakThreadCount();
+        AtomicLong heapPeak = new AtomicLong();
+
+        Thread sampler = Thread.ofVirtual().name("loadtest-sampler").start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        List<Thread> running = new ArrayList<>();
+        try (HttpClient http = HttpClient.newHttpClient()) {
+            for (int i = 0; i < clients; i++) {
+                String room = "load-" + i;
+                long offset = clients > 1 ? rampUp.toNanos() * i / (clients - 1) : 0;
+                long startAt = start + offset;
+                running.add(Thread.ofVirtual().name("loadtest-" + room).start(() -> {
+                    try {
+                        Thread.sleep(Duration.ofNanos(Math.max(0, startAt - System.nanoTime())));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int l = 0; l < listeners; l++) {
+                        Thread.ofVirtual().start(new LoadClient(http, server, room, false, audio, speed, end, stats, objectMapper));
+                    }
+                    new LoadClient(http, server, room, true, audio, speed, end, stats, objectMapper).run();
+                }));
+            }
+            for (Thread client : running) {
+                client.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()) + 15_000));
+            }
+        }
+        sampler.interrupt();
+
+        long measuredNanos = Math.min(System.nanoTime(), end) - measureFrom;
+        double seconds = Math.max(1, measuredNanos) / 1e9;
+        SchedulerStats scheduler = context.getBean(InferenceScheduler.class).getStats();
+        Map<String, long[]> gcAfter = gcSnapshot();
+        System.gc();
+        long retained = memory.getHeapMemoryUsage().getUsed();
+
+        StringBuilder report = new StringBuilder();
+        report.append("Signal load test\n================\n");
+        report.append("clients        ").append(clients).append(" rooms, ").append(listeners).append(" listener(s) each, ")
+                .append(options.get("speed")).append("x real time\n");
+        report.append("audio          ").append(audio.getDescription()).append(", ").append(audio.getChunks().size())
+                .append(" chunks of ").append(audio.getChunkMillis()).append(" ms\n");
+        report.append("phases         ramp-up ").append(rampUp.toSeconds()).append(" s, warm-up ").append(warmup.toSeconds())
+                .append(" s, measured ").append(String.format("%.1f", seconds)).append(" s\n");
+        report.append("properties     ").append(application).append("\n\n");
+
+        long signals = stats.finalFrame.count();
+        report.append("Throughput (measured phase)\n");
+        report.append(String.format("  signals/s    %.2f (%d final frames with audio timestamps)%n", signals / seconds, signals));
+        report.append(String.format("  audio in     %.1f KB/s, %d chunks, %d sent late%n",
+                stats.audioBytes.sum() / 1024.0 / seconds, stats.audioChunks.sum(), stats.lateChunks.sum()));
+        report.append("  meetings     ").append(stats.meetings.sum()).append(" started, ")
+                .append(stats.connectFailures.sum()).append(" connect failures, ")
+                .append(stats.abnormalCloses.sum()).append(" abnormal closes\n");
+        stats.framesByType().forEach((type, count) ->
+                report.append(String.format("  %-26s %d%n", type, count)));
+
+        report.append("\nLatency, audio received -> frame received\n");
+        report.append("  first frame  ").append(stats.firstFrame.summary()).append('\n');
+        report.append("  final frame  ").append(stats.finalFrame.summary()).append('\n');
+
+        report.append("\nServer\n");
+        report.append("  scheduler    dropped ").append(scheduler.dropped() - schedulerBefore.dropped())
+                .append(", merged ").append(scheduler.merged() - schedulerBefore.merged())
+                .append(", failed ").append(scheduler.failed() - schedulerBefore.failed()).append('\n');
+        report.append("  quota        retried ").append(quota.getRetried() - retriedBefore)
+                .append(", throttled ").append(quota.getThrottled() - throttledBefore).append('\n');
+        report.append("  outbound     evicted ").append(outbound.getEvicted() - evictedBefore)
+                .append(", slow consumers closed ").append(outbound.getSlowConsumersClosed() - closedBefore).append('\n');
+
+        report.append("\nJVM (clients share it, so this is an upper bound for the server)\n");
+        report.append("  threads      peak ").append(threads.getPeakThreadCount()).append(" platform, ")
+                .append(threads.getThreadCount()).append(" at end\n");
+        report.append(String.format("  heap         peak %.1f MB, retained after GC %.1f MB, max %.1f MB%n",
+                heapPeak.get() / 1048576.0, retained / 1048576.0, memory.getHeapMemoryUsage().getMax() / 1048576.0));
+        gcAfter.forEach((name, after) -> {
+            long[] before = gcBefore.getOrDefault(name, new long[2]);
+            report.append(String.format("  gc           %s: %d collections, %d ms%n", name, after[0] - before[0], after[1] - before[1]));
+        });
+        return report.toString();
+    }
+
+    private static Map<String, long[]> gcSnapshot() {
+        Map<String, long[]> snapshot = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            snapshot.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()});
+        }
+        return snapshot;
+    }
+}
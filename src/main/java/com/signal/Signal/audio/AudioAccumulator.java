@@ -0,0 +1,102 @@
+package com.signal.Signal.audio;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-session audio buffer made of pooled segments. Appending a frame copies it
+ * once out of the container's frame buffer (which Tomcat reuses as soon as the
+ * handler returns) into the tail segment; draining hands the filled segments to
+ * an {@link AudioWindow} without copying them again.
+ */
+public class AudioAccumulator {
+
+    private final AudioSegmentPool pool;
+    private final long maxBytes;
+
+    private List<AudioSlice> filled = new ArrayList<>();
+    private byte[] tail;
+    private int tailFill;
+    private int size;
+    private long firstFrameNanos;
+    private boolean closed;
+
+    AudioAccumulator(AudioSegmentPool pool, long maxBytes) {
+        this.pool = pool;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return false if the frame was dropped because the session or node limit was reached
+     */
+    public synchronized boolean append(ByteBuffer frame) {
+        int remaining = frame.remaining();
+        if (closed || size + (long) remaining > maxBytes || !pool.reserve(remaining)) {
+            return false;
+        }
+
+        if (size == 0) {
+            firstFrameNanos = System.nanoTime();
+        }
+        ByteBuffer source = frame.duplicate();
+        while (source.hasRemaining()) {
+            if (tail == null) {
+                tail = pool.acquire();
+                tailFill = 0;
+            }
+            int chunk = Math.min(source.remaining(), tail.length - tailFill);
+            source.get(tail, tailFill, chunk);
+            tailFill += chunk;
+            if (tailFill == tail.length) {
+                filled.add(new AudioSlice(tail, 0, tailFill));
+                tail = null;
+            }
+        }
+        size += remaining;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Hands everything buffered so far to a window and starts over empty.
+     * The caller owns the window and must {@link AudioWindow#release() release} it.
+     */
+    public synchronized AudioWindow drain() {
+        return drain(0, 0);
+    }
+
+    /**
+     * As {@link #drain()}, marking the first {@code leadLength} bytes as the lead
+     * that {@link AudioWindow#append} drops when merging, and recording how much
+     * new audio the window covers.
+     */
+    public synchronized AudioWindow drain(int leadLength, long durationMillis) {
+        if (tail != null && tailFill > 0) {
+            filled.add(new AudioSlice(tail, 0, tailFill));
+        } else if (tail != null) {
+            pool.recycle(tail);
+        }
+        AudioWindow window = new AudioWindow(pool, filled, size, Math.min(leadLength, size), durationMillis,
+                size == 0 ? 0 : System.nanoTime() - firstFrameNanos, Instant.now());
+        filled = new ArrayList<>();
+        tail = null;
+        tailFill = 0;
+        size = 0;
+        return window;
+    }
+
+    /** Returns every buffered segment to the pool; further frames are rejected. */
+    public void close() {
+        AudioWindow remainder;
+        synchronized (this) {
+            closed = true;
+            remainder = drain();
+        }
+        remainder.release();
+    }
+}
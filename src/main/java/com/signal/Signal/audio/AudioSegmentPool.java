@@ -0,0 +1,91 @@
+package com.signal.Signal.audio;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-wide pool of fixed-size heap slabs backing every session's audio buffer.
+ * Slabs are recycled instead of reallocated per window, and every buffered byte
+ * is accounted here so a node can cap its total audio memory.
+ */
+@Slf4j
+@Component
+public class AudioSegmentPool {
+
+    private final int segmentSize;
+    private final int maxPooledSegments;
+    private final long maxSessionBytes;
+    private final long maxBufferedBytes;
+
+    private final ConcurrentLinkedQueue<byte[]> freeSegments = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledSegments = new AtomicInteger();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    public AudioSegmentPool(@Value("${signal.audio.segment-size:16384}") int segmentSize,
+                            @Value("${signal.audio.max-pooled-segments:1024}") int maxPooledSegments,
+                            @Value("${signal.audio.max-session-bytes:1048576}") long maxSessionBytes,
+                            @Value("${signal.audio.max-buffered-bytes:67108864}") long maxBufferedBytes) {
+        this.segmentSize = segmentSize;
+        this.maxPooledSegments = maxPooledSegments;
+        this.maxSessionBytes = maxSessionBytes;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    public AudioAccumulator newAccumulator() {
+        return new AudioAccumulator(this, maxSessionBytes);
+    }
+
+    /** Bytes currently held by all accumulators and in-flight windows on this node. */
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    public int getPooledSegments() {
+        return pooledSegments.get();
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    byte[] acquire() {
+        byte[] segment = freeSegments.poll();
+        if (segment == null) {
+            return new byte[segmentSize];
+        }
+        pooledSegments.decrementAndGet();
+        return segment;
+    }
+
+    void recycle(byte[] segment) {
+        if (segment.length != segmentSize) {
+            return;
+        }
+        if (pooledSegments.incrementAndGet() <= maxPooledSegments) {
+            freeSegments.offer(segment);
+        } else {
+            pooledSegments.decrementAndGet();
+        }
+    }
+
+    boolean reserve(int bytes) {
+        while (true) {
+            long current = bufferedBytes.get();
+            if (current + bytes > maxBufferedBytes) {
+                return false;
+            }
+            if (bufferedBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    void unreserve(long bytes) {
+        bufferedBytes.addAndGet(-bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.signal.Signal.audio;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Cuts one session's incoming audio stream into analysis windows.
+ */
+public interface AudioSegmenter {
+
+    /**
+     * Consumes one frame from the client, handing every window it completes to {@code sink}.
+     * The sink owns each window it receives.
+     *
+     * @return false if the frame was dropped because of buffer limits
+     */
+    boolean accept(ByteBuffer frame, Consumer<AudioWindow> sink);
+
+    /**
+     * Changes the window length from the next window on, clamped to what the
+     * segmenter supports. Fixed-size fallback windows are not affected.
+     *
+     * @return the length now in effect
+     */
+    int setWindowMillis(int windowMillis);
+
+    /** Bytes currently buffered for the open window. */
+    int bufferedBytes();
+
+    /** Releases everything buffered; no further frames are accepted. */
+    void close();
+}
@@ -0,0 +1,77 @@
+package com.signal.Signal.audio;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates per-session segmenters and aggregates their window counts for the node.
+ */
+@Component
+public class AudioSegmenterFactory {
+
+    private final AudioSegmentPool pool;
+    @Getter
+    private final int windowMillis;
+    private final int overlapMillis;
+    private final double minBytesPerMilli;
+    private final double minActiveRatio;
+    private final int fallbackWindowBytes;
+
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder gated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public AudioSegmenterFactory(AudioSegmentPool pool,
+                                 @Value("${signal.audio.window-ms:8000}") int windowMillis,
+                                 @Value("${signal.audio.overlap-ms:1000}") int overlapMillis,
+                                 @Value("${signal.audio.vad.min-bytes-per-ms:1.0}") double minBytesPerMilli,
+                                 @Value("${signal.audio.vad.min-active-ratio:0.2}") double minActiveRatio,
+                                 @Value("${signal.audio.fallback-window-bytes:60000}") int fallbackWindowBytes) {
+        if (windowMillis <= overlapMillis || windowMillis + overlapMillis > WebmSegmenter.MAX_WINDOW_MILLIS) {
+            throw new IllegalArgumentException("signal.audio.window-ms must be greater than overlap-ms, and the two"
+                    + " together at most " + WebmSegmenter.MAX_WINDOW_MILLIS);
+        }
+        this.pool = pool;
+        this.windowMillis = windowMillis;
+        this.overlapMillis = overlapMillis;
+        this.minBytesPerMilli = minBytesPerMilli;
+        this.minActiveRatio = minActiveRatio;
+        this.fallbackWindowBytes = fallbackWindowBytes;
+    }
+
+    public AudioSegmenter create() {
+        return create(windowMillis);
+    }
+
+    public AudioSegmenter create(int windowMillis) {
+        return new WebmSegmenter(pool.newAccumulator(), this, windowMillis, overlapMillis,
+                minBytesPerMilli, minActiveRatio, fallbackWindowBytes);
+    }
+
+    public long getEmittedWindows() {
+        return emitted.sum();
+    }
+
+    public long getGatedWindows() {
+        return gated.sum();
+    }
+
+    public long getDroppedWindows() {
+        return dropped.sum();
+    }
+
+    void windowEmitted() {
+        emitted.increment();
+    }
+
+    void windowGated() {
+        gated.increment();
+    }
+
+    void windowDropped() {
+        dropped.increment();
+    }
+}
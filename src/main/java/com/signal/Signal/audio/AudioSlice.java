@@ -0,0 +1,7 @@
+package com.signal.Signal.audio;
+
+/**
+ * A filled region of a pooled segment.
+ */
+record AudioSlice(byte[] segment, int offset, int length) {
+}
@@ -0,0 +1,130 @@
+package com.signal.Signal.audio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only view over a drained run of audio segments. The segments go back to
+ * the pool on {@link #release()}; the view must not be read after that.
+ */
+public class AudioWindow {
+
+    private final AudioSegmentPool pool;
+    private final List<AudioSlice> slices;
+    private final List<byte[]> segments;
+    private final int size;
+    private final long reservedBytes;
+    private final int leadLength;
+    private final long durationMillis;
+    private final long fillNanos;
+    private final Instant receivedAt;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    AudioWindow(AudioSegmentPool pool, List<AudioSlice> slices, int size, int leadLength, long durationMillis,
+                long fillNanos, Instant receivedAt) {
+        this(pool, slices, slices.stream().map(AudioSlice::segment).toList(), size, size, leadLength,
+                durationMillis, fillNanos, receivedAt);
+    }
+
+    private AudioWindow(AudioSegmentPool pool, List<AudioSlice> slices, List<byte[]> segments, int size,
+                        long reservedBytes, int leadLength, long durationMillis, long fillNanos, Instant receivedAt) {
+        this.pool = pool;
+        this.slices = List.copyOf(slices);
+        this.segments = List.copyOf(segments);
+        this.size = size;
+        this.reservedBytes = reservedBytes;
+        this.leadLength = leadLength;
+        this.durationMillis = durationMillis;
+        this.fillNanos = fillNanos;
+        this.receivedAt = receivedAt;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** The new audio the window covers, overlap not counted; 0 if unknown, as for fixed-size byte windows. */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /** Time from the window's first frame until it was drained. */
+    public long getFillNanos() {
+        return fillNanos;
+    }
+
+    /** When the frame that completed the window arrived; a merged window keeps the newer one's. */
+    public Instant getReceivedAt() {
+        return receivedAt;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        for (AudioSlice slice : slices) {
+            out.write(slice.segment(), slice.offset(), slice.length());
+        }
+    }
+
+    /**
+     * Materializes the window as one array, for APIs that only accept a byte[].
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[size];
+        int position = 0;
+        for (AudioSlice slice : slices) {
+            System.arraycopy(slice.segment(), slice.offset(), data, position, slice.length());
+            position += slice.length();
+        }
+        return data;
+    }
+
+    /**
+     * Returns a window covering this one followed by {@code newer}. Ownership of
+     * both windows' segments moves to the result; neither input may be used again.
+     * The newer window's lead (its container header and any overlap repeated
+     * from this one) is left out, so the result stays one well-formed stream
+     * that plays every block once, in order.
+     */
+    public AudioWindow append(AudioWindow newer) {
+        if (!released.compareAndSet(false, true)) {
+            throw new IllegalStateException("Window already released");
+        }
+        if (!newer.released.compareAndSet(false, true)) {
+            released.set(false);
+            throw new IllegalStateException("Window already released");
+        }
+        List<AudioSlice> combined = new ArrayList<>(slices.size() + newer.slices.size());
+        combined.addAll(slices);
+        int skip = newer.leadLength;
+        for (AudioSlice slice : newer.slices) {
+            if (skip >= slice.length()) {
+                skip -= slice.length();
+                continue;
+            }
+            combined.add(new AudioSlice(slice.segment(), slice.offset() + skip, slice.length() - skip));
+            skip = 0;
+        }
+        List<byte[]> owned = new ArrayList<>(segments.size() + newer.segments.size());
+        owned.addAll(segments);
+        owned.addAll(newer.segments);
+        return new AudioWindow(pool, combined, owned, size + newer.size - newer.leadLength,
+                reservedBytes + newer.reservedBytes, leadLength, durationMillis + newer.durationMillis,
+                fillNanos + newer.fillNanos, newer.receivedAt);
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            for (byte[] segment : segments) {
+                pool.recycle(segment);
+            }
+            pool.unreserve(reservedBytes);
+        }
+    }
+}
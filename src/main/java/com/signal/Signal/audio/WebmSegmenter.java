@@ -0,0 +1,636 @@
+package com.signal.Signal.audio;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Re-windows a browser MediaRecorder WebM stream on block boundaries.
+ * <p>
+ * Only the first bytes of the stream carry the EBML header, Info and Tracks, so
+ * they are captured once and replayed at the start of every window. Blocks are
+ * then regrouped by timestamp into windows of a fixed duration. The tail of the
+ * previous window is repeated as overlap in a Cluster of its own, followed by
+ * the window's new blocks in a second unknown-size Cluster. Every window is
+ * therefore a complete, decodable WebM file no matter where the client's frames
+ * were cut, and header plus overlap form a lead that a merge can drop whole.
+ * <p>
+ * Opus windows are gated on a cheap activity estimate: a packet's bitrate
+ * (bytes per millisecond, from its TOC byte) drops sharply for silence under
+ * VBR/DTX, so windows with too few active packets are dropped before they reach
+ * the model. Streams that do not start with an EBML header fall back to
+ * fixed-size byte windows.
+ */
+@Slf4j
+public class WebmSegmenter implements AudioSegmenter {
+
+    /** Block timecodes are signed 16-bit offsets from their cluster, so a window plus its overlap must fit. */
+    public static final int MAX_WINDOW_MILLIS = 30_000;
+
+    private static final int EBML_ID = 0x1A45DFA3;
+    private static final int SEGMENT_ID = 0x18538067;
+    private static final int CLUSTER_ID = 0x1F43B675;
+    private static final int INFO_ID = 0x1549A966;
+    private static final int TRACKS_ID = 0x1654AE6B;
+    private static final int TIMECODE_SCALE_ID = 0x2AD7B1;
+    private static final int TIMECODE_ID = 0xE7;
+    private static final int SIMPLE_BLOCK_ID = 0xA3;
+    private static final int BLOCK_GROUP_ID = 0xA0;
+    private static final int BLOCK_ID = 0xA1;
+    private static final Set<Integer> LEVEL_1_IDS = Set.of(
+            CLUSTER_ID, INFO_ID, TRACKS_ID,
+            0x114D9B74, // SeekHead
+            0x1C53BB6B, // Cues
+            0x1254C367, // Tags
+            0x1043A770, // Chapters
+            0x1941A469  // Attachments
+    );
+    private static final long UNKNOWN_SIZE = -1;
+    private static final int MAX_ELEMENT_BYTES = 1 << 20;
+    private static final byte[] UNKNOWN_SIZE_VINT = {0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+    private enum State {
+        START, TOP, SEGMENT, CLUSTER, PASSTHROUGH, CLOSED
+    }
+
+    private final AudioAccumulator buffer;
+    private final AudioSegmenterFactory stats;
+    private final int overlapMillis;
+    private final double minBytesPerMilli;
+    private final double minActiveRatio;
+    private final int fallbackWindowBytes;
+
+    private int windowMillis;
+    private State state = State.START;
+    private byte[] pending = new byte[8192];
+    private int pendingStart;
+    private int pendingEnd;
+    private long skipRemaining;
+
+    private final ByteArrayOutputStream headerBuilder = new ByteArrayOutputStream();
+    private byte[] header;
+    private boolean opus;
+    private long timecodeScaleNanos = 1_000_000;
+    private long clusterRemaining = UNKNOWN_SIZE;
+    private long clusterTimecode;
+
+    private boolean windowOpen;
+    private boolean windowFailed;
+    private long windowClusterTimecode;
+    private long windowFirstNewTimecode;
+    private int windowLeadLength;
+    private int windowBlocks;
+    private int windowActiveBlocks;
+    private final ArrayDeque<Block> overlap = new ArrayDeque<>();
+
+    private Consumer<AudioWindow> sink;
+
+    WebmSegmenter(AudioAccumulator buffer, AudioSegmenterFactory stats, int windowMillis, int overlapMillis,
+                  double minBytesPerMilli, double minActiveRatio, int fallbackWindowBytes) {
+        this.buffer = buffer;
+        this.stats = stats;
+        this.windowMillis = clampWindow(windowMillis, overlapMillis);
+        this.overlapMillis = overlapMillis;
+        this.minBytesPerMilli = minBytesPerMilli;
+        this.minActiveRatio = minActiveRatio;
+        this.fallbackWindowBytes = fallbackWindowBytes;
+    }
+
+    @Override
+    public synchronized int setWindowMillis(int windowMillis) {
+        this.windowMillis = clampWindow(windowMillis, overlapMillis);
+        return this.windowMillis;
+    }
+
+    static int clampWindow(int windowMillis, int overlapMillis) {
+        return Math.max(overlapMillis + 1, Math.min(windowMillis, MAX_WINDOW_MILLIS - overlapMillis));
+    }
+
+    @Override
+    public synchronized boolean accept(ByteBuffer frame, Consumer<AudioWindow> sink) {
+        this.sink = sink;
+        switch (state) {
+            case CLOSED:
+                return false;
+            case PASSTHROUGH:
+                return acceptPassthrough(frame);
+            default:
+                if (pendingEnd - pendingStart + frame.remaining() > MAX_ELEMENT_BYTES * 2) {
+                    return false;
+                }
+                enqueue(frame);
+                parse();
+                return true;
+        }
+    }
+
+    @Override
+    public synchronized int bufferedBytes() {
+        return buffer.size() + pendingEnd - pendingStart;
+    }
+
+    @Override
+    public synchronized void close() {
+        state = State.CLOSED;
+        overlap.clear();
+        pending = new byte[0];
+        pendingStart = pendingEnd = 0;
+        buffer.close();
+    }
+
+    private boolean acceptPassthrough(ByteBuffer frame) {
+        if (!buffer.append(frame)) {
+            return false;
+        }
+        if (buffer.size() >= fallbackWindowBytes) {
+            stats.windowEmitted();
+            sink.accept(buffer.drain());
+        }
+        return true;
+    }
+
+    private void enqueue(ByteBuffer frame) {
+        int length = frame.remaining();
+        if (pendingEnd + length > pending.length) {
+            int live = pendingEnd - pendingStart;
+            byte[] target = live + length > pending.length
+                    ? new byte[Math.max(pending.length * 2, live + length)]
+                    : pending;
+            System.arraycopy(pending, pendingStart, target, 0, live);
+            pending = target;
+            pendingStart = 0;
+            pendingEnd = live;
+        }
+        frame.duplicate().get(pending, pendingEnd, length);
+        pendingEnd += length;
+    }
+
+    private void parse() {
+        while (true) {
+            if (skipRemaining > 0) {
+                int skipped = (int) Math.min(skipRemaining, pendingEnd - pendingStart);
+                consume(skipped);
+                skipRemaining -= skipped;
+                if (skipRemaining > 0) {
+                    return;
+                }
+            }
+            if (state == State.CLUSTER && clusterRemaining == 0) {
+                state = State.SEGMENT;
+            }
+            if (state == State.START) {
+                if (pendingEnd - pendingStart < 4) {
+                    return;
+                }
+                if (readId(pending, pendingStart) != EBML_ID) {
+                    log.info("Audio stream is not WebM. Falling back to " + fallbackWindowBytes + "-byte windows.");
+                    state = State.PASSTHROUGH;
+                    ByteBuffer buffered = ByteBuffer.wrap(pending, pendingStart, pendingEnd - pendingStart);
+                    pendingStart = pendingEnd = 0;
+                    acceptPassthrough(buffered);
+                    return;
+                }
+                state = State.TOP;
+            }
+
+            int available = pendingEnd - pendingStart;
+            if (available < 2) {
+                return;
+            }
+            int idLength = vintLength(pending[pendingStart]);
+            if (idLength > 4 || available < idLength + 1) {
+                if (idLength > 4) {
+                    corrupt("invalid element ID");
+                }
+                return;
+            }
+            int sizeLength = vintLength(pending[pendingStart + idLength]);
+            if (sizeLength > 8) {
+                corrupt("invalid element size");
+                return;
+            }
+            if (available < idLength + sizeLength) {
+                return;
+            }
+            int id = readId(pending, pendingStart);
+            long size = readSize(pending, pendingStart + idLength, sizeLength);
+            int headerLength = idLength + sizeLength;
+
+            if (!handleElement(id, size, headerLength)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false when more input is needed before the element can be handled
+     */
+    private boolean handleElement(int id, long size, int headerLength) {
+        switch (state) {
+            case TOP -> {
+                if (id == SEGMENT_ID) {
+                    headerBuilder.write(pending, pendingStart, idLengthOf(id));
+                    headerBuilder.writeBytes(UNKNOWN_SIZE_VINT);
+                    consume(headerLength);
+                    state = State.SEGMENT;
+                    return true;
+                }
+                if (id == EBML_ID) {
+                    if (!isComplete(size, headerLength)) {
+                        return false;
+                    }
+                    headerBuilder.write(pending, pendingStart, headerLength + (int) size);
+                    consume(headerLength + (int) size);
+                    return true;
+                }
+                return skip(size, headerLength);
+            }
+            case SEGMENT -> {
+                if (id == CLUSTER_ID) {
+                    if (header == null) {
+                        header = headerBuilder.toByteArray();
+                    }
+                    consume(headerLength);
+                    clusterRemaining = size;
+                    clusterTimecode = 0;
+                    state = State.CLUSTER;
+                    return true;
+                }
+                if (header == null && (id == INFO_ID || id == TRACKS_ID)) {
+                    if (!isComplete(size, headerLength)) {
+                        return false;
+                    }
+                    int length = headerLength + (int) size;
+                    if (id == INFO_ID) {
+                        if (!readTimecodeScale(pending, pendingStart + headerLength, (int) size)) {
+                            corrupt("malformed Info");
+                            return false;
+                        }
+                    } else {
+                        opus = contains(pending, pendingStart + headerLength, (int) size, "A_OPUS");
+                    }
+                    headerBuilder.write(pending, pendingStart, length);
+                    consume(length);
+                    return true;
+                }
+                return skip(size, headerLength);
+            }
+            case CLUSTER -> {
+                if (clusterRemaining == UNKNOWN_SIZE && LEVEL_1_IDS.contains(id)) {
+                    state = State.SEGMENT;
+                    return true;
+                }
+                if (id == TIMECODE_ID || id == SIMPLE_BLOCK_ID || id == BLOCK_GROUP_ID) {
+                    if (!isComplete(size, headerLength)) {
+                        return false;
+                    }
+                    int length = headerLength + (int) size;
+                    if (id == TIMECODE_ID) {
+                        clusterTimecode = readUnsigned(pending, pendingStart + headerLength, (int) size);
+                    } else if (!onBlock(id, pendingStart, headerLength, (int) size)) {
+                        corrupt("malformed block");
+                        return false;
+                    }
+                    consume(length);
+                    return true;
+                }
+                return skip(size, headerLength);
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private boolean isComplete(long size, int headerLength) {
+        if (size == UNKNOWN_SIZE || size > MAX_ELEMENT_BYTES) {
+            corrupt("oversized element");
+            return false;
+        }
+        return pendingEnd - pendingStart >= headerLength + size;
+    }
+
+    private boolean skip(long size, int headerLength) {
+        if (size == UNKNOWN_SIZE) {
+            corrupt("unknown-size element outside a cluster");
+            return false;
+        }
+        consume(headerLength);
+        skipRemaining = size;
+        return true;
+    }
+
+    private void consume(int length) {
+        pendingStart += length;
+        if (state == State.CLUSTER && clusterRemaining != UNKNOWN_SIZE) {
+            clusterRemaining -= length;
+        }
+        if (pendingStart == pendingEnd) {
+            pendingStart = pendingEnd = 0;
+        }
+    }
+
+    private void corrupt(String reason) {
+        log.warn("Unparseable WebM stream (" + reason + "). Falling back to byte windows.");
+        discardWindow();
+        state = State.PASSTHROUGH;
+        pendingStart = pendingEnd = 0;
+    }
+
+    /**
+     * Every offset and length comes from the stream, so each is checked against
+     * the element before it is read.
+     *
+     * @return false if the block is malformed
+     */
+    private boolean onBlock(int id, int elementStart, int headerLength, int payloadLength) {
+        int payloadStart = elementStart + headerLength;
+        int payloadEnd = payloadStart + payloadLength;
+        int blockStart = payloadStart;
+        int blockEnd = payloadEnd;
+        if (id == BLOCK_GROUP_ID) {
+            blockStart = -1;
+            int child = payloadStart;
+            while (child < payloadEnd - 1) {
+                int childIdLength = vintLength(pending[child]);
+                if (childIdLength > 4 || child + childIdLength >= payloadEnd) {
+                    return false;
+                }
+                int childSizeLength = vintLength(pending[child + childIdLength]);
+                int childPayload = child + childIdLength + childSizeLength;
+                if (childSizeLength > 8 || childPayload > payloadEnd) {
+                    return false;
+                }
+                long childSize = readSize(pending, child + childIdLength, childSizeLength);
+                if (childSize == UNKNOWN_SIZE || childSize > payloadEnd - childPayload) {
+                    return false;
+                }
+                if (readId(pending, child) == BLOCK_ID) {
+                    blockStart = childPayload;
+                    blockEnd = (int) (childPayload + childSize);
+                    break;
+                }
+                child = (int) (childPayload + childSize);
+            }
+            if (blockStart < 0) {
+                return true;
+            }
+        }
+
+        // track number, then a 16-bit timecode and the flags byte
+        if (blockStart >= blockEnd || blockStart + vintLength(pending[blockStart]) + 3 > blockEnd) {
+            return false;
+        }
+        int timecodeOffset = blockStart + vintLength(pending[blockStart]);
+        short relative = (short) (((pending[timecodeOffset] & 0xFF) << 8) | (pending[timecodeOffset + 1] & 0xFF));
+        int frameStart = timecodeOffset + 3;
+        boolean active = isActive(pending, frameStart, blockEnd - frameStart);
+
+        byte[] element = Arrays.copyOfRange(pending, elementStart, payloadEnd);
+        addBlock(new Block(clusterTimecode + relative, element, timecodeOffset - elementStart, active));
+        return true;
+    }
+
+    private void addBlock(Block block) {
+        long windowTicks = millisToTicks(windowMillis);
+        if (windowOpen && block.timecode - windowFirstNewTimecode >= windowTicks) {
+            closeWindow(block.timecode);
+        }
+        if (!windowOpen) {
+            openWindow(block.timecode);
+        }
+        appendBlock(block);
+        windowBlocks++;
+        if (block.active) {
+            windowActiveBlocks++;
+        }
+
+        overlap.addLast(block);
+        long overlapTicks = millisToTicks(overlapMillis);
+        while (block.timecode - overlap.peekFirst().timecode > overlapTicks) {
+            overlap.pollFirst();
+        }
+    }
+
+    private void openWindow(long firstTimecode) {
+        windowFirstNewTimecode = firstTimecode;
+        windowOpen = true;
+        windowFailed = false;
+        windowBlocks = 0;
+        windowActiveBlocks = 0;
+
+        write(header);
+        if (!overlap.isEmpty()) {
+            writeCluster(overlap.peekFirst().timecode);
+            for (Block carried : overlap) {
+                appendBlock(carried);
+            }
+        }
+        windowLeadLength = buffer.size();
+        writeCluster(firstTimecode);
+    }
+
+    private void writeCluster(long timecode) {
+        byte[] cluster = new byte[4 + UNKNOWN_SIZE_VINT.length + 2 + 8];
+        writeInt(cluster, 0, CLUSTER_ID);
+        System.arraycopy(UNKNOWN_SIZE_VINT, 0, cluster, 4, UNKNOWN_SIZE_VINT.length);
+        cluster[12] = (byte) TIMECODE_ID;
+        cluster[13] = (byte) 0x88;
+        for (int i = 0; i < 8; i++) {
+            cluster[14 + i] = (byte) (timecode >>> (56 - 8 * i));
+        }
+        write(cluster);
+        windowClusterTimecode = timecode;
+    }
+
+    private void appendBlock(Block block) {
+        long relative = block.timecode - windowClusterTimecode;
+        if (relative > Short.MAX_VALUE || relative < Short.MIN_VALUE) {
+            // a block's timecode is a signed 16-bit offset from its cluster's, which
+            // a long window at a fine TimecodeScale outgrows
+            writeCluster(block.timecode);
+            relative = 0;
+        }
+        block.element[block.timecodeOffset] = (byte) (relative >>> 8);
+        block.element[block.timecodeOffset + 1] = (byte) relative;
+        write(block.element);
+    }
+
+    private void write(byte[] bytes) {
+        if (!windowFailed && !buffer.append(ByteBuffer.wrap(bytes))) {
+            windowFailed = true;
+        }
+    }
+
+    /** @param endTimecode where the window's audio ends: the first block of the next one */
+    private void closeWindow(long endTimecode) {
+        windowOpen = false;
+        AudioWindow window = buffer.drain(windowLeadLength, ticksToMillis(endTimecode - windowFirstNewTimecode));
+        if (windowFailed) {
+            window.release();
+            stats.windowDropped();
+            log.warn("Audio window exceeded the buffer limit and was dropped.");
+            return;
+        }
+        if (opus && windowActiveBlocks < minActiveRatio * windowBlocks) {
+            window.release();
+            stats.windowGated();
+            log.debug("Silent window gated (" + windowActiveBlocks + "/" + windowBlocks + " active packets).");
+            return;
+        }
+        stats.windowEmitted();
+        sink.accept(window);
+    }
+
+    private void discardWindow() {
+        if (windowOpen) {
+            windowOpen = false;
+            buffer.drain().release();
+        }
+        overlap.clear();
+    }
+
+    /**
+     * Treats a packet as speech if its bitrate reaches {@code minBytesPerMilli}.
+     * Non-Opus tracks are never gated.
+     */
+    private boolean isActive(byte[] data, int offset, int length) {
+        if (!opus) {
+            return true;
+        }
+        if (length <= 0) {
+            return false;
+        }
+        double millis = opusPacketMillis(data, offset, length);
+        return millis <= 0 || length / millis >= minBytesPerMilli;
+    }
+
+    /** Packet duration from the Opus TOC byte (RFC 6716, section 3.1). */
+    static double opusPacketMillis(byte[] data, int offset, int length) {
+        int toc = data[offset] & 0xFF;
+        int config = toc >> 3;
+        double frameMillis;
+        if (config < 12) {
+            frameMillis = new double[]{10, 20, 40, 60}[config & 3];
+        } else if (config < 16) {
+            frameMillis = (config & 1) == 0 ? 10 : 20;
+        } else {
+            frameMillis = new double[]{2.5, 5, 10, 20}[config & 3];
+        }
+        int frames = switch (toc & 3) {
+            case 0 -> 1;
+            case 1, 2 -> 2;
+            default -> length > 1 ? data[offset + 1] & 0x3F : 0;
+        };
+        return frameMillis * frames;
+    }
+
+    private long millisToTicks(long millis) {
+        return Math.max(1, millis * 1_000_000 / timecodeScaleNanos);
+    }
+
+    private long ticksToMillis(long ticks) {
+        return ticks * timecodeScaleNanos / 1_000_000;
+    }
+
+    /** @return false if the Info element is malformed */
+    private boolean readTimecodeScale(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int position = offset;
+        while (position < end - 1) {
+            int idLength = vintLength(data[position]);
+            if (idLength > 4 || position + idLength >= end) {
+                return false;
+            }
+            int sizeLength = vintLength(data[position + idLength]);
+            int payload = position + idLength + sizeLength;
+            if (sizeLength > 8 || payload > end) {
+                return false;
+            }
+            long size = readSize(data, position + idLength, sizeLength);
+            if (size == UNKNOWN_SIZE || size > end - payload) {
+                return false;
+            }
+            if (readId(data, position) == TIMECODE_SCALE_ID && size > 0) {
+                long scale = readUnsigned(data, payload, (int) size);
+                if (size > 8 || scale <= 0) {
+                    return false;
+                }
+                timecodeScaleNanos = scale;
+                return true;
+            }
+            position = (int) (payload + size);
+        }
+        return true;
+    }
+
+    private static boolean contains(byte[] data, int offset, int length, String ascii) {
+        byte[] needle = ascii.getBytes(StandardCharsets.US_ASCII);
+        outer:
+        for (int i = offset; i <= offset + length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static int vintLength(byte first) {
+        int leadingZeros = Integer.numberOfLeadingZeros(first & 0xFF) - 24;
+        return leadingZeros + 1;
+    }
+
+    private static int idLengthOf(int id) {
+        return id > 0xFFFFFF ? 4 : id > 0xFFFF ? 3 : id > 0xFF ? 2 : 1;
+    }
+
+    /** Reads an element ID, keeping its length marker as Matroska IDs are written. */
+    static int readId(byte[] data, int offset) {
+        int length = vintLength(data[offset]);
+        int id = 0;
+        for (int i = 0; i < length; i++) {
+            id = (id << 8) | (data[offset + i] & 0xFF);
+        }
+        return id;
+    }
+
+    /** @return the size, or {@link #UNKNOWN_SIZE} if every value bit is set */
+    static long readSize(byte[] data, int offset, int length) {
+        long value = data[offset] & (0xFF >> length);
+        boolean allOnes = value == (0xFF >> length);
+        for (int i = 1; i < length; i++) {
+            int b = data[offset + i] & 0xFF;
+            allOnes &= b == 0xFF;
+            value = (value << 8) | b;
+        }
+        return allOnes ? UNKNOWN_SIZE : value;
+    }
+
+    private static long readUnsigned(byte[] data, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private record Block(long timecode, byte[] element, int timecodeOffset, boolean active) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.signal.Signal.cache;
+
+public record CacheStats(String name,
+                         int size,
+                         long hits,
+                         long misses,
+                         long joins,
+                         long evictions) {
+}
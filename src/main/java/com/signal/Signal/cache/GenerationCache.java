@@ -0,0 +1,188 @@
+package com.signal.Signal.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * LRU + TTL cache for expensive model generations. Concurrent requests for the
+ * same key share a single generation: the first caller runs the loader and the
+ * others wait for its result instead of paying for their own.
+ */
+@Slf4j
+public class GenerationCache<V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Predicate<V> stillValid;
+    private final Clock clock;
+
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<Optional<V>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder joins = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public GenerationCache(String name, int maxEntries, Duration ttl) {
+        this(name, maxEntries, ttl, value -> true, Clock.systemUTC());
+    }
+
+    /**
+     * @param stillValid checked on every hit; entries that fail it are dropped and regenerated
+     */
+    public GenerationCache(String name, int maxEntries, Duration ttl, Predicate<V> stillValid, Clock clock) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.stillValid = stillValid;
+        this.clock = clock;
+    }
+
+    /**
+     * Builds a key from the normalized context, so case, punctuation and spacing
+     * differences in otherwise identical requests still hit.
+     */
+    public static String key(String context, String model, String promptVersion) {
+        return digest(model, promptVersion, normalize(context));
+    }
+
+    /**
+     * Key for a generation whose prompt also carries one room's meeting context.
+     * The room is part of the key, so no room is served a result built from
+     * another room's transcript. The context itself is not: it grows with every
+     * signal, so repeated triggers on the same focus would never hit. The TTL
+     * bounds how far behind the meeting a hit can be.
+     */
+    public static String key(String context, String model, String promptVersion, String roomId) {
+        return digest(model, promptVersion, normalize(context), roomId);
+    }
+
+    private static String normalize(String context) {
+        return context == null ? "" : context.toLowerCase()
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+    }
+
+    private static String digest(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    digest.update((byte) 0);
+                }
+                digest.update(parts[i].getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Optional<V> getIfPresent(String key) {
+        Optional<V> value = lookup(key);
+        if (value.isPresent()) {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value, or runs {@code loader} once for every concurrent
+     * caller of the same key. Empty results are not cached. If the loader throws,
+     * for instance because the leader's job was cancelled, the callers waiting
+     * on it try again, one of them as the new leader.
+     *
+     * @throws CancellationException if the caller is interrupted while waiting
+     */
+    public Optional<V> getOrCompute(String key, Supplier<Optional<V>> loader) {
+        CompletableFuture<Optional<V>> mine = new CompletableFuture<>();
+        while (true) {
+            Optional<V> cached = getIfPresent(key);
+            if (cached.isPresent()) {
+                return cached;
+            }
+            CompletableFuture<Optional<V>> leader = inFlight.putIfAbsent(key, mine);
+            if (leader == null) {
+                break;
+            }
+            joins.increment();
+            try {
+                return leader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted waiting for a " + name + " generation");
+            } catch (CancellationException | ExecutionException e) {
+                log.debug("A " + name + " generation this call waited on failed (" + e + "). Trying again.");
+            }
+        }
+
+        misses.increment();
+        try {
+            Optional<V> value = loader.get();
+            value.ifPresent(v -> store(key, v));
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new CacheStats(name, size, hits.sum(), misses.sum(), joins.sum(), evictions.sum());
+    }
+
+    private synchronized Optional<V> lookup(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt() <= clock.millis() || !stillValid.test(entry.value())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    private synchronized void store(String key, V value) {
+        entries.put(key, new Entry<>(value, clock.millis() + ttlMillis));
+        Iterator<Map.Entry<String, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.signal.Signal.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM stand-in for a shared registry and message broker. Every application
+ * context started with the same {@code signal.cluster.name} joins the same hub,
+ * so several nodes can run side by side in one process. Delivery is direct and
+ * synchronous; receivers must not block.
+ */
+@Slf4j
+public final class LoopbackHub {
+
+    private static final Map<String, LoopbackHub> CLUSTERS = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> roomNodes = new ConcurrentHashMap<>();
+    private final Map<String, String> publishers = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<RoomFrame>> listeners = new ConcurrentHashMap<>();
+
+    private LoopbackHub() {
+    }
+
+    public static LoopbackHub forCluster(String name) {
+        return CLUSTERS.computeIfAbsent(name, n -> new LoopbackHub());
+    }
+
+    void join(String roomId, String nodeId) {
+        roomNodes.computeIfAbsent(roomId, r -> ConcurrentHashMap.newKeySet()).add(nodeId);
+    }
+
+    void leave(String roomId, String nodeId) {
+        roomNodes.computeIfPresent(roomId, (r, nodes) -> {
+            nodes.remove(nodeId);
+            return nodes.isEmpty() ? null : nodes;
+        });
+    }
+
+    Set<String> nodesFor(String roomId) {
+        Set<String> nodes = roomNodes.get(roomId);
+        return nodes == null ? Set.of() : Set.copyOf(nodes);
+    }
+
+    boolean claimPublisher(String roomId, String owner) {
+        return owner.equals(publishers.computeIfAbsent(roomId, r -> owner));
+    }
+
+    void releasePublisher(String roomId, String owner) {
+        publishers.remove(roomId, owner);
+    }
+
+    void subscribe(String nodeId, Consumer<RoomFrame> listener) {
+        listeners.put(nodeId, listener);
+    }
+
+    void publish(String nodeId, RoomFrame frame) {
+        Consumer<RoomFrame> listener = listeners.get(nodeId);
+        if (listener == null) {
+            log.warn("No node " + nodeId + " to deliver room " + frame.roomId() + " to.");
+            return;
+        }
+        listener.accept(frame);
+    }
+
+    /** Forgets everything the node registered, as if it had crashed. */
+    void removeNode(String nodeId) {
+        listeners.remove(nodeId);
+        roomNodes.keySet().forEach(roomId -> leave(roomId, nodeId));
+        publishers.values().removeIf(owner -> owner.startsWith(nodeId + "/"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.signal.Signal.cluster;
+
+import java.util.Set;
+
+/**
+ * {@link SessionRegistry} backed by a {@link LoopbackHub}.
+ */
+public class LoopbackSessionRegistry implements SessionRegistry, AutoCloseable {
+
+    private final LoopbackHub hub;
+    private final String nodeId;
+
+    public LoopbackSessionRegistry(LoopbackHub hub, String nodeId) {
+        this.hub = hub;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void join(String roomId) {
+        hub.join(roomId, nodeId);
+    }
+
+    @Override
+    public void leave(String roomId) {
+        hub.leave(roomId, nodeId);
+    }
+
+    @Override
+    public Set<String> nodesFor(String roomId) {
+        return hub.nodesFor(roomId);
+    }
+
+    @Override
+    public boolean claimPublisher(String roomId, String sessionId) {
+        return hub.claimPublisher(roomId, owner(sessionId));
+    }
+
+    @Override
+    public void releasePublisher(String roomId, String sessionId) {
+        hub.releasePublisher(roomId, owner(sessionId));
+    }
+
+    @Override
+    public void close() {
+        hub.removeNode(nodeId);
+    }
+
+    // session ids are only unique per node
+    private String owner(String sessionId) {
+        return nodeId + "/" + sessionId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.signal.Signal.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * {@link SignalBus} backed by a {@link LoopbackHub}.
+ */
+public class LoopbackSignalBus implements SignalBus {
+
+    private final LoopbackHub hub;
+    private final String nodeId;
+
+    public LoopbackSignalBus(LoopbackHub hub, String nodeId) {
+        this.hub = hub;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void publish(String nodeId, RoomFrame frame) {
+        hub.publish(nodeId, frame);
+    }
+
+    @Override
+    public void subscribe(Consumer<RoomFrame> listener) {
+        hub.subscribe(nodeId, listener);
+    }
+}
@@ -0,0 +1,9 @@
+package com.signal.Signal.cluster;
+
+import com.signal.Signal.dto.SignalResponse;
+
+/**
+ * A signal already serialized for the wire, addressed to a room.
+ */
+public record RoomFrame(String roomId, SignalResponse.SignalType type, String payload) {
+}
@@ -0,0 +1,29 @@
+package com.signal.Signal.cluster;
+
+import java.util.Set;
+
+/**
+ * Cluster-wide view of which nodes hold sessions for each room, and which
+ * session publishes its audio. Each instance acts for one node.
+ */
+public interface SessionRegistry {
+
+    String getNodeId();
+
+    /** Records that this node holds at least one session of the room. Idempotent. */
+    void join(String roomId);
+
+    /** Records that this node holds no more sessions of the room. Idempotent. */
+    void leave(String roomId);
+
+    /** Every node holding a session of the room, this one included. */
+    Set<String> nodesFor(String roomId);
+
+    /**
+     * @return true if the session is now the room's only publisher in the cluster
+     */
+    boolean claimPublisher(String roomId, String sessionId);
+
+    /** Frees the room's publisher slot if the session holds it. */
+    void releasePublisher(String roomId, String sessionId);
+}
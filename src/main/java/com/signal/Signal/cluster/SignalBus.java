@@ -0,0 +1,15 @@
+package com.signal.Signal.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries serialized signals to the node that holds a room's sockets, so
+ * work for a room may run on any node.
+ */
+public interface SignalBus {
+
+    void publish(String nodeId, RoomFrame frame);
+
+    /** Sets the receiver for frames addressed to this node. */
+    void subscribe(Consumer<RoomFrame> listener);
+}
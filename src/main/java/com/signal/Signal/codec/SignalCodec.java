@@ -0,0 +1,103 @@
+package com.signal.Signal.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.signal.Signal.dto.ClientCommand;
+import com.signal.Signal.dto.SignalResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The one place signals are read from model output and written to clients.
+ * Readers and writers are bound to their types once. Model output is parsed
+ * straight from the first '{', so markdown fences or prose around the JSON
+ * cost nothing and no cleaned copy of the text is made. Constant signals are
+ * serialized once per template and only get their timestamp filled in.
+ */
+@Component
+public class SignalCodec {
+
+    private static final String EPOCH = "\"" + Instant.EPOCH + "\"";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader signalReader;
+    private final ObjectReader codeReader;
+    private final ObjectReader commandReader;
+    private final ObjectWriter signalWriter;
+    private final Map<SignalResponse, StaticFrame> staticFrames = new ConcurrentHashMap<>();
+
+    public SignalCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.signalReader = objectMapper.readerFor(SignalResponse.class);
+        this.codeReader = objectMapper.readerFor(new TypeReference<Map<String, String>>() {});
+        this.commandReader = objectMapper.readerFor(ClientCommand.class);
+        this.signalWriter = objectMapper.writerFor(SignalResponse.class);
+    }
+
+    /** @return the signal, or null if the text holds no JSON object */
+    public SignalResponse readSignal(String modelOutput) throws IOException {
+        return read(signalReader, modelOutput);
+    }
+
+    /** @return language to code, or null if the text holds no JSON object */
+    public Map<String, String> readCode(String modelOutput) throws IOException {
+        return read(codeReader, modelOutput);
+    }
+
+    /** @return the command, or null if the frame holds no JSON object */
+    public ClientCommand readCommand(String payload) throws IOException {
+        return read(commandReader, payload);
+    }
+
+    public TextMessage encode(SignalResponse signal) throws JsonProcessingException {
+        return new TextMessage(signalWriter.writeValueAsString(signal));
+    }
+
+    /**
+     * The pre-serialized frame for a constant signal. The template must not be
+     * modified afterwards; its own timestamp is ignored.
+     */
+    public StaticFrame staticFrame(SignalResponse template) {
+        return staticFrames.computeIfAbsent(template, this::precompute);
+    }
+
+    public StreamingJsonFieldReader newFieldReader(BiConsumer<String, String> onField) {
+        return new StreamingJsonFieldReader(objectMapper.getFactory(), onField);
+    }
+
+    private StaticFrame precompute(SignalResponse template) {
+        SignalResponse copy = template.toBuilder().timestamp(Instant.EPOCH).build();
+        try {
+            String json = signalWriter.writeValueAsString(copy);
+            int gap = json.indexOf(EPOCH);
+            if (gap < 0) {
+                throw new IllegalStateException("Timestamps are not written as ISO-8601 strings");
+            }
+            return new StaticFrame(json.substring(0, gap + 1), json.substring(gap + EPOCH.length() - 1));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T read(ObjectReader reader, String text) throws IOException {
+        int start = text == null ? -1 : text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+        // Reading stops at the end of the root object, so a closing fence is never looked at.
+        StringReader source = new StringReader(text);
+        source.skip(start);
+        return reader.readValue(source);
+    }
+}
@@ -0,0 +1,24 @@
+package com.signal.Signal.codec;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Instant;
+
+/**
+ * A signal serialized once, with its timestamp left as a gap to splice the send
+ * time into. Rendering is one string concatenation, no object mapping.
+ */
+public final class StaticFrame {
+
+    private final String prefix;
+    private final String suffix;
+
+    StaticFrame(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    public TextMessage render(Instant timestamp) {
+        return new TextMessage(prefix + timestamp + suffix);
+    }
+}
@@ -0,0 +1,97 @@
+package com.signal.Signal.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * Incrementally parses a JSON object as model output streams in, reporting each
+ * top-level scalar field the moment its value is complete. Anything before the
+ * opening brace (such as a markdown fence) and after the closing brace is ignored.
+ * Malformed input stops the reader instead of failing the caller: the early
+ * fields are only an optimisation, and the full text may still be readable.
+ */
+public class StreamingJsonFieldReader {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final BiConsumer<String, String> onField;
+
+    private boolean started;
+    private boolean complete;
+    private boolean failed;
+    private int depth;
+    private String fieldName;
+
+    public StreamingJsonFieldReader(JsonFactory jsonFactory, BiConsumer<String, String> onField) {
+        try {
+            this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.onField = onField;
+    }
+
+    public void feed(String chunk) {
+        if (complete || failed || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int brace = chunk.indexOf('{');
+            if (brace < 0) {
+                return;
+            }
+            started = true;
+            chunk = chunk.substring(brace);
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** True once the input failed to parse; nothing is reported after that. */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    if (depth == 0) {
+                        complete = true;
+                        feeder.endOfInput();
+                    }
+                }
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        fieldName = parser.currentName();
+                    }
+                }
+                default -> {
+                    if (depth == 1 && token.isScalarValue() && fieldName != null) {
+                        onField.accept(fieldName, token == JsonToken.VALUE_NULL ? null : parser.getText());
+                    }
+                }
+            }
+        }
+    }
+}
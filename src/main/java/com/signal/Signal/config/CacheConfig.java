@@ -0,0 +1,33 @@
+package com.signal.Signal.config;
+
+import com.signal.Signal.cache.GenerationCache;
+import com.signal.Signal.diagram.DiagramStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Caches diagram hashes rather than image bytes; a hit whose image has since
+     * been evicted from the {@link DiagramStore} counts as a miss.
+     */
+    @Bean
+    public GenerationCache<String> diagramCache(DiagramStore diagramStore,
+                                                @Value("${signal.cache.board.max-entries:128}") int maxEntries,
+                                                @Value("${signal.cache.board.ttl:10m}") Duration ttl) {
+        return new GenerationCache<>("board", maxEntries, ttl,
+                hash -> diagramStore.get(hash).isPresent(), Clock.systemUTC());
+    }
+
+    @Bean
+    public GenerationCache<Map<String, String>> codeCache(@Value("${signal.cache.code.max-entries:256}") int maxEntries,
+                                                          @Value("${signal.cache.code.ttl:10m}") Duration ttl) {
+        return new GenerationCache<>("code", maxEntries, ttl);
+    }
+}
@@ -0,0 +1,50 @@
+package com.signal.Signal.config;
+
+import com.signal.Signal.cluster.LoopbackHub;
+import com.signal.Signal.cluster.LoopbackSessionRegistry;
+import com.signal.Signal.cluster.LoopbackSignalBus;
+import com.signal.Signal.cluster.SessionRegistry;
+import com.signal.Signal.cluster.SignalBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * signal.cluster.transport=loopback (default) connects nodes through an
+ * in-process hub: a single instance behaves as before, and tests can start
+ * several contexts sharing a cluster name. A networked transport plugs in by
+ * providing its own {@link SessionRegistry} and {@link SignalBus}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "signal.cluster.transport", havingValue = "loopback", matchIfMissing = true)
+public class ClusterConfig {
+
+    @Value("${signal.cluster.name:local}")
+    private String clusterName;
+
+    @Value("${signal.cluster.node-id:}")
+    private String nodeId;
+
+    @Bean
+    public SessionRegistry sessionRegistry() {
+        log.info("Node " + nodeId() + " joining loopback cluster " + clusterName);
+        return new LoopbackSessionRegistry(LoopbackHub.forCluster(clusterName), nodeId());
+    }
+
+    @Bean
+    public SignalBus signalBus() {
+        return new LoopbackSignalBus(LoopbackHub.forCluster(clusterName), nodeId());
+    }
+
+    private String nodeId() {
+        if (nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        return nodeId;
+    }
+}
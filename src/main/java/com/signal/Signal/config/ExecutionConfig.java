@@ -0,0 +1,60 @@
+package com.signal.Signal.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the threads that run blocking Gemini I/O. In VIRTUAL mode every task
+ * gets its own virtual thread, so thousands of waiting calls cost no platform
+ * threads; PLATFORM mode keeps the previous cached pool.
+ */
+@Slf4j
+@Configuration
+public class ExecutionConfig implements AsyncConfigurer {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Value("${signal.execution.mode:VIRTUAL}")
+    private Mode mode;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService signalExecutor() {
+        log.info("Gemini I/O execution mode: " + mode);
+        if (mode == Mode.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("signal-io-", 0).factory());
+        }
+        AtomicInteger threadIds = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "signal-io-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Spring Boot bootstraps JPA on this executor while the rest of the context
+     * starts (spring.data.jpa.repositories.bootstrap-mode=deferred).
+     */
+    @Bean
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService signalExecutor) {
+        return new TaskExecutorAdapter(signalExecutor);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return signalExecutor();
+    }
+}
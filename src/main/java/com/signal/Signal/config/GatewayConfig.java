@@ -0,0 +1,86 @@
+package com.signal.Signal.config;
+
+import com.google.genai.Client;
+import com.signal.Signal.gateway.FakeGeminiGateway;
+import com.signal.Signal.gateway.GeminiGateway;
+import com.signal.Signal.gateway.GenaiGeminiGateway;
+import com.signal.Signal.gateway.InstrumentedGeminiGateway;
+import com.signal.Signal.gateway.QuotaGeminiGateway;
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.prompt.ContextCache;
+import com.signal.Signal.prompt.Prompts;
+import com.signal.Signal.quota.QuotaManager;
+import com.signal.Signal.quota.QuotaProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * signal.gateway.mode=live (default) calls the real API; fake serves canned
+ * responses in-process for local runs, tests and benchmarks. Either way calls
+ * pass through the node's {@link QuotaManager} first.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(QuotaProperties.class)
+public class GatewayConfig {
+
+    @Bean
+    public QuotaManager quotaManager(QuotaProperties properties, ExecutorService signalExecutor, SignalMetrics signalMetrics) {
+        return new QuotaManager(properties, signalExecutor, signalMetrics, Clock.systemUTC());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "signal.gateway.mode", havingValue = "live", matchIfMissing = true)
+    public GeminiGateway liveGeminiGateway(ObjectProvider<Client> geminiClient, SignalMetrics signalMetrics,
+                                           QuotaManager quotaManager) {
+        return new QuotaGeminiGateway(new InstrumentedGeminiGateway(new GenaiGeminiGateway(geminiClient::getObject), signalMetrics),
+                quotaManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "signal.gateway.mode", havingValue = "fake")
+    public GeminiGateway fakeGeminiGateway(SignalMetrics signalMetrics,
+                                           QuotaManager quotaManager,
+                                           @Value("${signal.gateway.fake.latency:0ms}") Duration latency,
+                                           @Value("${signal.gateway.fake.error-rate:0}") double errorRate,
+                                           @Value("${signal.gateway.fake.error-code:429}") int errorCode,
+                                           @Value("${signal.gateway.fake.seed:42}") long seed,
+                                           @Value("${signal.gateway.fake.analysis-response:}") String analysisResponse,
+                                           @Value("${signal.gateway.fake.code-response:}") String codeResponse,
+                                           @Value("${signal.gateway.fake.image-path:}") String imagePath) throws IOException {
+        log.warn("Using the FAKE Gemini gateway (latency " + latency + ", error rate " + errorRate + ")");
+        FakeGeminiGateway fake = new FakeGeminiGateway(latency, errorRate, errorCode, seed,
+                analysisResponse.isBlank() ? FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE : analysisResponse,
+                codeResponse.isBlank() ? FakeGeminiGateway.DEFAULT_CODE_RESPONSE : codeResponse,
+                imagePath.isBlank() ? FakeGeminiGateway.placeholderImage() : Files.readAllBytes(Path.of(imagePath)));
+        return new QuotaGeminiGateway(new InstrumentedGeminiGateway(fake, signalMetrics), quotaManager);
+    }
+
+    /**
+     * Serves the analysis config per model, with its system instruction held as
+     * cached content on the API side once that has been created.
+     */
+    @Bean
+    public ContextCache analysisContextCache(GeminiGateway geminiGateway,
+                                             ExecutorService signalExecutor,
+                                             SignalMetrics signalMetrics,
+                                             @Value("${signal.prompt.context-cache.enabled:true}") boolean enabled,
+                                             @Value("${signal.prompt.context-cache.ttl:1h}") Duration ttl,
+                                             @Value("${signal.prompt.context-cache.refresh-ahead:5m}") Duration refreshAhead,
+                                             @Value("${signal.prompt.context-cache.retry-after:10m}") Duration retryAfter) {
+        return new ContextCache(Prompts.ANALYSIS, geminiGateway, enabled, ttl, refreshAhead, retryAfter,
+                signalExecutor, signalMetrics, Clock.systemUTC());
+    }
+}
@@ -2,16 +2,21 @@ package com.signal.Signal.config;
 
 import com.google.genai.Client;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
+@ConditionalOnProperty(name = "signal.gateway.mode", havingValue = "live", matchIfMissing = true)
 public class GeminiConfig {
 
-    @Value("${GOOGLE_API_KEY}")
+    @Value("${GOOGLE_API_KEY:}")
     private String apiKey;
 
+    // built on the first model call rather than during startup
     @Bean
+    @Lazy
     public Client geminiClient() {
         if (apiKey == null || apiKey.isEmpty()) {
             throw new RuntimeException("GOOGLE_API_KEY is missing! Check your Cloud Run variables.");
@@ -0,0 +1,19 @@
+package com.signal.Signal.config;
+
+import com.signal.Signal.trigger.TriggerEngine;
+import com.signal.Signal.trigger.TriggerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(TriggerProperties.class)
+public class TriggerConfig {
+
+    @Bean
+    public TriggerEngine triggerEngine(TriggerProperties properties) {
+        return new TriggerEngine(properties, Clock.systemUTC());
+    }
+}
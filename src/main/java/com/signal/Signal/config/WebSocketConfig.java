@@ -29,7 +29,8 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Bean
     public ServletServerContainerFactoryBean createWebSocketContainer() {
         ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
-        container.setMaxTextMessageBufferSize(1024 * 1024);
+        // inbound text is only client commands; diagrams are fetched over HTTP
+        container.setMaxTextMessageBufferSize(64 * 1024);
 
         container.setMaxBinaryMessageBufferSize(1024 * 1024);
         return container;
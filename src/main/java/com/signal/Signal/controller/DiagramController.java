@@ -0,0 +1,67 @@
+package com.signal.Signal.controller;
+
+import com.signal.Signal.diagram.DiagramStore;
+import com.signal.Signal.diagram.StoredDiagram;
+import com.signal.Signal.history.HistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/diagrams")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class DiagramController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final DiagramStore diagramStore;
+    private final HistoryService historyService;
+
+    /**
+     * Content is addressed by its own hash, so it never changes: the hash doubles as
+     * the ETag and Spring answers a matching If-None-Match with 304 and no body.
+     * Diagrams evicted from memory are served from history.
+     */
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> getDiagram(@PathVariable String hash) {
+        return diagramStore.get(hash)
+                .or(() -> historyService.findDiagram(hash))
+                .map(this::toResponse)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<byte[]> toResponse(StoredDiagram diagram) {
+        return ResponseEntity.ok()
+                .eTag(diagram.hash())
+                .cacheControl(IMMUTABLE)
+                .contentType(contentType(diagram.mimeType()))
+                .contentLength(diagram.data().length)
+                .body(diagram.data());
+    }
+
+    /**
+     * The type comes from the model's response, or from history written by older
+     * versions, so anything missing, malformed or not an image is served as PNG.
+     */
+    static MediaType contentType(String mimeType) {
+        if (mimeType == null || mimeType.isBlank()) {
+            return MediaType.IMAGE_PNG;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(mimeType);
+            return "image".equals(type.getType()) && !type.isWildcardSubtype() ? type : MediaType.IMAGE_PNG;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.IMAGE_PNG;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.signal.Signal.controller;
+
+import com.signal.Signal.history.HistoryService;
+import com.signal.Signal.history.ReplayPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/rooms")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class HistoryController {
+
+    private final HistoryService historyService;
+
+    /**
+     * Pages through a room's signals, oldest first. Start with {@code since} (or
+     * nothing, for the whole history) and follow {@code nextAfter} with {@code after}.
+     */
+    @GetMapping("/{roomId}/signals")
+    public ReplayPage getSignals(@PathVariable String roomId,
+                                 @RequestParam(required = false) Long after,
+                                 @RequestParam(required = false) Instant since,
+                                 @RequestParam(defaultValue = "100") int limit) {
+        return historyService.page(roomId, after, since, limit);
+    }
+}
@@ -0,0 +1,124 @@
+package com.signal.Signal.dedup;
+
+import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.metrics.SignalMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drops signals that say again what the room was told moments ago. Each room
+ * keeps the SimHash fingerprints of its recent signals, at most
+ * {@code max-entries} of them, for a sliding {@code window}. A new signal of
+ * the same type within {@code max-distance} bits of one of them is a
+ * duplicate: it is not sent and starts no agents, and the signal it repeats
+ * stays in the window for another full period (merge), so an ongoing
+ * discussion keeps being recognised.
+ */
+@Component
+public class SignalDeduplicator {
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxEntries;
+    private final int maxDistance;
+    private final SignalMetrics signalMetrics;
+    private final Map<String, ArrayDeque<Sketch>> rooms = new ConcurrentHashMap<>();
+
+    public SignalDeduplicator(@Value("${signal.dedup.enabled:true}") boolean enabled,
+                              @Value("${signal.dedup.window:60s}") Duration window,
+                              @Value("${signal.dedup.max-entries:32}") int maxEntries,
+                              @Value("${signal.dedup.max-distance:12}") int maxDistance,
+                              SignalMetrics signalMetrics) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxDistance = maxDistance;
+        this.signalMetrics = signalMetrics;
+    }
+
+    /**
+     * Records the signal unless it duplicates a recent one.
+     *
+     * @return false for a duplicate
+     */
+    public boolean admit(String roomId, SignalResponse signal) {
+        if (!enabled) {
+            return true;
+        }
+        long title = SimHash.of(signal.getTitle());
+        long content = SimHash.of(signal.getTitle() + " " + signal.getDescription());
+        ArrayDeque<Sketch> recent = rooms.computeIfAbsent(roomId, id -> new ArrayDeque<>());
+        long now = System.nanoTime();
+        synchronized (recent) {
+            expire(recent, now);
+            for (Sketch sketch : recent) {
+                if (sketch.type == signal.getType() && SimHash.distance(sketch.content, content) <= maxDistance) {
+                    sketch.seenAt = now;
+                    signalMetrics.duplicateSuppressed(signal.getType());
+                    return false;
+                }
+            }
+            if (recent.size() >= maxEntries) {
+                recent.pollFirst();
+            }
+            recent.addLast(new Sketch(signal.getType(), title, content, now));
+            return true;
+        }
+    }
+
+    /**
+     * Whether a signal with this title probably repeats a recent one. Used before
+     * the description is known, to hold back the early partial frame.
+     */
+    public boolean isLikelyDuplicate(String roomId, SignalResponse.SignalType type, String title) {
+        ArrayDeque<Sketch> recent = enabled ? rooms.get(roomId) : null;
+        if (recent == null) {
+            return false;
+        }
+        long fingerprint = SimHash.of(title);
+        synchronized (recent) {
+            expire(recent, System.nanoTime());
+            for (Sketch sketch : recent) {
+                if (sketch.type == type && SimHash.distance(sketch.title, fingerprint) <= maxDistance) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void release(String roomId) {
+        rooms.remove(roomId);
+    }
+
+    private void expire(ArrayDeque<Sketch> recent, long now) {
+        // merged sketches are refreshed in place, so the deque is not ordered by seenAt
+        Iterator<Sketch> iterator = recent.iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().seenAt > windowNanos) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Sketch {
+
+        private final SignalResponse.SignalType type;
+        private final long title;
+        private final long content;
+        private long seenAt;
+
+        private Sketch(SignalResponse.SignalType type, long title, long content, long seenAt) {
+            this.type = type;
+            this.title = title;
+            this.content = content;
+            this.seenAt = seenAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.signal.Signal.dedup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 64-bit SimHash over the words and word pairs of a text. Texts that share
+ * most of their words get fingerprints a few bits apart, so near-duplicates
+ * are found by Hamming distance without keeping the text itself.
+ */
+public final class SimHash {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    public static long of(String text) {
+        List<String> words = words(text);
+        if (words.isEmpty()) {
+            return 0;
+        }
+        int[] weights = new int[64];
+        for (int i = 0; i < words.size(); i++) {
+            add(weights, hash(words.get(i)));
+            if (i > 0) {
+                add(weights, hash(words.get(i - 1) + ' ' + words.get(i)));
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static void add(int[] weights, long featureHash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += (featureHash >>> bit & 1) == 1 ? 1 : -1;
+        }
+    }
+
+    // FNV-1a, then a final mix so short tokens still spread over all 64 bits
+    private static long hash(String token) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
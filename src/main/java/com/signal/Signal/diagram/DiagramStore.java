@@ -0,0 +1,117 @@
+package com.signal.Signal.diagram;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded, content-addressed store for generated diagrams. Each image is kept
+ * once under the SHA-256 of its bytes and the least recently fetched images are
+ * evicted first once the byte or entry limit is exceeded.
+ */
+@Slf4j
+@Component
+public class DiagramStore {
+
+    private final long maxBytes;
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, StoredDiagram> diagrams = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public DiagramStore(@Value("${signal.diagrams.max-bytes:67108864}") long maxBytes,
+                        @Value("${signal.diagrams.max-entries:256}") int maxEntries) {
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    public StoredDiagram put(byte[] data, String mimeType) {
+        String hash = sha256(data);
+        synchronized (this) {
+            StoredDiagram existing = diagrams.get(hash);
+            if (existing != null) {
+                return existing;
+            }
+            int[] size = readDimensions(data);
+            StoredDiagram diagram = new StoredDiagram(hash, data, mimeType, size[0], size[1], Instant.now());
+            diagrams.put(hash, diagram);
+            totalBytes += data.length;
+            evict(hash);
+            return diagram;
+        }
+    }
+
+    public synchronized Optional<StoredDiagram> get(String hash) {
+        return Optional.ofNullable(diagrams.get(hash));
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return diagrams.size();
+    }
+
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, StoredDiagram>> eldest = diagrams.entrySet().iterator();
+        while ((totalBytes > maxBytes || diagrams.size() > maxEntries) && eldest.hasNext()) {
+            Map.Entry<String, StoredDiagram> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            totalBytes -= entry.getValue().data().length;
+            eldest.remove();
+            log.info("Evicted diagram " + entry.getKey());
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Reads width and height from a PNG IHDR chunk or a JPEG SOF marker; {0, 0} otherwise.
+     */
+    static int[] readDimensions(byte[] data) {
+        if (data.length >= 24 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return new int[]{readInt(data, 16), readInt(data, 20)};
+        }
+        if (data.length >= 4 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8) {
+            int i = 2;
+            while (i + 9 < data.length) {
+                if ((data[i] & 0xFF) != 0xFF) {
+                    i++;
+                    continue;
+                }
+                int marker = data[i + 1] & 0xFF;
+                int length = ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+                if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                    int height = ((data[i + 5] & 0xFF) << 8) | (data[i + 6] & 0xFF);
+                    int width = ((data[i + 7] & 0xFF) << 8) | (data[i + 8] & 0xFF);
+                    return new int[]{width, height};
+                }
+                i += 2 + length;
+            }
+        }
+        return new int[]{0, 0};
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
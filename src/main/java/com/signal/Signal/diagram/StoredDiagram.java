@@ -0,0 +1,11 @@
+package com.signal.Signal.diagram;
+
+import java.time.Instant;
+
+public record StoredDiagram(String hash,
+                            byte[] data,
+                            String mimeType,
+                            int width,
+                            int height,
+                            Instant createdAt) {
+}
@@ -0,0 +1,48 @@
+package com.signal.Signal.dto;
+
+import com.signal.Signal.routing.ModelRouter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * A command a client sends as a JSON text frame. Only the fields of its
+ * {@link Type} are read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientCommand {
+    private Type type;
+
+    // CREDIT: how many more frames the client can take
+    private Integer frames;
+
+    // REQUEST_AGENT
+    private String agent;
+
+    private String focus;
+
+    // SETTINGS: each field left out keeps its current value
+    private Integer windowMillis;
+
+    private ModelRouter.Tier modelTier;
+
+    private Set<String> agents;
+
+    private String audioFormat;
+
+    private Integer sampleRate;
+
+    public enum Type {
+        PAUSE,
+        RESUME,
+        CREDIT,
+        REQUEST_AGENT,
+        SETTINGS
+    }
+}
@@ -1,5 +1,6 @@
 package com.signal.Signal.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,7 +10,7 @@ import java.time.Instant;
 import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class SignalResponse {
@@ -25,10 +26,27 @@ public class SignalResponse {
 
     private Instant timestamp;
 
-    private String imageBase64;
+    private String imageHash;
+
+    private Integer imageWidth;
+
+    private Integer imageHeight;
 
     private Map<String, String> codeSnippets;
 
+    private String streamId;
+
+    // Partial frames of a stream are always followed by a final one with the same streamId:
+    // the complete signal, or an IDLE frame if the stream ended without one.
+    private Boolean partial;
+
+    // When the audio this signal was found in reached the server, for end-to-end latency.
+    private Instant audioReceivedAt;
+
+    // Read from the model for the session transcript; never sent to clients.
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String transcript;
+
     public enum SignalType {
         DECISION_POINT,
         INPUT_REQUIRED,
@@ -36,6 +54,9 @@ public class SignalResponse {
         CONTRADICTION,
         IDLE,
         IMAGE_GENERATED,
-        CODE_GENERATED
+        CODE_GENERATED,
+        // answers to a client's command, sent to that client only
+        COMMAND_ACCEPTED,
+        COMMAND_REJECTED
     }
 }
\ No newline at end of file
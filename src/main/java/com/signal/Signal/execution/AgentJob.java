@@ -0,0 +1,87 @@
+package com.signal.Signal.execution;
+
+import lombok.Getter;
+
+import java.util.concurrent.Future;
+
+/**
+ * One agent run for one room. Agents check {@link #isCurrent()} before every
+ * frame they send, so nothing from a superseded or expired job reaches the room
+ * beyond the frame that closes a stream it had already started.
+ */
+public class AgentJob {
+
+    public enum Outcome { COMPLETED, SUPERSEDED, EXPIRED, CANCELLED }
+
+    @Getter
+    private final String roomId;
+    @Getter
+    private final String agent;
+    private final String focusKey;
+    private final long deadlineNanos;
+
+    // guarded by this
+    private Future<?> future;
+    private Outcome outcome;
+
+    AgentJob(String roomId, String agent, String focusKey, long deadlineNanos) {
+        this.roomId = roomId;
+        this.agent = agent;
+        this.focusKey = focusKey;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /** False once the job was superseded, cancelled or is past its deadline. */
+    public boolean isCurrent() {
+        synchronized (this) {
+            if (outcome != null && outcome != Outcome.COMPLETED) {
+                return false;
+            }
+        }
+        return System.nanoTime() - deadlineNanos < 0;
+    }
+
+    public synchronized Outcome getOutcome() {
+        return outcome;
+    }
+
+    synchronized boolean isRunning() {
+        return outcome == null;
+    }
+
+    boolean hasFocus(String key) {
+        return focusKey.equals(key);
+    }
+
+    void attach(Future<?> task) {
+        boolean cancel;
+        synchronized (this) {
+            future = task;
+            cancel = outcome != null && outcome != Outcome.COMPLETED;
+        }
+        if (cancel) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Interrupts the job if it is still running; the interrupt also cancels any
+     * model call or quota retry it is waiting on.
+     *
+     * @return false if it had already finished
+     */
+    boolean stop(Outcome reason) {
+        Future<?> task;
+        synchronized (this) {
+            if (outcome != null) {
+                return false;
+            }
+            outcome = reason;
+            task = future;
+        }
+        if (task != null) {
+            task.cancel(true);
+        }
+        return true;
+    }
+}
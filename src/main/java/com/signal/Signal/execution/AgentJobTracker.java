@@ -0,0 +1,130 @@
+package com.signal.Signal.execution;
+
+import com.signal.Signal.cache.GenerationCache;
+import com.signal.Signal.metrics.SignalMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the agent jobs of every room, at most one per agent. A newer decision
+ * supersedes the running job of the same agent, which is interrupted so it
+ * stops spending model capacity, unless both are about the same focus, in
+ * which case the running job is kept. The agents of one decision run in
+ * parallel and share a single deadline, after which whatever is left is
+ * stopped.
+ */
+@Slf4j
+@Component
+public class AgentJobTracker {
+
+    private final Duration deadline;
+    private final Executor executor;
+    private final SignalMetrics signalMetrics;
+    private final Map<String, Map<String, AgentJob>> jobs = new ConcurrentHashMap<>();
+
+    public AgentJobTracker(@Value("${signal.agents.deadline:60s}") Duration deadline,
+                           Executor signalExecutor,
+                           SignalMetrics signalMetrics) {
+        this.deadline = deadline;
+        this.executor = signalExecutor;
+        this.signalMetrics = signalMetrics;
+    }
+
+    /**
+     * Starts every agent in {@code agents} on the room's scope, each given its own job.
+     *
+     * @return the jobs started; agents already working on this focus are left out
+     */
+    public List<AgentJob> dispatch(String roomId, SessionScope scope, String focus,
+                                   Map<String, Consumer<AgentJob>> agents) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        Map<String, AgentJob> roomJobs = jobs.computeIfAbsent(roomId, id -> new ConcurrentHashMap<>());
+        List<AgentJob> started = new ArrayList<>(agents.size());
+        agents.forEach((agent, work) -> {
+            AgentJob job = start(roomId, roomJobs, scope, agent, focus, deadlineNanos, work);
+            if (job != null) {
+                started.add(job);
+            }
+        });
+        if (!started.isEmpty()) {
+            CompletableFuture.delayedExecutor(deadline.toNanos(), TimeUnit.NANOSECONDS, executor)
+                    .execute(() -> started.forEach(job -> stop(job, AgentJob.Outcome.EXPIRED)));
+        }
+        return started;
+    }
+
+    /** The room's running job for this agent, or null. */
+    public AgentJob current(String roomId, String agent) {
+        Map<String, AgentJob> roomJobs = jobs.get(roomId);
+        return roomJobs == null ? null : roomJobs.get(agent);
+    }
+
+    /** Stops whatever the room still has running. */
+    public void release(String roomId) {
+        Map<String, AgentJob> roomJobs = jobs.remove(roomId);
+        if (roomJobs != null) {
+            roomJobs.values().forEach(job -> stop(job, AgentJob.Outcome.CANCELLED));
+        }
+    }
+
+    private AgentJob start(String roomId, Map<String, AgentJob> roomJobs, SessionScope scope, String agent,
+                           String focus, long deadlineNanos, Consumer<AgentJob> work) {
+        String focusKey = GenerationCache.key(focus, agent, "job");
+        AgentJob job = new AgentJob(roomId, agent, focusKey, deadlineNanos);
+        AgentJob previous;
+        synchronized (roomJobs) {
+            previous = roomJobs.get(agent);
+            if (previous != null && previous.isRunning() && previous.hasFocus(focusKey)) {
+                log.info("Agent " + agent + " is already working on this for room " + roomId + ".");
+                return null;
+            }
+            roomJobs.put(agent, job);
+        }
+        if (previous != null) {
+            stop(previous, AgentJob.Outcome.SUPERSEDED);
+        }
+
+        Future<?> task = scope.fork(() -> {
+            try {
+                work.accept(job);
+            } catch (CancellationException e) {
+                log.debug("Agent " + agent + " for room " + roomId + " stopped: " + e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Agent " + agent + " failed for room " + roomId + ": " + e);
+            } finally {
+                roomJobs.remove(agent, job);
+                if (job.stop(AgentJob.Outcome.COMPLETED)) {
+                    signalMetrics.agentJob(agent, AgentJob.Outcome.COMPLETED);
+                }
+            }
+        });
+        if (task == null) {
+            roomJobs.remove(agent, job);
+            job.stop(AgentJob.Outcome.CANCELLED);
+            log.info("Room " + roomId + " closed. Agent " + agent + " not started.");
+            return null;
+        }
+        job.attach(task);
+        return job;
+    }
+
+    private void stop(AgentJob job, AgentJob.Outcome reason) {
+        if (job.stop(reason)) {
+            signalMetrics.agentJob(job.getAgent(), reason);
+            log.info("Agent " + job.getAgent() + " in room " + job.getRoomId() + " " + reason.name().toLowerCase() + ".");
+        }
+    }
+}
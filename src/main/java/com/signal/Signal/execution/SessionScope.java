@@ -0,0 +1,74 @@
+package com.signal.Signal.execution;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Owns every task forked on behalf of one WebSocket session. Closing the scope
+ * interrupts whatever is still running and rejects new forks, so no work
+ * outlives the connection. (A lightweight stand-in for StructuredTaskScope,
+ * which is still a preview API on Java 21.)
+ */
+@Slf4j
+public class SessionScope implements AutoCloseable {
+
+    private final String sessionId;
+    private final ExecutorService executor;
+    private final Set<Future<?>> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public SessionScope(String sessionId, ExecutorService executor) {
+        this.sessionId = sessionId;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the task handle, or null if the scope is already closed
+     */
+    public Future<?> fork(Runnable work) {
+        if (closed) {
+            return null;
+        }
+        FutureTask<Void> task = new FutureTask<>(work, null) {
+            @Override
+            protected void done() {
+                tasks.remove(this);
+            }
+        };
+        tasks.add(task);
+        if (closed) {
+            task.cancel(true);
+            return null;
+        }
+        executor.execute(task);
+        return task;
+    }
+
+    public int getActiveTasks() {
+        return tasks.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        int cancelled = 0;
+        for (Future<?> task : tasks) {
+            if (task.cancel(true)) {
+                cancelled++;
+            }
+        }
+        tasks.clear();
+        if (cancelled > 0) {
+            log.info("Cancelled " + cancelled + " task(s) for session " + sessionId);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.signal.Signal.gateway;
+
+import com.google.genai.errors.ClientException;
+import com.google.genai.types.Blob;
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Candidate;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.Part;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic in-process stand-in for the Gemini API. It answers after a fixed
+ * latency with canned JSON (or a generated PNG for image requests), and fails a
+ * seeded, configurable fraction of calls with a quota error. Streamed calls
+ * spread the same latency over a fixed number of text chunks. Cached content is
+ * kept in memory; a call naming content it does not hold fails as the API would.
+ */
+@Slf4j
+public class FakeGeminiGateway implements GeminiGateway {
+
+    public static final String DEFAULT_ANALYSIS_RESPONSE = """
+            {
+              "type": "DECISION_POINT",
+              "title": "Postgres for the order service",
+              "description": "We will use Postgres behind a REST API and redesign the order service architecture.",
+              "suggestedResponse": "Agreed, I'll draft the schema and the API contract.",
+              "confidence": 0.9,
+              "transcript": "OK so we agreed: orders go into Postgres and we expose them over a REST API."
+            }
+            """;
+
+    public static final String DEFAULT_CODE_RESPONSE = """
+            {
+              "java": "public record Order(long id, String status) {}",
+              "python": "class Order:\\n    def __init__(self, id, status):\\n        self.id = id\\n        self.status = status",
+              "go": "type Order struct {\\n\\tID int64\\n\\tStatus string\\n}"
+            }
+            """;
+
+    private final Duration latency;
+    private final double errorRate;
+    private final int errorCode;
+    private final String analysisResponse;
+    private final String codeResponse;
+    private final byte[] imageResponse;
+    private final int streamChunks = 8;
+    private final Random random;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong cachedContentIds = new AtomicLong();
+    private final Map<String, Content> cachedContents = new ConcurrentHashMap<>();
+
+    public FakeGeminiGateway(Duration latency, double errorRate, int errorCode, long seed,
+                             String analysisResponse, String codeResponse, byte[] imageResponse) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.errorCode = errorCode;
+        this.analysisResponse = analysisResponse;
+        this.codeResponse = codeResponse;
+        this.imageResponse = imageResponse;
+        this.random = new Random(seed);
+    }
+
+    public static FakeGeminiGateway instant() {
+        return new FakeGeminiGateway(Duration.ZERO, 0, 429, 42,
+                DEFAULT_ANALYSIS_RESPONSE, DEFAULT_CODE_RESPONSE, placeholderImage());
+    }
+
+    @Override
+    public GenerateContentResponse generateContent(String model, Content content, GenerateContentConfig config) {
+        calls.incrementAndGet();
+        pause(latency);
+        maybeFail();
+        checkCachedContent(config);
+
+        if (isImageRequest(config)) {
+            return respond(Part.builder()
+                    .inlineData(Blob.builder().mimeType("image/png").data(imageResponse).build())
+                    .build());
+        }
+        return respond(Part.builder().text(cannedText(config)).build());
+    }
+
+    @Override
+    public Stream<GenerateContentResponse> generateContentStream(String model, Content content, GenerateContentConfig config) {
+        if (isImageRequest(config)) {
+            return Stream.of(generateContent(model, content, config));
+        }
+        calls.incrementAndGet();
+        maybeFail();
+        checkCachedContent(config);
+
+        String text = cannedText(config);
+        int chunkLength = (text.length() + streamChunks - 1) / streamChunks;
+        Duration chunkLatency = latency.dividedBy(streamChunks);
+        return IntStream.range(0, streamChunks)
+                .filter(i -> i * chunkLength < text.length())
+                .mapToObj(i -> {
+                    pause(chunkLatency);
+                    String chunk = text.substring(i * chunkLength, Math.min(text.length(), (i + 1) * chunkLength));
+                    return respond(Part.builder().text(chunk).build());
+                });
+    }
+
+    @Override
+    public CachedContent createCachedContent(String model, Content systemInstruction, Duration ttl) {
+        String name = "cachedContents/fake-" + cachedContentIds.incrementAndGet();
+        cachedContents.put(name, systemInstruction);
+        return CachedContent.builder()
+                .name(name)
+                .model(model)
+                .expireTime(Instant.now().plus(ttl))
+                .build();
+    }
+
+    @Override
+    public void deleteCachedContent(String name) {
+        cachedContents.remove(name);
+    }
+
+    public int getCachedContents() {
+        return cachedContents.size();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * A small solid PNG so image requests have real, decodable bytes.
+     */
+    public static byte[] placeholderImage() {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, 64, 48);
+        graphics.setColor(Color.BLACK);
+        graphics.drawRect(8, 8, 48, 32);
+        graphics.dispose();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void maybeFail() {
+        boolean fail;
+        synchronized (random) {
+            fail = errorRate > 0 && random.nextDouble() < errorRate;
+        }
+        if (fail) {
+            failures.incrementAndGet();
+            throw new ClientException(errorCode, "RESOURCE_EXHAUSTED", "Resource exhausted (fake gateway)");
+        }
+    }
+
+    private void checkCachedContent(GenerateContentConfig config) {
+        config.cachedContent().filter(name -> !cachedContents.containsKey(name)).ifPresent(name -> {
+            throw new ClientException(404, "NOT_FOUND", "Cached content " + name + " not found (fake gateway)");
+        });
+    }
+
+    private String cannedText(GenerateContentConfig config) {
+        boolean analysis = config.systemInstruction().isPresent() || config.cachedContent().isPresent();
+        return analysis ? analysisResponse : codeResponse;
+    }
+
+    private static void pause(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fake Gemini call interrupted", e);
+        }
+    }
+
+    private static boolean isImageRequest(GenerateContentConfig config) {
+        return config.responseModalities().map(modalities -> modalities.contains("IMAGE")).orElse(false);
+    }
+
+    private static GenerateContentResponse respond(Part part) {
+        return GenerateContentResponse.builder()
+                .candidates(List.of(Candidate.builder()
+                        .content(Content.builder().role("model").parts(List.of(part)).build())
+                        .build()))
+                .build();
+    }
+}
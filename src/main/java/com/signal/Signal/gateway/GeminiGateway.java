@@ -0,0 +1,32 @@
+package com.signal.Signal.gateway;
+
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * The single seam through which the pipeline talks to a model, so calls can be
+ * measured, decorated or served by a local fake without a live API key.
+ */
+public interface GeminiGateway {
+
+    GenerateContentResponse generateContent(String model, Content content, GenerateContentConfig config);
+
+    /**
+     * Streams the response in chunks as the model produces it. The caller must
+     * close the stream, which releases the underlying connection.
+     */
+    Stream<GenerateContentResponse> generateContentStream(String model, Content content, GenerateContentConfig config);
+
+    /**
+     * Uploads a system instruction once; a config that names the returned
+     * content uses it without resending it. Only valid for {@code model}.
+     */
+    CachedContent createCachedContent(String model, Content systemInstruction, Duration ttl);
+
+    void deleteCachedContent(String name);
+}
@@ -0,0 +1,53 @@
+package com.signal.Signal.gateway;
+
+import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.CreateCachedContentConfig;
+import com.google.genai.types.DeleteCachedContentConfig;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Forwards to the Google GenAI SDK. The client is only obtained on the first
+ * call, so building it is not part of startup.
+ */
+public class GenaiGeminiGateway implements GeminiGateway {
+
+    private final Supplier<Client> geminiClient;
+
+    public GenaiGeminiGateway(Supplier<Client> geminiClient) {
+        this.geminiClient = geminiClient;
+    }
+
+    @Override
+    public GenerateContentResponse generateContent(String model, Content content, GenerateContentConfig config) {
+        return geminiClient.get().models.generateContent(model, content, config);
+    }
+
+    @Override
+    public Stream<GenerateContentResponse> generateContentStream(String model, Content content, GenerateContentConfig config) {
+        ResponseStream<GenerateContentResponse> stream = geminiClient.get().models.generateContentStream(model, content, config);
+        return StreamSupport.stream(stream.spliterator(), false).onClose(stream::close);
+    }
+
+    @Override
+    public CachedContent createCachedContent(String model, Content systemInstruction, Duration ttl) {
+        return geminiClient.get().caches.create(model, CreateCachedContentConfig.builder()
+                .displayName("signal-system-instruction")
+                .systemInstruction(systemInstruction)
+                .ttl(ttl)
+                .build());
+    }
+
+    @Override
+    public void deleteCachedContent(String name) {
+        geminiClient.get().caches.delete(name, DeleteCachedContentConfig.builder().build());
+    }
+}
@@ -0,0 +1,59 @@
+package com.signal.Signal.gateway;
+
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+import com.signal.Signal.metrics.SignalMetrics;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * Times every call per model and outcome. Streamed calls are timed until the stream is closed.
+ */
+public class InstrumentedGeminiGateway implements GeminiGateway {
+
+    private final GeminiGateway delegate;
+    private final SignalMetrics signalMetrics;
+
+    public InstrumentedGeminiGateway(GeminiGateway delegate, SignalMetrics signalMetrics) {
+        this.delegate = delegate;
+        this.signalMetrics = signalMetrics;
+    }
+
+    @Override
+    public GenerateContentResponse generateContent(String model, Content content, GenerateContentConfig config) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            GenerateContentResponse response = delegate.generateContent(model, content, config);
+            success = true;
+            return response;
+        } finally {
+            signalMetrics.recordGeminiCall(model, success, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<GenerateContentResponse> generateContentStream(String model, Content content, GenerateContentConfig config) {
+        long start = System.nanoTime();
+        try {
+            return delegate.generateContentStream(model, content, config)
+                    .onClose(() -> signalMetrics.recordGeminiCall(model, true, System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            signalMetrics.recordGeminiCall(model, false, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public CachedContent createCachedContent(String model, Content systemInstruction, Duration ttl) {
+        return delegate.createCachedContent(model, systemInstruction, ttl);
+    }
+
+    @Override
+    public void deleteCachedContent(String name) {
+        delegate.deleteCachedContent(name);
+    }
+}
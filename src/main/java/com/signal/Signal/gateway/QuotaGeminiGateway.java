@@ -0,0 +1,69 @@
+package com.signal.Signal.gateway;
+
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+import com.signal.Signal.quota.QuotaManager;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Sends every call through the node's {@link QuotaManager}, which may delay,
+ * retry or reroute it. The calling thread waits for the outcome; if it is
+ * interrupted (the job was superseded or the session went away) the call is
+ * cancelled: an attempt in progress is interrupted and no retry follows.
+ * For streams only opening the stream is retried, never a partly read one.
+ */
+public class QuotaGeminiGateway implements GeminiGateway {
+
+    private final GeminiGateway delegate;
+    private final QuotaManager quotaManager;
+
+    public QuotaGeminiGateway(GeminiGateway delegate, QuotaManager quotaManager) {
+        this.delegate = delegate;
+        this.quotaManager = quotaManager;
+    }
+
+    @Override
+    public GenerateContentResponse generateContent(String model, Content content, GenerateContentConfig config) {
+        return await(model, m -> delegate.generateContent(m, content, config));
+    }
+
+    @Override
+    public Stream<GenerateContentResponse> generateContentStream(String model, Content content, GenerateContentConfig config) {
+        return await(model, m -> delegate.generateContentStream(m, content, config));
+    }
+
+    // not rate-limited per model, and must never be rerouted to a fallback model
+    @Override
+    public CachedContent createCachedContent(String model, Content systemInstruction, Duration ttl) {
+        return delegate.createCachedContent(model, systemInstruction, ttl);
+    }
+
+    @Override
+    public void deleteCachedContent(String name) {
+        delegate.deleteCachedContent(name);
+    }
+
+    private <T> T await(String model, Function<String, T> call) {
+        CompletableFuture<T> result = quotaManager.submit(model, call);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Model call to " + model + " cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.signal.Signal.history;
+
+import com.signal.Signal.diagram.StoredDiagram;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A generated diagram, stored once under its content hash however many signals refer to it.
+ */
+@Getter
+@Entity
+@Table(name = "diagram_blob")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DiagramBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, length = 64)
+    private String mimeType;
+
+    private int width;
+
+    private int height;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    public DiagramBlob(StoredDiagram diagram) {
+        this.hash = diagram.hash();
+        this.mimeType = diagram.mimeType();
+        this.width = diagram.width();
+        this.height = diagram.height();
+        this.createdAt = diagram.createdAt();
+        this.data = diagram.data();
+    }
+
+    public StoredDiagram toStoredDiagram() {
+        return new StoredDiagram(hash, data, mimeType, width, height, createdAt);
+    }
+}
@@ -0,0 +1,6 @@
+package com.signal.Signal.history;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DiagramBlobRepository extends JpaRepository<DiagramBlob, String> {
+}
@@ -0,0 +1,70 @@
+package com.signal.Signal.history;
+
+import com.signal.Signal.diagram.StoredDiagram;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads back what {@link HistoryWriter} persisted. Records come back in the
+ * order they were written, as the frames originally sent.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class HistoryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final SignalRecordRepository signalRecords;
+    private final DiagramBlobRepository diagramBlobs;
+
+    @Value("${signal.history.catch-up-limit:200}")
+    private int catchUpLimit;
+
+    /**
+     * @param afterId cursor from the previous page, or null to start at {@code since}
+     * @param since   start time when there is no cursor, or null for the room's beginning
+     */
+    public ReplayPage page(String roomId, Long afterId, Instant since, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // one extra row tells whether there is a next page
+        PageRequest request = PageRequest.ofSize(size + 1);
+        List<SignalRecord> records = afterId == null && since != null
+                ? signalRecords.findByRoomIdAndSentAtAfterOrderByIdAsc(roomId, since, request)
+                : signalRecords.findByRoomIdAndIdGreaterThanOrderByIdAsc(roomId, afterId == null ? 0 : afterId, request);
+        boolean more = records.size() > size;
+        List<ReplayPage.Entry> entries = records.stream()
+                .limit(size)
+                .map(record -> new ReplayPage.Entry(record.getId(), record.getPayload()))
+                .toList();
+        return new ReplayPage(entries, more ? entries.get(entries.size() - 1).id() : null);
+    }
+
+    /**
+     * Frames a reconnecting client missed since {@code since}, oldest first. After
+     * a long gap only the newest {@code catch-up-limit} are returned; older ones
+     * are left to {@link #page}.
+     */
+    public List<String> catchUp(String roomId, Instant since) {
+        List<String> frames = new ArrayList<>();
+        for (SignalRecord record : signalRecords.findByRoomIdAndSentAtAfterOrderByIdDesc(roomId, since,
+                PageRequest.ofSize(catchUpLimit))) {
+            frames.add(record.getPayload());
+        }
+        Collections.reverse(frames);
+        return frames;
+    }
+
+    public Optional<StoredDiagram> findDiagram(String hash) {
+        return diagramBlobs.findById(hash).map(DiagramBlob::toStoredDiagram);
+    }
+}
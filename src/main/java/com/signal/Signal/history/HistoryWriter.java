@@ -0,0 +1,189 @@
+package com.signal.Signal.history;
+
+import com.signal.Signal.diagram.StoredDiagram;
+import com.signal.Signal.dto.SignalResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind persistence for delivered signals and diagrams. Callers only
+ * offer to a bounded queue, which never blocks: when the database falls behind
+ * far enough to fill it, new records are dropped and counted. One writer thread
+ * drains the queue in batches, waiting up to {@code linger} for a batch to fill,
+ * and inserts each batch in a single transaction. Whatever is queued at
+ * shutdown is flushed first.
+ */
+@Slf4j
+@Component
+public class HistoryWriter implements SmartLifecycle {
+
+    private final SignalRecordRepository signalRecords;
+    private final DiagramBlobRepository diagramBlobs;
+    private final TransactionTemplate transactions;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Object> queue;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public HistoryWriter(SignalRecordRepository signalRecords,
+                         DiagramBlobRepository diagramBlobs,
+                         TransactionTemplate transactions,
+                         @Value("${signal.history.enabled:true}") boolean enabled,
+                         @Value("${signal.history.queue-capacity:10000}") int queueCapacity,
+                         @Value("${signal.history.batch-size:200}") int batchSize,
+                         @Value("${signal.history.linger:100ms}") Duration linger) {
+        this.signalRecords = signalRecords;
+        this.diagramBlobs = diagramBlobs;
+        this.transactions = transactions;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /** @param payload the frame exactly as it was sent */
+    public void record(String roomId, SignalResponse signal, String payload) {
+        offer(new SignalRecord(roomId, signal, payload));
+    }
+
+    public void recordDiagram(StoredDiagram diagram) {
+        offer(diagram);
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("Signal history is disabled.");
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("signal-history").daemon().start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        // no interrupt: it could abort a JDBC call halfway through a batch
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, so signals from its last requests are still
+     * written. Boot stops the server at {@code DEFAULT_PHASE - 2048} and drains
+     * it gracefully just before that; an equal phase would leave the order open.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void offer(Object entry) {
+        if (!running) {
+            return;
+        }
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = running ? queue.poll(200, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (running && batch.size() < batchSize) {
+                    Object next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Object> batch) {
+        List<SignalRecord> records = new ArrayList<>(batch.size());
+        List<StoredDiagram> diagrams = new ArrayList<>();
+        for (Object entry : batch) {
+            if (entry instanceof SignalRecord record) {
+                records.add(record);
+            } else {
+                diagrams.add((StoredDiagram) entry);
+            }
+        }
+        try {
+            transactions.executeWithoutResult(status -> {
+                for (StoredDiagram diagram : diagrams) {
+                    if (!diagramBlobs.existsById(diagram.hash())) {
+                        diagramBlobs.save(new DiagramBlob(diagram));
+                    }
+                }
+                signalRecords.saveAll(records);
+            });
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            log.error("Failed to write " + batch.size() + " history record(s): " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.signal.Signal.history;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.util.List;
+
+/**
+ * One page of a room's history, oldest first. Pass {@code nextAfter} back as
+ * {@code after} for the next page; it is null on the last page.
+ */
+public record ReplayPage(List<Entry> signals, Long nextAfter) {
+
+    /** @param signal the frame as originally sent, embedded without re-encoding */
+    public record Entry(long id, @JsonRawValue String signal) {
+    }
+}
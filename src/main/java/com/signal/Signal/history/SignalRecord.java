@@ -0,0 +1,68 @@
+package com.signal.Signal.history;
+
+import com.signal.Signal.dto.SignalResponse;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One delivered signal, kept as the exact frame its subscribers received so
+ * replay never re-serializes. Images are referenced by {@link #imageHash}.
+ */
+@Getter
+@Entity
+@Table(name = "signal_record", indexes = {
+        @Index(name = "idx_signal_record_room", columnList = "roomId, id"),
+        @Index(name = "idx_signal_record_room_time", columnList = "roomId, sentAt")
+})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SignalRecord {
+
+    // sequence ids let Hibernate batch the write-behind inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "signal_record_seq")
+    @SequenceGenerator(name = "signal_record_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 128)
+    private String roomId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private SignalResponse.SignalType type;
+
+    @Column(nullable = false)
+    private Instant sentAt;
+
+    @Column(length = 64)
+    private String streamId;
+
+    @Column(length = 64)
+    private String imageHash;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    public SignalRecord(String roomId, SignalResponse signal, String payload) {
+        this.roomId = roomId;
+        this.type = signal.getType();
+        this.sentAt = signal.getTimestamp() != null ? signal.getTimestamp() : Instant.now();
+        this.streamId = signal.getStreamId();
+        this.imageHash = signal.getImageHash();
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,16 @@
+package com.signal.Signal.history;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SignalRecordRepository extends JpaRepository<SignalRecord, Long> {
+
+    List<SignalRecord> findByRoomIdAndIdGreaterThanOrderByIdAsc(String roomId, long afterId, Pageable page);
+
+    List<SignalRecord> findByRoomIdAndSentAtAfterOrderByIdAsc(String roomId, Instant since, Pageable page);
+
+    List<SignalRecord> findByRoomIdAndSentAtAfterOrderByIdDesc(String roomId, Instant since, Pageable page);
+}
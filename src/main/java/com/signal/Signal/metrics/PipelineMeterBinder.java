@@ -0,0 +1,114 @@
+package com.signal.Signal.metrics;
+
+import com.signal.Signal.audio.AudioSegmentPool;
+import com.signal.Signal.audio.AudioSegmenterFactory;
+import com.signal.Signal.cache.GenerationCache;
+import com.signal.Signal.diagram.DiagramStore;
+import com.signal.Signal.history.HistoryWriter;
+import com.signal.Signal.outbound.OutboundQueueFactory;
+import com.signal.Signal.room.RoomRegistry;
+import com.signal.Signal.scheduler.InferenceScheduler;
+import com.signal.Signal.transcript.TranscriptStore;
+import com.signal.Signal.websocket.SignalSocketHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Gauges over the pipeline's live state: sessions and rooms, buffered audio, scheduler
+ * and outbound queues, history write-behind, the diagram store and the generation caches.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMeterBinder implements MeterBinder {
+
+    private final SignalSocketHandler socketHandler;
+    private final RoomRegistry roomRegistry;
+    private final OutboundQueueFactory outboundQueueFactory;
+    private final AudioSegmentPool audioSegmentPool;
+    private final AudioSegmenterFactory audioSegmenterFactory;
+    private final InferenceScheduler inferenceScheduler;
+    private final DiagramStore diagramStore;
+    private final TranscriptStore transcriptStore;
+    private final HistoryWriter historyWriter;
+    private final List<GenerationCache<?>> generationCaches;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("signal.sessions.active", socketHandler, SignalSocketHandler::getActiveSessions)
+                .description("Connected WebSocket sessions")
+                .register(registry);
+        Gauge.builder("signal.rooms.active", roomRegistry, RoomRegistry::getActiveRooms)
+                .description("Meeting rooms with at least one session, each running one pipeline")
+                .register(registry);
+        Gauge.builder("signal.audio.buffered.bytes", audioSegmentPool, AudioSegmentPool::getBufferedBytes)
+                .description("Audio bytes buffered or in flight on this node")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("signal.audio.pooled.segments", audioSegmentPool, AudioSegmentPool::getPooledSegments)
+                .register(registry);
+        FunctionCounter.builder("signal.audio.windows", audioSegmenterFactory, AudioSegmenterFactory::getEmittedWindows)
+                .tag("result", "emitted").register(registry);
+        FunctionCounter.builder("signal.audio.windows", audioSegmenterFactory, AudioSegmenterFactory::getGatedWindows)
+                .tag("result", "silent").register(registry);
+        FunctionCounter.builder("signal.audio.windows", audioSegmenterFactory, AudioSegmenterFactory::getDroppedWindows)
+                .tag("result", "dropped").register(registry);
+
+        Gauge.builder("signal.scheduler.pending", inferenceScheduler, s -> s.getStats().pending())
+                .description("Windows waiting for an inference slot")
+                .register(registry);
+        Gauge.builder("signal.scheduler.inflight", inferenceScheduler, s -> s.getStats().inFlight())
+                .register(registry);
+        Gauge.builder("signal.scheduler.wait.max", inferenceScheduler, s -> s.getStats().maxWaitMillis())
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("signal.scheduler.dropped", inferenceScheduler, s -> s.getStats().dropped())
+                .register(registry);
+        FunctionCounter.builder("signal.scheduler.merged", inferenceScheduler, s -> s.getStats().merged())
+                .register(registry);
+
+        Gauge.builder("signal.outbound.queued.bytes", outboundQueueFactory, OutboundQueueFactory::getQueuedBytes)
+                .description("Frame bytes waiting to be written to sessions")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("signal.outbound.evicted", outboundQueueFactory, OutboundQueueFactory::getEvicted)
+                .description("Frames dropped because a session's outbound queue was full")
+                .register(registry);
+        FunctionCounter.builder("signal.outbound.disconnected", outboundQueueFactory, OutboundQueueFactory::getSlowConsumersClosed)
+                .description("Sessions closed for not keeping up with their signals")
+                .register(registry);
+
+        Gauge.builder("signal.transcript.chars", transcriptStore, TranscriptStore::getTotalChars)
+                .description("Transcript and summary characters held for open rooms")
+                .register(registry);
+
+        Gauge.builder("signal.history.queued", historyWriter, HistoryWriter::getQueued)
+                .description("Signals and diagrams waiting to be written to the database")
+                .register(registry);
+        FunctionCounter.builder("signal.history.records", historyWriter, HistoryWriter::getWritten)
+                .tag("result", "written").register(registry);
+        FunctionCounter.builder("signal.history.records", historyWriter, HistoryWriter::getDropped)
+                .tag("result", "dropped").register(registry);
+        FunctionCounter.builder("signal.history.records", historyWriter, HistoryWriter::getFailed)
+                .tag("result", "failed").register(registry);
+
+        Gauge.builder("signal.diagrams.stored.bytes", diagramStore, DiagramStore::getTotalBytes)
+                .baseUnit("bytes")
+                .register(registry);
+
+        for (GenerationCache<?> cache : generationCaches) {
+            String name = cache.getStats().name();
+            FunctionCounter.builder("signal.cache.requests", cache, c -> c.getStats().hits())
+                    .tag("cache", name).tag("result", "hit").register(registry);
+            FunctionCounter.builder("signal.cache.requests", cache, c -> c.getStats().misses())
+                    .tag("cache", name).tag("result", "miss").register(registry);
+            FunctionCounter.builder("signal.cache.requests", cache, c -> c.getStats().joins())
+                    .tag("cache", name).tag("result", "joined").register(registry);
+        }
+    }
+}
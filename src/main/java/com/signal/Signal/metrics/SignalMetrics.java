@@ -0,0 +1,150 @@
+package com.signal.Signal.metrics;
+
+import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.execution.AgentJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms and event counters for each stage of the signal pipeline.
+ * Meters are resolved once and cached so recording on the hot path is a map lookup at most.
+ */
+@Component
+public class SignalMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Timer bufferFill;
+    private final Timer parse;
+    private final Timer send;
+    private final Timer write;
+    private final DistributionSummary fanOut;
+    private final Map<SignalResponse.SignalType, Counter> signalsSent = new EnumMap<>(SignalResponse.SignalType.class);
+    private final Map<String, Timer> geminiCalls = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public SignalMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.bufferFill = stageTimer("signal.buffer.fill", "Time from the first audio frame of a window until it is handed to analysis");
+        this.parse = stageTimer("signal.parse", "Time to parse model output into a signal");
+        this.send = stageTimer("signal.ws.send", "Time to queue one frame for every subscriber of a room");
+        this.write = stageTimer("signal.ws.write", "Time for a session's writer to put one frame on the wire");
+        this.fanOut = DistributionSummary.builder("signal.room.fanout")
+                .description("Subscribers each serialized frame was sent to")
+                .register(registry);
+        for (SignalResponse.SignalType type : SignalResponse.SignalType.values()) {
+            signalsSent.put(type, Counter.builder("signal.sent")
+                    .description("Signals delivered to clients")
+                    .tag("type", type.name())
+                    .register(registry));
+        }
+    }
+
+    public void recordBufferFill(long nanos) {
+        bufferFill.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordGeminiCall(String model, boolean success, long nanos) {
+        geminiCalls.computeIfAbsent(model + (success ? "|success" : "|error"), key -> Timer.builder("signal.gemini.call")
+                        .description("Gemini generateContent latency")
+                        .tag("model", model)
+                        .tag("outcome", success ? "success" : "error")
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordParse(long nanos) {
+        parse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSend(SignalResponse.SignalType type, long nanos) {
+        send.record(nanos, TimeUnit.NANOSECONDS);
+        if (type != null) {
+            signalsSent.get(type).increment();
+        }
+    }
+
+    public void recordWrite(long nanos) {
+        write.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFanOut(int subscribers) {
+        fanOut.record(subscribers);
+    }
+
+    public void fallback(String fromModel, String toModel) {
+        counter("signal.gemini.fallback", "Calls rerouted from one model to another", "from", fromModel, "to", toModel).increment();
+    }
+
+    public void hedged(String primary, String secondary) {
+        counter("signal.routing.hedged", "Calls hedged to a second model", "primary", primary, "secondary", secondary).increment();
+    }
+
+    public void routedTo(String model) {
+        counter("signal.routing.winner", "Routed calls answered first by each model", "model", model).increment();
+    }
+
+    public void sloMissed() {
+        counter("signal.routing.slo.missed", "Routed calls with no valid answer within the latency SLO").increment();
+    }
+
+    public void retry(String model) {
+        counter("signal.gemini.retry", "Quota (429) retries", "model", model).increment();
+    }
+
+    public void throttled(String model) {
+        counter("signal.gemini.throttled", "Calls delayed by token-bucket admission", "model", model).increment();
+    }
+
+    public void circuitOpened(String model) {
+        counter("signal.gemini.circuit.opened", "Times a model's circuit breaker opened", "model", model).increment();
+    }
+
+    public void triggered(String rule, String agent) {
+        counter("signal.agent.triggered", "Agent runs started by a trigger rule", "rule", rule, "agent", agent).increment();
+    }
+
+    public void cooldownSuppressed(String agent) {
+        counter("signal.agent.cooldown.suppressed", "Agent triggers skipped because of a cool-down", "agent", agent).increment();
+    }
+
+    public void duplicateSuppressed(SignalResponse.SignalType type) {
+        counter("signal.dedup.suppressed", "Signals dropped as near-duplicates of a recent one", "type", type.name()).increment();
+    }
+
+    public void agentJob(String agent, AgentJob.Outcome outcome) {
+        counter("signal.agent.jobs", "Agent jobs by how they ended", "agent", agent, "outcome", outcome.name().toLowerCase()).increment();
+    }
+
+    public void contextCache(String model, String outcome) {
+        counter("signal.gemini.context.cache", "Cached-content handles created or refused", "model", model, "outcome", outcome).increment();
+    }
+
+    public void command(String type, boolean accepted) {
+        counter("signal.ws.commands", "Client commands by type and outcome", "type", type,
+                "outcome", accepted ? "accepted" : "rejected").increment();
+    }
+
+    private Counter counter(String name, String description, String... tags) {
+        return counters.computeIfAbsent(name + String.join("|", tags), key -> Counter.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(registry));
+    }
+
+    private Timer stageTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
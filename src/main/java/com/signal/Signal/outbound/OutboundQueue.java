@@ -0,0 +1,206 @@
+package com.signal.Signal.outbound;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Frames waiting to be written to one session. Callers only enqueue; a single
+ * writer task on the I/O executor drains the queue, so the session never sees
+ * concurrent sends and a slow client never blocks the thread that produced the
+ * frame. The priority lane is always drained before the bulk lane.
+ * <p>
+ * Both lanes together are bounded by bytes and by message count. A frame that
+ * does not fit is handled by the factory's {@link OutboundQueueFactory.OverflowPolicy};
+ * a session that keeps overflowing without ever catching up is closed after
+ * {@code close-after}.
+ * <p>
+ * A client may opt into credit-based flow control by granting credit: from then
+ * on one frame is written per credit, and the rest wait or are evicted as
+ * above. A client that is out of credit is never disconnected for it.
+ */
+@Slf4j
+public class OutboundQueue {
+
+    public enum Lane { PRIORITY, BULK }
+
+    private final WebSocketSession session;
+    private final OutboundQueueFactory owner;
+    private final ArrayDeque<TextMessage> priority = new ArrayDeque<>();
+    private final ArrayDeque<TextMessage> bulk = new ArrayDeque<>();
+
+    // guarded by this
+    private int bytes;
+    private boolean draining;
+    private boolean closed;
+    private long overflowingSince = -1;
+    // frames the client will still accept, or -1 until it first grants credit
+    private long credits = -1;
+
+    OutboundQueue(WebSocketSession session, OutboundQueueFactory owner) {
+        this.session = session;
+        this.owner = owner;
+    }
+
+    public String getSessionId() {
+        return session.getId();
+    }
+
+    /**
+     * Queues the frame and returns at once. Frames offered after {@link #close()} are ignored.
+     */
+    public void offer(TextMessage frame, Lane lane) {
+        boolean startWriter = false;
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            (lane == Lane.PRIORITY ? priority : bulk).addLast(frame);
+            account(frame.getPayloadLength());
+            if (overLimit()) {
+                disconnect = overflow(lane);
+            }
+            if (!disconnect && !draining && credits != 0) {
+                draining = true;
+                startWriter = true;
+            }
+        }
+        if (disconnect) {
+            owner.slowConsumerClosed();
+            log.warn("Session " + session.getId() + " cannot keep up with its signals. Disconnecting.");
+            owner.getWriters().execute(() -> closeSession(CloseStatus.SESSION_NOT_RELIABLE));
+        } else if (startWriter) {
+            owner.getWriters().execute(this::drain);
+        }
+    }
+
+    /**
+     * Lets {@code frames} more frames through, switching the session to
+     * credit-based flow control if it was not already.
+     */
+    public void grant(int frames) {
+        boolean startWriter = false;
+        synchronized (this) {
+            if (closed || frames <= 0) {
+                return;
+            }
+            credits = Math.max(credits, 0) + frames;
+            if (!draining && priority.size() + bulk.size() > 0) {
+                draining = true;
+                startWriter = true;
+            }
+        }
+        if (startWriter) {
+            owner.getWriters().execute(this::drain);
+        }
+    }
+
+    /** Credit left, or -1 if the session does not use flow control. */
+    public synchronized long getCredits() {
+        return credits;
+    }
+
+    /** Discards everything still queued; later offers are ignored. */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            priority.clear();
+            bulk.clear();
+            account(-bytes);
+        }
+    }
+
+    public synchronized int getQueuedBytes() {
+        return bytes;
+    }
+
+    public synchronized int getQueuedMessages() {
+        return priority.size() + bulk.size();
+    }
+
+    /** @return true if the session should be disconnected */
+    private boolean overflow(Lane lane) {
+        long now = System.nanoTime();
+        if (overflowingSince < 0) {
+            overflowingSince = now;
+        }
+        OutboundQueueFactory.OverflowPolicy policy = owner.getOverflowPolicy();
+        // a client out of credit asked to fall behind; it loses frames, not its connection
+        if (credits != 0 && (policy == OutboundQueueFactory.OverflowPolicy.CLOSE
+                || now - overflowingSince > owner.getCloseAfterNanos())) {
+            close();
+            return true;
+        }
+        if (policy == OutboundQueueFactory.OverflowPolicy.DROP_NEWEST) {
+            remove((lane == Lane.PRIORITY ? priority : bulk).pollLast());
+        }
+        while (overLimit()) {
+            remove(bulk.isEmpty() ? priority.pollFirst() : bulk.pollFirst());
+        }
+        return false;
+    }
+
+    private void drain() {
+        while (true) {
+            TextMessage next;
+            synchronized (this) {
+                next = closed || credits == 0 ? null : priority.isEmpty() ? bulk.pollFirst() : priority.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+                if (credits > 0) {
+                    credits--;
+                }
+                account(-next.getPayloadLength());
+                if (bytes <= owner.getMaxBytes() / 2 && priority.size() + bulk.size() <= owner.getMaxMessages() / 2) {
+                    // caught up with a margin; a later overflow starts a new grace period
+                    overflowingSince = -1;
+                }
+            }
+            try {
+                if (session.isOpen()) {
+                    long writeStart = System.nanoTime();
+                    session.sendMessage(next);
+                    owner.written(System.nanoTime() - writeStart);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.error("Error sending signal to " + session.getId() + ": " + e.getMessage());
+                close();
+                synchronized (this) {
+                    draining = false;
+                }
+                return;
+            }
+        }
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.warn("Error closing slow session " + session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private boolean overLimit() {
+        return bytes > owner.getMaxBytes() || priority.size() + bulk.size() > owner.getMaxMessages();
+    }
+
+    private void remove(TextMessage evicted) {
+        if (evicted != null) {
+            account(-evicted.getPayloadLength());
+            owner.frameEvicted();
+        }
+    }
+
+    private void account(int delta) {
+        bytes += delta;
+        owner.queued(delta);
+    }
+}
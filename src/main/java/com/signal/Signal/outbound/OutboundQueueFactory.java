@@ -0,0 +1,104 @@
+package com.signal.Signal.outbound;
+
+import com.signal.Signal.metrics.SignalMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates per-session outbound queues and aggregates their counts for the node.
+ */
+@Component
+public class OutboundQueueFactory {
+
+    public enum OverflowPolicy {
+        /** Evict the oldest queued frames, bulk lane first. */
+        DROP_OLDEST,
+        /** Refuse the frame that does not fit. */
+        DROP_NEWEST,
+        /** Disconnect the session as soon as it overflows. */
+        CLOSE
+    }
+
+    private final int maxBytes;
+    private final int maxMessages;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration closeAfter;
+    private final Executor writers;
+    private final SignalMetrics signalMetrics;
+
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder slowConsumersClosed = new LongAdder();
+
+    public OutboundQueueFactory(@Value("${signal.outbound.max-bytes:1048576}") int maxBytes,
+                                @Value("${signal.outbound.max-messages:64}") int maxMessages,
+                                @Value("${signal.outbound.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+                                @Value("${signal.outbound.close-after:30s}") Duration closeAfter,
+                                Executor signalExecutor,
+                                SignalMetrics signalMetrics) {
+        this.maxBytes = maxBytes;
+        this.maxMessages = maxMessages;
+        this.overflowPolicy = overflowPolicy;
+        this.closeAfter = closeAfter;
+        this.writers = signalExecutor;
+        this.signalMetrics = signalMetrics;
+    }
+
+    public OutboundQueue create(WebSocketSession session) {
+        return new OutboundQueue(session, this);
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    public long getSlowConsumersClosed() {
+        return slowConsumersClosed.sum();
+    }
+
+    int getMaxBytes() {
+        return maxBytes;
+    }
+
+    int getMaxMessages() {
+        return maxMessages;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    long getCloseAfterNanos() {
+        return closeAfter.toNanos();
+    }
+
+    Executor getWriters() {
+        return writers;
+    }
+
+    void queued(long bytes) {
+        queuedBytes.addAndGet(bytes);
+    }
+
+    void frameEvicted() {
+        evicted.increment();
+    }
+
+    void slowConsumerClosed() {
+        slowConsumersClosed.increment();
+    }
+
+    void written(long nanos) {
+        signalMetrics.recordWrite(nanos);
+    }
+}
@@ -0,0 +1,149 @@
+package com.signal.Signal.prompt;
+
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.signal.Signal.gateway.GeminiGateway;
+import com.signal.Signal.metrics.SignalMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a prompt's system instruction uploaded as cached content, one handle
+ * per model, so calls reference it by name instead of resending and paying for
+ * it every time. Until a model has a handle, or when it refuses to cache the
+ * instruction (too short for its minimum, say), calls carry it inline and
+ * creation is retried after {@code retry-after}.
+ * <p>
+ * A handle is recreated in the background once it is within
+ * {@code refresh-ahead} of expiring. The old handle is not deleted, because
+ * calls still in flight may reference it; it simply expires.
+ */
+@Slf4j
+public class ContextCache implements AutoCloseable {
+
+    // a call started this close to expiry could outlive its handle
+    private static final Duration USE_MARGIN = Duration.ofMinutes(1);
+
+    private final Prompt prompt;
+    private final GeminiGateway geminiGateway;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration refreshAhead;
+    private final Duration retryAfter;
+    private final Executor executor;
+    private final SignalMetrics signalMetrics;
+    private final Clock clock;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    public ContextCache(Prompt prompt, GeminiGateway geminiGateway, boolean enabled, Duration ttl,
+                        Duration refreshAhead, Duration retryAfter, Executor executor,
+                        SignalMetrics signalMetrics, Clock clock) {
+        this.prompt = prompt;
+        this.geminiGateway = geminiGateway;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.refreshAhead = refreshAhead;
+        this.retryAfter = retryAfter;
+        this.executor = executor;
+        this.signalMetrics = signalMetrics;
+        this.clock = clock;
+    }
+
+    /**
+     * The prompt's config for this model: referencing its cached instruction when
+     * a live handle exists, otherwise the precompiled inline one. Never blocks.
+     */
+    public GenerateContentConfig configFor(String model) {
+        if (!enabled) {
+            return prompt.config();
+        }
+        return slots.computeIfAbsent(model, Slot::new).config();
+    }
+
+    /** The cached-content name currently used for this model, or null. */
+    public String handleFor(String model) {
+        Slot slot = slots.get(model);
+        Handle handle = slot == null ? null : slot.handle;
+        return handle == null ? null : handle.name();
+    }
+
+    /** Deletes the current handles, so they stop being billed for storage. */
+    @Override
+    public void close() {
+        for (Slot slot : slots.values()) {
+            Handle handle = slot.handle;
+            slot.handle = null;
+            if (handle == null) {
+                continue;
+            }
+            try {
+                geminiGateway.deleteCachedContent(handle.name());
+            } catch (RuntimeException e) {
+                log.warn("Could not delete cached content " + handle.name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private record Handle(String name, Instant expiresAt, GenerateContentConfig config) {
+    }
+
+    private final class Slot {
+
+        private final String model;
+        private final AtomicBoolean creating = new AtomicBoolean();
+        private volatile Handle handle;
+        private volatile Instant retryAt = Instant.MIN;
+
+        private Slot(String model) {
+            this.model = model;
+        }
+
+        private GenerateContentConfig config() {
+            Instant now = clock.instant();
+            Handle current = handle;
+            if (current == null || !now.isBefore(current.expiresAt().minus(refreshAhead))) {
+                refresh(now);
+            }
+            if (current != null && now.isBefore(current.expiresAt().minus(USE_MARGIN))) {
+                return current.config();
+            }
+            return prompt.config();
+        }
+
+        private void refresh(Instant now) {
+            if (now.isBefore(retryAt) || !creating.compareAndSet(false, true)) {
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    Content instruction = prompt.config().systemInstruction().orElseThrow();
+                    CachedContent created = geminiGateway.createCachedContent(model, instruction, ttl);
+                    String name = created.name().orElseThrow(() -> new IllegalStateException("Cached content has no name"));
+                    Instant expiresAt = created.expireTime().orElseGet(() -> clock.instant().plus(ttl));
+                    handle = new Handle(name, expiresAt, prompt.config().toBuilder()
+                            .clearSystemInstruction()
+                            .cachedContent(name)
+                            .build());
+                    signalMetrics.contextCache(model, "created");
+                    log.info("Cached the " + prompt.name() + " instruction for " + model + " as " + name
+                            + " until " + expiresAt);
+                } catch (RuntimeException e) {
+                    retryAt = clock.instant().plus(retryAfter);
+                    signalMetrics.contextCache(model, "failed");
+                    log.warn("Could not cache the " + prompt.name() + " instruction for " + model
+                            + ", sending it inline: " + e.getMessage());
+                } finally {
+                    creating.set(false);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.signal.Signal.prompt;
+
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.Part;
+
+import java.util.List;
+
+/**
+ * A prompt and the request config that goes with it, both built once. The
+ * version is part of every generation cache key, so bump it whenever the text
+ * or the config changes.
+ *
+ * @param text a template for {@link #render}, or the system instruction when
+ *             the config carries one
+ */
+public record Prompt(String name, String version, String text, GenerateContentConfig config) {
+
+    /** The template with its placeholders filled in, as a single user turn. */
+    public Content render(Object... args) {
+        return Content.builder()
+                .role("user")
+                .parts(List.of(Part.builder().text(text.formatted(args)).build()))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.signal.Signal.prompt;
+
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.Part;
+
+import java.util.List;
+
+/**
+ * Every prompt the pipeline sends, compiled once instead of per call.
+ */
+public final class Prompts {
+
+    private static final String ANALYSIS_TEXT = """
+            You are SIGNAL, a strict technical meeting analyst.
+            
+            CONTEXT: You are listening to a Software Engineering meeting.
+            
+            YOUR JOB:
+            1. Filter out silence, background noise, or non-technical chatter.
+            2. Only trigger if you hear explicit Engineering Intent:
+               - DECISION_POINT: "We will use Postgres", "Let's merge this."
+               - INPUT_REQUIRED: "What do you think?", "Any objections?"
+               - RISK_DETECTED: "This will crash prod", "Latency is too high."
+            
+            CONSTRAINT:
+            If the audio is unclear, silence, or not about software engineering -> Return { "type": "IDLE" }.
+            DO NOT INVENT TEXT. DO NOT HALLUCINATE.
+
+            Output JSON:
+            {
+              "type": "DECISION_POINT" | "INPUT_REQUIRED" | "RISK_DETECTED" | "IDLE",
+              "title": "Short Headline",
+              "description": "Specific details.",
+              "suggestedResponse": "First-person professional response.",
+              "confidence": 0.0 to 1.0,
+              "transcript": "Verbatim transcript of the speech in this clip."
+            }
+            """;
+
+    /** The analysis system instruction; the audio itself is the only user turn. */
+    public static final Prompt ANALYSIS = new Prompt("analysis", "analysis-v1", ANALYSIS_TEXT,
+            GenerateContentConfig.builder()
+                    .responseMimeType("application/json")
+                    .systemInstruction(Content.builder()
+                            .parts(List.of(Part.builder().text(ANALYSIS_TEXT).build()))
+                            .build())
+                    .temperature(0.2f)
+                    .build());
+
+    /** Arguments: the decision in focus, then the meeting so far. */
+    public static final Prompt BOARD = new Prompt("board", "board-v2", """
+                Visual prompt for software architecture:
+                %s
+                
+                Meeting so far (draw the whole system discussed, centred on the point above):
+                %s
+                
+                Style: Technical whiteboard, high contrast, specific icons (Postgres, Redis).
+                Draw immediately.
+            """,
+            GenerateContentConfig.builder()
+                    .responseModalities(List.of("IMAGE"))
+                    .temperature(0.4f)
+                    .build());
+
+    /** Arguments: the transcript (or the focus when there is none), then the focus. */
+    public static final Prompt CODE = new Prompt("code", "code-v2", """
+            You are a Senior Polyglot Software Engineer.
+            Analyze this meeting transcript:
+            "%s"
+            
+            Current focus: "%s"
+            
+            Identify the core technical entity, function, or schema being discussed.
+            Generate the production-ready code implementation for it in 3 languages: Java, Python, and Go.
+            
+            STRICT OUTPUT FORMAT:
+            You must return ONLY a raw JSON object (no markdown, no backticks) with this exact structure:
+            {
+              "java": "public class ...",
+              "python": "class ...",
+              "go": "type ... struct ..."
+            }
+            """,
+            GenerateContentConfig.builder()
+                    .responseMimeType("application/json")
+                    .temperature(0.2f)
+                    .build());
+
+    private Prompts() {
+    }
+}
@@ -0,0 +1,79 @@
+package com.signal.Signal.quota;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Opens after {@code failureThreshold} consecutive quota failures. While open,
+ * calls are routed elsewhere; after {@code openDuration} one probe is let
+ * through, and its outcome closes or re-opens the breaker. A probe that never
+ * reports back (throttled, cancelled, or failed for another reason) is given up
+ * on after another {@code openDuration}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long probeStartedAt;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /** @return true if a call may go to this model now */
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openDuration.toMillis()) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            long now = clock.millis();
+            if (probeInFlight && now - probeStartedAt < openDuration.toMillis()) {
+                return false;
+            }
+            probeInFlight = true;
+            probeStartedAt = now;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /** @return true if this failure opened the breaker */
+    synchronized boolean onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            trip();
+            return true;
+        }
+        return false;
+    }
+
+    /** Opens immediately, e.g. when the model is not available at all. */
+    synchronized void trip() {
+        state = State.OPEN;
+        openedAt = clock.millis();
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
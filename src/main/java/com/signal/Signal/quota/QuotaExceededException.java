@@ -0,0 +1,15 @@
+package com.signal.Signal.quota;
+
+/**
+ * Thrown when a call could not be admitted or retried within the quota limits.
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+
+    public QuotaExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,247 @@
+package com.signal.Signal.quota;
+
+import com.google.genai.errors.ApiException;
+import com.signal.Signal.metrics.SignalMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Shared admission control for every model call on the node. A call needs a
+ * token from both its model's bucket and the API key's bucket; if none is
+ * available it is re-scheduled for when one will be, instead of blocking a
+ * thread. Quota failures (429) are retried with full-jitter exponential backoff
+ * and counted by a per-model circuit breaker; while a breaker is open, calls
+ * for that model are routed to its configured fallback.
+ */
+@Slf4j
+public class QuotaManager {
+
+    private final QuotaProperties properties;
+    private final Executor executor;
+    private final SignalMetrics signalMetrics;
+    private final Clock clock;
+
+    private final TokenBucket keyBucket;
+    private final Map<String, TokenBucket> modelBuckets = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder rerouted = new LongAdder();
+
+    public QuotaManager(QuotaProperties properties, Executor executor, SignalMetrics signalMetrics, Clock clock) {
+        this.properties = properties;
+        this.executor = executor;
+        this.signalMetrics = signalMetrics;
+        this.clock = clock;
+        this.keyBucket = new TokenBucket(properties.getKey().getBurst(), properties.getKey().getRequestsPerMinute(), clock);
+    }
+
+    /**
+     * Runs {@code call} with the model it should go to, once admitted. The
+     * returned future completes with the first successful result, or with the
+     * error that ended the attempts. Cancelling it interrupts the attempt in
+     * progress, and no further attempt or backoff is started.
+     */
+    public <T> CompletableFuture<T> submit(String model, Function<String, T> call) {
+        PendingCall<T> pending = new PendingCall<>(model, call, clock.millis());
+        pending.result.whenComplete((value, error) -> {
+            if (pending.result.isCancelled()) {
+                pending.interrupt();
+            }
+        });
+        attempt(pending, 1);
+        return pending.result;
+    }
+
+    /** The model a call for {@code model} should use right now. */
+    public String route(String model) {
+        String fallback = properties.getFallbacks().get(model);
+        if (fallback == null || breaker(model).allowRequest()) {
+            return model;
+        }
+        return fallback;
+    }
+
+    public CircuitBreaker.State getBreakerState(String model) {
+        return breaker(model).getState();
+    }
+
+    public Map<String, CircuitBreaker> getBreakers() {
+        return breakers;
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getRerouted() {
+        return rerouted.sum();
+    }
+
+    private <T> void attempt(PendingCall<T> pending, int attempt) {
+        CompletableFuture<T> result = pending.result;
+        if (result.isDone()) {
+            return;
+        }
+        String requested = pending.requested;
+        String model = route(requested);
+        if (!model.equals(requested)) {
+            rerouted.increment();
+            signalMetrics.fallback(requested, model);
+        }
+
+        long waitMillis = admit(model);
+        if (waitMillis > 0) {
+            throttled.increment();
+            signalMetrics.throttled(model);
+            if (clock.millis() + waitMillis - pending.firstTriedAt > properties.getMaxWait().toMillis()) {
+                result.completeExceptionally(new QuotaExceededException("No quota for " + model
+                        + " within " + properties.getMaxWait()));
+                return;
+            }
+            schedule(waitMillis, () -> attempt(pending, attempt));
+            return;
+        }
+
+        CircuitBreaker breaker = breaker(model);
+        try {
+            T value = pending.run(model);
+            breaker.onSuccess();
+            result.complete(value);
+        } catch (RuntimeException e) {
+            if (result.isDone()) {
+                // cancelled while running: whatever it threw says nothing about the model
+                return;
+            }
+            int code = statusCode(e);
+            if (code == 404 && properties.getFallbacks().containsKey(model)) {
+                log.warn(model + " unavailable (" + e.getMessage() + "). Routing to "
+                        + properties.getFallbacks().get(model) + " for " + properties.getBreakerOpenDuration());
+                breaker.trip();
+                attempt(pending, attempt);
+                return;
+            }
+            if (code != 429) {
+                result.completeExceptionally(e);
+                return;
+            }
+            if (breaker.onFailure()) {
+                log.warn("Circuit opened for " + model + " after repeated quota errors.");
+                signalMetrics.circuitOpened(model);
+                if (properties.getFallbacks().containsKey(model)) {
+                    attempt(pending, attempt);
+                    return;
+                }
+            }
+            if (attempt >= properties.getMaxAttempts()) {
+                result.completeExceptionally(new QuotaExceededException("Quota exhausted for " + model
+                        + " after " + attempt + " attempts", e));
+                return;
+            }
+            long backoff = backoffMillis(attempt);
+            retried.increment();
+            signalMetrics.retry(model);
+            log.warn("Quota (429) on " + model + ". Retry " + attempt + " in " + backoff + "ms.");
+            schedule(backoff, () -> attempt(pending, attempt + 1));
+        }
+    }
+
+    /** @return 0 if a token was taken from both buckets, else how long to wait */
+    private long admit(String model) {
+        TokenBucket bucket = modelBuckets.computeIfAbsent(model, m -> {
+            QuotaProperties.Limit limit = properties.getModels().getOrDefault(m, properties.getDefaultModel());
+            return new TokenBucket(limit.getBurst(), limit.getRequestsPerMinute(), clock);
+        });
+        if (!bucket.tryAcquire()) {
+            return Math.max(1, bucket.millisUntilAvailable());
+        }
+        if (!keyBucket.tryAcquire()) {
+            bucket.refund();
+            return Math.max(1, keyBucket.millisUntilAvailable());
+        }
+        return 0;
+    }
+
+    /** Full jitter: uniformly random in [0, min(max, base * 2^(attempt-1))]. */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(properties.getMaxBackoff().toMillis(),
+                properties.getBaseBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void schedule(long delayMillis, Runnable task) {
+        CompletableFuture.runAsync(task, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor));
+    }
+
+    private CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, m -> new CircuitBreaker(properties.getBreakerFailureThreshold(),
+                properties.getBreakerOpenDuration(), clock));
+    }
+
+    /** One submitted call across its attempts. */
+    private static final class PendingCall<T> {
+        private final String requested;
+        private final Function<String, T> call;
+        private final long firstTriedAt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // guarded by this; the thread running an attempt, if any
+        private Thread runner;
+
+        private PendingCall(String requested, Function<String, T> call, long firstTriedAt) {
+            this.requested = requested;
+            this.call = call;
+            this.firstTriedAt = firstTriedAt;
+        }
+
+        T run(String model) {
+            synchronized (this) {
+                if (result.isDone()) {
+                    throw new CancellationException("Call to " + model + " cancelled");
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                return call.apply(model);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (result.isCancelled()) {
+                        // the interrupt was meant for this call, not for the pooled thread
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+
+    private static int statusCode(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ApiException api) {
+                return api.code();
+            }
+        }
+        return -1;
+    }
+}
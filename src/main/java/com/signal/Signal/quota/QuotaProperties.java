@@ -0,0 +1,47 @@
+package com.signal.Signal.quota;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Node-wide admission limits for model calls, bound from {@code signal.quota}.
+ */
+@Data
+@ConfigurationProperties(prefix = "signal.quota")
+public class QuotaProperties {
+
+    /** Limit of the gateway's single API key; calls to every model also take a token from it. */
+    private Limit key = new Limit(240, 20);
+    private Limit defaultModel = new Limit(60, 10);
+    private Map<String, Limit> models = new HashMap<>();
+
+    /** Longest a call may wait for a token before it is refused. */
+    private Duration maxWait = Duration.ofSeconds(20);
+    private int maxAttempts = 3;
+    private Duration baseBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofSeconds(16);
+
+    private int breakerFailureThreshold = 3;
+    private Duration breakerOpenDuration = Duration.ofSeconds(30);
+
+    /** Model to use while a model's breaker is open. */
+    private Map<String, String> fallbacks = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        private double requestsPerMinute;
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double requestsPerMinute, int burst) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+        }
+    }
+}
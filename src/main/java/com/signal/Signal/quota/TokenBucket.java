@@ -0,0 +1,50 @@
+package com.signal.Signal.quota;
+
+import java.time.Clock;
+
+/**
+ * Classic token bucket: up to {@code capacity} requests in a burst, refilled at
+ * a steady rate. Non-blocking; callers that are refused are told how long to wait.
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerMilli;
+    private final Clock clock;
+
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(int capacity, double perMinute, Clock clock) {
+        this.capacity = capacity;
+        this.tokensPerMilli = perMinute / 60_000d;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.refilledAt = clock.millis();
+    }
+
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** Gives back a token taken by a request that was then refused elsewhere. */
+    synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    synchronized long millisUntilAvailable() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMilli);
+    }
+
+    private void refill() {
+        long now = clock.millis();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerMilli);
+        refilledAt = now;
+    }
+}
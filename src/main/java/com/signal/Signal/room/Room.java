@@ -0,0 +1,111 @@
+package com.signal.Signal.room;
+
+import com.signal.Signal.audio.AudioSegmenter;
+import com.signal.Signal.execution.SessionScope;
+import com.signal.Signal.outbound.OutboundQueue;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * One meeting: its subscribers and the single pipeline they share. Only the
+ * publisher's audio is analysed; every subscriber (the publisher included)
+ * receives the results. Membership changes are serialized by
+ * {@link RoomRegistry}, reads are lock-free.
+ */
+public class Room {
+
+    public enum Role { PUBLISHER, SUBSCRIBER }
+
+    @Getter
+    private final String id;
+    @Getter
+    private final SessionScope scope;
+    private final Supplier<AudioSegmenter> segmenters;
+    private final Map<String, OutboundQueue> subscribers = new ConcurrentHashMap<>();
+    private volatile String publisherId;
+    private volatile AudioSegmenter audio;
+    // both belong to the current publisher
+    @Getter
+    @Setter
+    private volatile SessionSettings settings = SessionSettings.DEFAULTS;
+    @Getter
+    @Setter
+    private volatile boolean paused;
+
+    Room(String id, Supplier<AudioSegmenter> segmenters, SessionScope scope) {
+        this.id = id;
+        this.segmenters = segmenters;
+        this.scope = scope;
+    }
+
+    public Collection<OutboundQueue> getSubscribers() {
+        return subscribers.values();
+    }
+
+    /** The session's outbound queue, or null if it is not in this room. */
+    public OutboundQueue getSubscriber(String sessionId) {
+        return subscribers.get(sessionId);
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    public boolean isPublisher(String sessionId) {
+        return sessionId.equals(publisherId);
+    }
+
+    /** The publisher's segmenter, or null while the room has no publisher. */
+    public AudioSegmenter getAudio() {
+        return audio;
+    }
+
+    /**
+     * @return the role granted; a second publisher joins as a subscriber
+     */
+    Role add(OutboundQueue subscriber, Role requested) {
+        subscribers.put(subscriber.getSessionId(), subscriber);
+        if (requested == Role.PUBLISHER && publisherId == null) {
+            // each publisher starts its own WebM stream, header included
+            audio = segmenters.get();
+            settings = SessionSettings.DEFAULTS;
+            paused = false;
+            publisherId = subscriber.getSessionId();
+            return Role.PUBLISHER;
+        }
+        return Role.SUBSCRIBER;
+    }
+
+    void remove(String sessionId) {
+        OutboundQueue subscriber = subscribers.remove(sessionId);
+        if (subscriber != null) {
+            subscriber.close();
+        }
+        if (isPublisher(sessionId)) {
+            publisherId = null;
+            AudioSegmenter previous = audio;
+            audio = null;
+            previous.close();
+        }
+    }
+
+    boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+
+    void close() {
+        scope.close();
+        subscribers.values().forEach(OutboundQueue::close);
+        AudioSegmenter current = audio;
+        audio = null;
+        publisherId = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.signal.Signal.room;
+
+import com.signal.Signal.audio.AudioSegmenterFactory;
+import com.signal.Signal.cluster.SessionRegistry;
+import com.signal.Signal.execution.SessionScope;
+import com.signal.Signal.outbound.OutboundQueue;
+import com.signal.Signal.outbound.OutboundQueueFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rooms by id and each session's room, so join, leave and the lookups on the
+ * audio and fan-out paths are all O(1). A room and its pipeline are created by
+ * the first session to join and closed when the last one leaves; the cluster's
+ * {@link SessionRegistry} learns of both in the same step.
+ */
+@Component
+public class RoomRegistry {
+
+    private final AudioSegmenterFactory audioSegmenterFactory;
+    private final OutboundQueueFactory outboundQueueFactory;
+    private final SessionRegistry sessionRegistry;
+    private final ExecutorService executor;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Room> bySession = new ConcurrentHashMap<>();
+
+    public RoomRegistry(AudioSegmenterFactory audioSegmenterFactory, OutboundQueueFactory outboundQueueFactory,
+                        SessionRegistry sessionRegistry, ExecutorService signalExecutor) {
+        this.audioSegmenterFactory = audioSegmenterFactory;
+        this.outboundQueueFactory = outboundQueueFactory;
+        this.sessionRegistry = sessionRegistry;
+        this.executor = signalExecutor;
+    }
+
+    /**
+     * @return the role granted, which is {@link Room.Role#SUBSCRIBER} if the room already has a publisher,
+     * and the session's outbound queue, which stays usable even if the room closes right after
+     */
+    public Membership join(String roomId, WebSocketSession session, Room.Role requested) {
+        OutboundQueue outbound = outboundQueueFactory.create(session);
+        Room.Role[] granted = new Room.Role[1];
+        Room joined = rooms.compute(roomId, (id, room) -> {
+            if (room == null) {
+                room = new Room(id, audioSegmenterFactory::create, new SessionScope(id, executor));
+                sessionRegistry.join(id);
+            }
+            granted[0] = room.add(outbound, requested);
+            return room;
+        });
+        bySession.put(session.getId(), joined);
+        return new Membership(granted[0], outbound);
+    }
+
+    /**
+     * @return the session's room if this was its last member and it is now closed, else null
+     */
+    public Room leave(String sessionId) {
+        Room room = bySession.remove(sessionId);
+        if (room == null) {
+            return null;
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        rooms.computeIfPresent(room.getId(), (id, current) -> {
+            if (current != room) {
+                return current;
+            }
+            current.remove(sessionId);
+            if (!current.isEmpty()) {
+                return current;
+            }
+            current.close();
+            sessionRegistry.leave(id);
+            closed.set(true);
+            return null;
+        });
+        return closed.get() ? room : null;
+    }
+
+    public Room get(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    public Room roomOf(String sessionId) {
+        return bySession.get(sessionId);
+    }
+
+    public int getActiveRooms() {
+        return rooms.size();
+    }
+
+    public int getActiveSessions() {
+        return bySession.size();
+    }
+
+    public record Membership(Room.Role role, OutboundQueue outbound) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.signal.Signal.room;
+
+import com.signal.Signal.routing.ModelRouter;
+
+import java.util.Set;
+
+/**
+ * How the publisher wants its room's pipeline to run. They last as long as the
+ * publisher's session; the window length lives in the room's segmenter.
+ *
+ * @param agents the agents triggers may start, or null for all of them
+ */
+public record SessionSettings(ModelRouter.Tier modelTier, Set<String> agents, String audioMimeType) {
+
+    public static final SessionSettings DEFAULTS = new SessionSettings(ModelRouter.Tier.BALANCED, null, "audio/webm");
+
+    public boolean isEnabled(String agent) {
+        return agents == null || agents.contains(agent);
+    }
+}
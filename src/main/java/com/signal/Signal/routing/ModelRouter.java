@@ -0,0 +1,236 @@
+package com.signal.Signal.routing;
+
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.quota.CircuitBreaker;
+import com.signal.Signal.quota.QuotaManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Picks the model for each analysis call and hedges slow ones. The primary is
+ * called first; if it has not produced a valid answer within the hedge delay
+ * (or fails), the secondary is started too and whichever answers first wins.
+ * The loser is cancelled. Nothing is returned after the latency SLO.
+ * <p>
+ * The hedge delay is the configured one, lowered to the primary's recent p95
+ * once there are enough samples, so only its slow tail gets hedged. When the
+ * primary's median alone is over the SLO, or its circuit is open, the
+ * secondary is called directly.
+ * <p>
+ * A client may pick another {@link Tier} for its room: only the secondary, or
+ * only the primary with no hedge, each spending one model call per window.
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+
+    public enum Tier {
+        /** Primary first, hedged with the secondary. */
+        BALANCED,
+        /** Only the secondary. */
+        FAST,
+        /** Only the primary, never hedged. */
+        QUALITY
+    }
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int PROBE_INTERVAL = 10;
+
+    private final String primary;
+    private final String secondary;
+    private final Duration hedgeDelay;
+    private final Duration slo;
+    private final int windowSize;
+    private final ExecutorService executor;
+    private final QuotaManager quotaManager;
+    private final SignalMetrics signalMetrics;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    public ModelRouter(@Value("${signal.routing.primary:gemini-3-pro-preview}") String primary,
+                       @Value("${signal.routing.secondary:gemini-3-flash-preview}") String secondary,
+                       @Value("${signal.routing.hedge-delay:3s}") Duration hedgeDelay,
+                       @Value("${signal.routing.slo:12s}") Duration slo,
+                       @Value("${signal.routing.window-size:256}") int windowSize,
+                       ExecutorService signalExecutor,
+                       QuotaManager quotaManager,
+                       SignalMetrics signalMetrics) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.hedgeDelay = hedgeDelay;
+        this.slo = slo;
+        this.windowSize = windowSize;
+        this.executor = signalExecutor;
+        this.quotaManager = quotaManager;
+        this.signalMetrics = signalMetrics;
+    }
+
+    /**
+     * Runs {@code call} against the primary and, if needed, the secondary model,
+     * returning the first result accepted by {@code valid}. Empty if neither
+     * model produced one within the SLO.
+     */
+    public <T> Optional<T> route(Function<String, T> call, Predicate<T> valid) {
+        return route(Tier.BALANCED, call, valid);
+    }
+
+    public <T> Optional<T> route(Tier tier, Function<String, T> call, Predicate<T> valid) {
+        Race<T> race = new Race<>(call, valid, tier == Tier.BALANCED);
+        try {
+            if (tier == Tier.FAST && !secondary.isBlank()) {
+                race.start(secondary);
+            } else if (tier == Tier.QUALITY) {
+                race.start(primary);
+            } else if (skipPrimary()) {
+                race.start(secondary);
+            } else {
+                race.start(primary);
+                long delay = getHedgeDelayMillis();
+                if (!race.awaitWinner(delay)) {
+                    race.start(secondary);
+                }
+            }
+            long remaining = slo.toMillis() - race.elapsedMillis();
+            if (!race.awaitWinner(remaining)) {
+                log.warn("No valid answer within the " + slo.toMillis() + "ms SLO.");
+                signalMetrics.sloMissed();
+                return Optional.empty();
+            }
+            return Optional.ofNullable(race.winner.getNow(null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            race.cancelAll();
+        }
+    }
+
+    public long getHedgeDelayMillis() {
+        LatencyTracker tracker = tracker(primary);
+        long configured = hedgeDelay.toMillis();
+        if (tracker.size() < MIN_SAMPLES) {
+            return configured;
+        }
+        return Math.min(configured, tracker.percentile(95));
+    }
+
+    public LatencyTracker tracker(String model) {
+        return latencies.computeIfAbsent(model, m -> new LatencyTracker(windowSize));
+    }
+
+    private boolean skipPrimary() {
+        if (quotaManager.getBreakerState(primary) == CircuitBreaker.State.OPEN) {
+            return true;
+        }
+        LatencyTracker tracker = tracker(primary);
+        boolean tooSlow = tracker.size() >= MIN_SAMPLES && tracker.percentile(50) > slo.toMillis();
+        // Still send every tenth request to the primary so its latency picture can recover.
+        return tooSlow && requests.incrementAndGet() % PROBE_INTERVAL != 0;
+    }
+
+    /** One request's racers; the first valid answer completes {@link #winner}. */
+    private final class Race<T> {
+        private final Function<String, T> call;
+        private final Predicate<T> valid;
+        private final boolean hedge;
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<T> winner = new CompletableFuture<>();
+        private final Map<String, Future<?>> racers = new ConcurrentHashMap<>();
+        private int running;
+
+        private Race(Function<String, T> call, Predicate<T> valid, boolean hedge) {
+            this.call = call;
+            this.valid = valid;
+            this.hedge = hedge;
+        }
+
+        synchronized void start(String model) {
+            if (winner.isDone() || model.isBlank() || racers.containsKey(model)) {
+                return;
+            }
+            if (model.equals(secondary) && racers.containsKey(primary)) {
+                log.info("Hedging " + primary + " with " + secondary + " after " + elapsedMillis() + "ms");
+                signalMetrics.hedged(primary, secondary);
+            }
+            running++;
+            racers.put(model, executor.submit(() -> run(model)));
+        }
+
+        private void run(String model) {
+            long start = System.nanoTime();
+            T result = null;
+            try {
+                result = call.apply(model);
+            } catch (RuntimeException e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    log.warn(model + " failed: " + e.getMessage());
+                }
+            }
+            // a cancelled racer's answer comes too late either way
+            boolean cancelled = Thread.currentThread().isInterrupted();
+            boolean accepted = !cancelled && result != null && valid.test(result);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (accepted || cancelled && winner.getNow(null) != null) {
+                // A loser cancelled by another model's answer took at least this long; dropping it
+                // would hide the slow tail. A race given up as a whole says nothing about the model.
+                tracker(model).record(elapsed);
+            }
+            if (accepted) {
+                if (winner.complete(result)) {
+                    signalMetrics.routedTo(model);
+                }
+            }
+            finished(model, accepted);
+        }
+
+        private void finished(String model, boolean accepted) {
+            boolean hedgeNow;
+            synchronized (this) {
+                running--;
+                hedgeNow = hedge && !accepted && model.equals(primary) && !secondary.isBlank() && !racers.containsKey(secondary);
+                if (!hedgeNow && running == 0 && !winner.isDone()) {
+                    winner.complete(null);
+                }
+            }
+            if (hedgeNow) {
+                start(secondary);
+            }
+        }
+
+        /** @return true once a racer has won or every racer has given up */
+        boolean awaitWinner(long millis) throws InterruptedException {
+            try {
+                winner.get(Math.max(0, millis), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            }
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        void cancelAll() {
+            winner.complete(null);
+            racers.values().forEach(racer -> racer.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.signal.Signal.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs model calls under a node-wide concurrency limit. Work is queued per lane
+ * (one lane per session): a lane has at most one task in flight and one pending,
+ * and lanes with pending work are served round-robin so a chatty session cannot
+ * starve the others. When a lane already has a pending task the overflow policy
+ * decides whether the older or newer task survives, or whether they are merged.
+ * Tasks run on the shared signal executor; the limit here is what bounds them.
+ */
+@Slf4j
+@Component
+public class InferenceScheduler {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        MERGE
+    }
+
+    private final OverflowPolicy overflowPolicy;
+    private final Semaphore permits;
+    private final Executor workers;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Lane> readyLanes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public InferenceScheduler(@Value("${signal.scheduler.max-concurrency:8}") int maxConcurrency,
+                              @Value("${signal.scheduler.overflow-policy:MERGE}") OverflowPolicy overflowPolicy,
+                              Executor signalExecutor) {
+        this.overflowPolicy = overflowPolicy;
+        this.permits = new Semaphore(maxConcurrency);
+        this.workers = signalExecutor;
+    }
+
+    public void submit(String laneKey, InferenceTask task) {
+        submitted.increment();
+        InferenceTask discarded = null;
+        boolean enqueue = false;
+
+        Lane lane = lanes.computeIfAbsent(laneKey, Lane::new);
+        synchronized (lane) {
+            if (lane.cancelled) {
+                discarded = task;
+            } else if (lane.pending == null) {
+                lane.pending = task;
+                lane.pendingSince = System.nanoTime();
+                pending.incrementAndGet();
+                if (!lane.running && !lane.queued) {
+                    lane.queued = true;
+                    enqueue = true;
+                }
+            } else {
+                switch (overflowPolicy) {
+                    case DROP_NEWEST -> discarded = task;
+                    case DROP_OLDEST -> {
+                        discarded = lane.pending;
+                        lane.pending = task;
+                    }
+                    case MERGE -> {
+                        InferenceTask combined = lane.pending.mergeWith(task);
+                        if (combined != null) {
+                            lane.pending = combined;
+                            merged.increment();
+                        } else {
+                            discarded = lane.pending;
+                            lane.pending = task;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (discarded != null) {
+            dropped.increment();
+            log.info("Lane " + laneKey + " is behind. Dropped a pending window (" + overflowPolicy + ").");
+            discarded.discard();
+        }
+        if (enqueue) {
+            readyLanes.offer(lane);
+        }
+        dispatch();
+    }
+
+    /**
+     * Discards the lane's pending task and interrupts the one in flight, if any.
+     */
+    public void cancel(String laneKey) {
+        Lane lane = lanes.remove(laneKey);
+        if (lane == null) {
+            return;
+        }
+        InferenceTask discarded;
+        synchronized (lane) {
+            lane.cancelled = true;
+            discarded = lane.pending;
+            lane.pending = null;
+            if (lane.worker != null) {
+                lane.worker.interrupt();
+            }
+        }
+        if (discarded != null) {
+            pending.decrementAndGet();
+            discarded.discard();
+        }
+    }
+
+    public SchedulerStats getStats() {
+        long dispatchedCount = dispatched.sum();
+        return new SchedulerStats(
+                lanes.size(),
+                readyLanes.size(),
+                pending.get(),
+                inFlight.get(),
+                submitted.sum(),
+                completed.sum(),
+                failed.sum(),
+                dropped.sum(),
+                merged.sum(),
+                dispatchedCount == 0 ? 0 : totalWaitNanos.sum() / 1e6 / dispatchedCount,
+                maxWaitNanos.get() / 1e6);
+    }
+
+    private void dispatch() {
+        while (!readyLanes.isEmpty() && permits.tryAcquire()) {
+            Lane lane = readyLanes.poll();
+            InferenceTask task = null;
+            long waitNanos = 0;
+            if (lane != null) {
+                synchronized (lane) {
+                    lane.queued = false;
+                    if (!lane.cancelled && lane.pending != null) {
+                        task = lane.pending;
+                        lane.pending = null;
+                        lane.running = true;
+                        waitNanos = System.nanoTime() - lane.pendingSince;
+                    }
+                }
+            }
+            if (task == null) {
+                permits.release();
+                continue;
+            }
+
+            pending.decrementAndGet();
+            inFlight.incrementAndGet();
+            dispatched.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+            InferenceTask toRun = task;
+            try {
+                workers.execute(() -> run(lane, toRun));
+            } catch (RejectedExecutionException e) {
+                toRun.discard();
+                finish(lane);
+            }
+        }
+    }
+
+    private void run(Lane lane, InferenceTask task) {
+        synchronized (lane) {
+            lane.worker = Thread.currentThread();
+            if (lane.cancelled) {
+                lane.worker.interrupt();
+            }
+        }
+        try {
+            task.run();
+            completed.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Inference task failed on lane " + lane.key + ": " + e.getMessage());
+        } finally {
+            synchronized (lane) {
+                lane.worker = null;
+            }
+            // a cancel() that raced with completion must not leak into the next task on this thread
+            Thread.interrupted();
+            finish(lane);
+        }
+    }
+
+    private void finish(Lane lane) {
+        boolean requeue;
+        synchronized (lane) {
+            lane.running = false;
+            requeue = !lane.cancelled && lane.pending != null && !lane.queued;
+            if (requeue) {
+                lane.queued = true;
+            }
+        }
+        if (requeue) {
+            readyLanes.offer(lane);
+        }
+        inFlight.decrementAndGet();
+        permits.release();
+        dispatch();
+    }
+
+    private static final class Lane {
+        private final String key;
+        private InferenceTask pending;
+        private long pendingSince;
+        private boolean queued;
+        private boolean running;
+        private boolean cancelled;
+        private Thread worker;
+
+        private Lane(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.signal.Signal.scheduler;
+
+/**
+ * A unit of model work queued on the {@link InferenceScheduler}.
+ */
+public interface InferenceTask {
+
+    void run();
+
+    /** Called instead of {@link #run()} when the task is dropped or its lane is cancelled. */
+    void discard();
+
+    /**
+     * Combines this pending task with a newer one from the same lane.
+     *
+     * @return the combined task, which takes ownership of both, or null if they cannot be merged
+     */
+    default InferenceTask mergeWith(InferenceTask newer) {
+        return null;
+    }
+}
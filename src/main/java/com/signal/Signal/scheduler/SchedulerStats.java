@@ -0,0 +1,14 @@
+package com.signal.Signal.scheduler;
+
+public record SchedulerStats(int lanes,
+                             int readyLanes,
+                             int pending,
+                             int inFlight,
+                             long submitted,
+                             long completed,
+                             long failed,
+                             long dropped,
+                             long merged,
+                             double averageWaitMillis,
+                             double maxWaitMillis) {
+}
@@ -1,121 +1,133 @@
 package com.signal.Signal.service;
 
-import com.google.genai.Client;
 import com.google.genai.types.*;
+import com.signal.Signal.cache.GenerationCache;
+import com.signal.Signal.diagram.DiagramStore;
+import com.signal.Signal.diagram.StoredDiagram;
 import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.execution.AgentJob;
+import com.signal.Signal.gateway.GeminiGateway;
+import com.signal.Signal.history.HistoryWriter;
+import com.signal.Signal.prompt.Prompts;
 import com.signal.Signal.websocket.SignalSocketHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.WebSocketSession;
 
 import java.time.Instant;
-import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SignalBoardService {
 
-    private final Client geminiClient;
+    private static final String IMAGE_MODEL = "gemini-3-pro-image-preview";
+    private static final SignalResponse LOADING = SignalResponse.builder()
+            .type(SignalResponse.SignalType.IDLE)
+            .title("Generating Board...")
+            .description("Gemini 3 is drawing the architecture...")
+            .confidence(1.0)
+            .build();
+
+    private final GeminiGateway geminiGateway;
+    private final DiagramStore diagramStore;
+    private final GenerationCache<String> diagramCache;
+    private final HistoryWriter historyWriter;
 
     @Lazy
     private final SignalSocketHandler socketHandler;
 
-    @Async
-    public void generateDiagram(WebSocketSession session, String conversationContext) {
-        sendLoadingSignal(session);
-
-        String visualPrompt = """
-            Visual prompt for software architecture:
-            %s
-            
-            Style: Technical whiteboard, high contrast, specific icons (Postgres, Redis).
-            Draw immediately.
-        """.formatted(conversationContext);
-
-        GenerateContentConfig config = GenerateContentConfig.builder()
-                .responseModalities(Arrays.asList("IMAGE"))
-                .temperature(0.4f)
-                .build();
+    /**
+     * @param job            this run; nothing is sent once it has been superseded
+     * @param focus          the decision that triggered the board
+     * @param meetingContext what the meeting has covered so far, may be empty; results are
+     *                       cached per room and focus, not per context
+     */
+    public void generateDiagram(AgentJob job, String focus, String meetingContext) {
+        String roomId = job.getRoomId();
+        String cacheKey = GenerationCache.key(focus, IMAGE_MODEL, Prompts.BOARD.version(), roomId);
+
+        Optional<String> diagramHash = diagramCache.getIfPresent(cacheKey);
+        if (diagramHash.isPresent()) {
+            log.info("Diagram cache hit.");
+        } else {
+            sendLoadingSignal(roomId);
+            diagramHash = diagramCache.getOrCompute(cacheKey, () -> renderDiagram(focus, meetingContext));
+        }
 
+        if (!job.isCurrent()) {
+            // the diagram stays cached, but this room has moved on
+            log.info("Dropping superseded diagram for room " + roomId + ".");
+            return;
+        }
+        diagramHash.flatMap(diagramStore::get).ifPresentOrElse(
+                diagram -> sendDiagram(roomId, diagram),
+                () -> log.error("Failed to generate diagram."));
+    }
 
-        int maxRetries = 3;
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                log.info("Gemini 3 Generation (Attempt " + attempt + ")...");
-
-                GenerateContentResponse response = geminiClient.models.generateContent(
-                        "gemini-3-pro-image-preview",
-                        Content.builder().role("user").parts(Collections.singletonList(
-                                Part.builder().text(visualPrompt).build()
-                        )).build(),
-                        config
-                );
-
-                boolean sent = extractAndSendImage(session, response);
-
-                if (sent) {
-                    log.info("Image Sent successfully on attempt " + attempt + ". Stopping retries.");
-                    return;
-                }
-
-            } catch (Exception e) {
-                if (e.getMessage().contains("429") || e.getMessage().contains("Resource exhausted")) {
-
-                    long wait = 1000L * attempt;
-                    log.warn("Quota (429). Retrying in " + wait + "ms...");
-                    try { Thread.sleep(wait); } catch (InterruptedException ignored) {}
-                } else {
-                    log.error("Critical Error: " + e.getMessage());
-                    break;
-                }
+    private Optional<String> renderDiagram(String focus, String meetingContext) {
+        // Quota retries and backoff happen in the gateway, shared with every other room.
+        try {
+            log.info("Gemini 3 Generation...");
+
+            GenerateContentResponse response = geminiGateway.generateContent(
+                    IMAGE_MODEL,
+                    Prompts.BOARD.render(focus, meetingContext.isBlank() ? "(no earlier context)" : meetingContext),
+                    Prompts.BOARD.config()
+            );
+
+            Optional<StoredDiagram> diagram = extractImage(response);
+            if (diagram.isPresent()) {
+                log.info("Image generated successfully.");
+                historyWriter.recordDiagram(diagram.get());
             }
+            return diagram.map(StoredDiagram::hash);
+
+        } catch (CancellationException e) {
+            // superseded or expired: let the cache fail this generation, so whoever waits on it retries
+            throw e;
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Diagram cancelled");
+            }
+            log.error("Critical Error: " + e.getMessage());
+            return Optional.empty();
         }
-        log.error("Failed to generate diagram after retries.");
     }
 
-    private boolean extractAndSendImage(WebSocketSession session, GenerateContentResponse response) {
+    private Optional<StoredDiagram> extractImage(GenerateContentResponse response) {
         return response.candidates().orElse(Collections.emptyList()).stream()
                 .map(c -> c.content().orElse(null))
                 .filter(content -> content != null)
                 .map(content -> content.parts().orElse(Collections.emptyList()))
                 .flatMap(List::stream)
-                .filter(part -> part.inlineData().isPresent())
-                .map(part -> part.inlineData().get().data().orElse(null))
-                .filter(bytes -> bytes != null && bytes.length > 0)
+                .map(part -> part.inlineData().orElse(null))
+                .filter(blob -> blob != null && blob.data().map(bytes -> bytes.length > 0).orElse(false))
                 .findFirst()
-                .map(imageBytes -> {
-                    String base64 = Base64.getEncoder().encodeToString(imageBytes);
-                    SignalResponse responseObj = SignalResponse.builder()
-                            .type(SignalResponse.SignalType.IMAGE_GENERATED)
-                            .title("Live Architecture Board")
-                            .description("Generated by Nano Banana Pro")
-                            .imageBase64(base64)
-                            .timestamp(Instant.now())
-                            .confidence(1.0)
-                            .build();
-                    socketHandler.sendSignal(session, responseObj);
-                    log.info("Diagram Sent!");
-                    return true;
-                })
-                .orElse(false);
+                .map(blob -> diagramStore.put(blob.data().get(), blob.mimeType().orElse("image/png")));
     }
 
-    private void sendLoadingSignal(WebSocketSession session) {
-        try {
-            SignalResponse loading = SignalResponse.builder()
-                    .type(SignalResponse.SignalType.IDLE)
-                    .title("Generating Board...")
-                    .description("Gemini 3 is drawing the architecture...")
-                    .timestamp(Instant.now())
-                    .confidence(1.0).build();
-            socketHandler.sendSignal(session, loading);
-        } catch (Exception e) {}
+    private void sendDiagram(String roomId, StoredDiagram diagram) {
+        SignalResponse responseObj = SignalResponse.builder()
+                .type(SignalResponse.SignalType.IMAGE_GENERATED)
+                .title("Live Architecture Board")
+                .description("Generated by Nano Banana Pro")
+                .imageHash(diagram.hash())
+                .imageWidth(diagram.width())
+                .imageHeight(diagram.height())
+                .timestamp(Instant.now())
+                .confidence(1.0)
+                .build();
+        socketHandler.broadcast(roomId, responseObj);
+        log.info("Diagram Sent!");
+    }
+
+    private void sendLoadingSignal(String roomId) {
+        socketHandler.broadcastStatic(roomId, LOADING);
     }
-}
\ No newline at end of file
+}
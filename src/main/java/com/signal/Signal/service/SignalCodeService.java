@@ -1,109 +1,185 @@
 package com.signal.Signal.service;
 
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.genai.Client;
 import com.google.genai.types.*;
+import com.signal.Signal.cache.GenerationCache;
+import com.signal.Signal.codec.SignalCodec;
+import com.signal.Signal.codec.StreamingJsonFieldReader;
 import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.execution.AgentJob;
+import com.signal.Signal.gateway.GeminiGateway;
+import com.signal.Signal.prompt.Prompts;
 import com.signal.Signal.websocket.SignalSocketHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.WebSocketSession;
 
+import java.io.IOException;
 import java.time.Instant;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SignalCodeService {
 
-    private final Client geminiClient;
-    private final ObjectMapper objectMapper;
+    private static final String CODE_MODEL = "gemini-3-pro-preview";
+    private static final SignalResponse LOADING = SignalResponse.builder()
+            .type(SignalResponse.SignalType.IDLE)
+            .title("Drafting Code...")
+            .description("Generating polyglot implementation...")
+            .confidence(1.0)
+            .build();
+
+    private final GeminiGateway geminiGateway;
+    private final SignalCodec signalCodec;
+    private final GenerationCache<Map<String, String>> codeCache;
 
     @Lazy
     private final SignalSocketHandler socketHandler;
 
-    @Async
-    public void generateLiveCode(WebSocketSession session, String conversationContext) {
-
-        sendLoadingSignal(session);
-
-
-        String prompt = """
-            You are a Senior Polyglot Software Engineer.
-            Analyze this meeting transcript:
-            "%s"
-            
-            Identify the core technical entity, function, or schema being discussed.
-            Generate the production-ready code implementation for it in 3 languages: Java, Python, and Go.
-            
-            STRICT OUTPUT FORMAT:
-            You must return ONLY a raw JSON object (no markdown, no backticks) with this exact structure:
-            {
-              "java": "public class ...",
-              "python": "class ...",
-              "go": "type ... struct ..."
+    @Value("${signal.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    /**
+     * @param job            this run; nothing is sent once it has been superseded
+     * @param focus          the decision that triggered the agent
+     * @param meetingContext what the meeting has covered so far, may be empty; results are
+     *                       cached per room and focus, not per context
+     */
+    public void generateLiveCode(AgentJob job, String focus, String meetingContext) {
+        String roomId = job.getRoomId();
+        String streamId = streamingEnabled ? UUID.randomUUID().toString() : null;
+        String cacheKey = GenerationCache.key(focus, CODE_MODEL, Prompts.CODE.version(), roomId);
+        AtomicBoolean streamed = new AtomicBoolean();
+        boolean finished = false;
+
+        try {
+            Optional<Map<String, String>> snippets = codeCache.getIfPresent(cacheKey);
+            if (snippets.isPresent()) {
+                log.info("Code cache hit.");
+            } else {
+                sendLoadingSignal(roomId);
+                snippets = codeCache.getOrCompute(cacheKey,
+                        () -> draftCode(job, streamId, streamed, focus, meetingContext));
+            }
+
+            if (!job.isCurrent()) {
+                log.info("Dropping superseded code for room " + roomId + ".");
+                return;
+            }
+            if (snippets.isPresent()) {
+                SignalResponse codeSignal = SignalResponse.builder()
+                        .type(SignalResponse.SignalType.CODE_GENERATED)
+                        .title("Live Code Context")
+                        .description("Gemini 3 generated implementation in Java, Python, and Go.")
+                        .codeSnippets(snippets.get())
+                        .streamId(streamId)
+                        .timestamp(Instant.now())
+                        .confidence(1.0)
+                        .build();
+
+                socketHandler.broadcast(roomId, codeSignal);
+                finished = true;
+                log.info("Live Code Sent to Frontend!");
+            }
+        } finally {
+            if (streamed.get() && !finished) {
+                socketHandler.endStream(roomId, streamId);
             }
-            """.formatted(conversationContext);
+        }
+    }
 
-        GenerateContentConfig config = GenerateContentConfig.builder()
-                .responseMimeType("application/json")
-                .temperature(0.2f)
-                .build();
+    private Optional<Map<String, String>> draftCode(AgentJob job, String streamId, AtomicBoolean streamed,
+                                                    String focus, String meetingContext) {
+        Content prompt = Prompts.CODE.render(meetingContext.isBlank() ? focus : meetingContext, focus);
 
         try {
             log.info("💻 Triggering Gemini 3 Code Agent...");
 
-            GenerateContentResponse response = geminiClient.models.generateContent(
-                    "gemini-3-pro-preview",
-                    Content.builder().parts(Collections.singletonList(
-                            Part.builder().text(prompt).build()
-                    )).build(),
-                    config
-            );
+            if (streamingEnabled) {
+                return streamCode(job, streamId, streamed, prompt);
+            }
 
-            String jsonResult = response.text();
+            GenerateContentResponse response = geminiGateway.generateContent(
+                    CODE_MODEL, prompt, Prompts.CODE.config());
 
+            String jsonResult = response.text();
+            return jsonResult == null ? Optional.empty() : Optional.ofNullable(signalCodec.readCode(jsonResult));
 
-            if (jsonResult != null) {
-                jsonResult = jsonResult.replace("```json", "").replace("```", "").trim();
+        } catch (CancellationException e) {
+            // superseded or expired: let the cache fail this generation, so whoever waits on it retries
+            throw e;
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Code for room " + job.getRoomId() + " cancelled");
             }
+            log.error("Code Gen Failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
 
-
-            Map<String, String> snippets = objectMapper.readValue(jsonResult, new TypeReference<>() {});
-
-            SignalResponse codeSignal = SignalResponse.builder()
+    /**
+     * Pushes a partial CODE_GENERATED frame each time another language finishes
+     * streaming. A superseded job stops reading, which closes the stream. If the
+     * streamed JSON stops parsing, the full answer is read once it is complete.
+     */
+    private Optional<Map<String, String>> streamCode(AgentJob job, String streamId, AtomicBoolean streamed,
+                                                     Content prompt) {
+        Map<String, String> snippets = new LinkedHashMap<>();
+        StringBuilder text = new StringBuilder();
+        StreamingJsonFieldReader reader = signalCodec.newFieldReader((language, code) -> {
+            snippets.put(language, code);
+            streamed.set(true);
+            socketHandler.broadcast(job.getRoomId(), SignalResponse.builder()
                     .type(SignalResponse.SignalType.CODE_GENERATED)
                     .title("Live Code Context")
-                    .description("Gemini 3 generated implementation in Java, Python, and Go.")
-                    .codeSnippets(snippets)
+                    .description("Drafting " + language + "...")
+                    .codeSnippets(Map.copyOf(snippets))
+                    .streamId(streamId)
+                    .partial(true)
                     .timestamp(Instant.now())
                     .confidence(1.0)
-                    .build();
-
-            socketHandler.sendSignal(session, codeSignal);
-            log.info("Live Code Sent to Frontend!");
-
-        } catch (Exception e) {
-            log.error("Code Gen Failed: " + e.getMessage());
+                    .build());
+        });
+
+        try (Stream<GenerateContentResponse> chunks = geminiGateway.generateContentStream(
+                CODE_MODEL, prompt, Prompts.CODE.config())) {
+            Iterator<GenerateContentResponse> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                if (!job.isCurrent()) {
+                    throw new CancellationException("Code for room " + job.getRoomId() + " superseded");
+                }
+                String delta = iterator.next().text();
+                if (delta != null) {
+                    text.append(delta);
+                    reader.feed(delta);
+                }
+            }
+        }
+        if (reader.isFailed()) {
+            try {
+                Map<String, String> parsed = signalCodec.readCode(text.toString());
+                if (parsed != null && !parsed.isEmpty()) {
+                    return Optional.of(parsed);
+                }
+            } catch (IOException e) {
+                log.warn("Unparseable code answer: " + e.getMessage());
+            }
         }
+        return snippets.isEmpty() ? Optional.empty() : Optional.of(snippets);
     }
 
-    private void sendLoadingSignal(WebSocketSession session) {
-        try {
-            SignalResponse loading = SignalResponse.builder()
-                    .type(SignalResponse.SignalType.IDLE)
-                    .title("Drafting Code...")
-                    .description("Generating polyglot implementation...")
-                    .timestamp(Instant.now())
-                    .confidence(1.0).build();
-            socketHandler.sendSignal(session, loading);
-        } catch (Exception e) {}
+    private void sendLoadingSignal(String roomId) {
+        socketHandler.broadcastStatic(roomId, LOADING);
     }
 }
\ No newline at end of file
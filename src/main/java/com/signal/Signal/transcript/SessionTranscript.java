@@ -0,0 +1,133 @@
+package com.signal.Signal.transcript;
+
+import com.signal.Signal.dto.SignalResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * What one meeting has said so far. Recent segments keep their verbatim text;
+ * once they exceed {@code maxRecentChars} the oldest are compacted into a
+ * one-line note of the signal they carried, and the oldest notes are dropped
+ * once those exceed {@code maxSummaryChars}. Memory per session is therefore
+ * bounded by the two limits.
+ */
+public class SessionTranscript {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final int maxRecentChars;
+    private final int maxSummaryChars;
+
+    private final ArrayDeque<String> recent = new ArrayDeque<>();
+    private final ArrayDeque<String> recentNotes = new ArrayDeque<>();
+    private final ArrayDeque<String> summary = new ArrayDeque<>();
+    private int recentChars;
+    private int summaryChars;
+    private int compacted;
+
+    public SessionTranscript(int maxRecentChars, int maxSummaryChars) {
+        this.maxRecentChars = maxRecentChars;
+        this.maxSummaryChars = maxSummaryChars;
+    }
+
+    public synchronized void append(SignalResponse signal) {
+        String text = signal.getTranscript() == null ? "" : signal.getTranscript().strip();
+        String note = note(signal);
+        if (text.isEmpty() && note == null) {
+            return;
+        }
+        String segment = note == null ? text : text.isEmpty() ? note : "[" + note + "] " + text;
+        recent.addLast(segment);
+        recentNotes.addLast(note == null ? "" : note);
+        recentChars += segment.length();
+
+        while (recentChars > maxRecentChars && recent.size() > 1) {
+            recentChars -= recent.pollFirst().length();
+            String oldNote = recentNotes.pollFirst();
+            compacted++;
+            if (!oldNote.isEmpty()) {
+                summary.addLast(oldNote);
+                summaryChars += oldNote.length();
+            }
+        }
+        while (summaryChars > maxSummaryChars && !summary.isEmpty()) {
+            summaryChars -= summary.pollFirst().length();
+        }
+    }
+
+    /**
+     * The transcript as agent context within roughly {@code tokenBudget} tokens:
+     * the compacted notes first, then as much of the most recent verbatim text as
+     * still fits. Older material is what gets cut when the budget is tight.
+     */
+    public synchronized String render(int tokenBudget) {
+        int budget = tokenBudget * CHARS_PER_TOKEN;
+        List<String> latest = new ArrayList<>();
+        int used = 0;
+        for (Iterator<String> it = recent.descendingIterator(); it.hasNext(); ) {
+            String segment = it.next();
+            if (used + segment.length() + 1 > budget && !latest.isEmpty()) {
+                break;
+            }
+            latest.add(segment.length() > budget ? segment.substring(segment.length() - budget) : segment);
+            used += Math.min(segment.length(), budget) + 1;
+        }
+        Collections.reverse(latest);
+
+        List<String> notes = new ArrayList<>();
+        for (Iterator<String> it = summary.descendingIterator(); it.hasNext(); ) {
+            String note = it.next();
+            if (used + note.length() + 3 > budget) {
+                break;
+            }
+            notes.add(note);
+            used += note.length() + 3;
+        }
+        Collections.reverse(notes);
+
+        StringBuilder context = new StringBuilder();
+        if (!notes.isEmpty()) {
+            context.append("Earlier in the meeting:\n");
+            notes.forEach(note -> context.append("- ").append(note).append('\n'));
+            context.append('\n');
+        }
+        if (!latest.isEmpty()) {
+            context.append("Recent discussion:\n").append(String.join("\n", latest));
+        }
+        return context.toString().strip();
+    }
+
+    /** The note of the most recent signal, or null if none was recorded yet. */
+    public synchronized String latestNote() {
+        for (Iterator<String> it = recentNotes.descendingIterator(); it.hasNext(); ) {
+            String note = it.next();
+            if (!note.isEmpty()) {
+                return note;
+            }
+        }
+        return summary.peekLast();
+    }
+
+    public synchronized int getChars() {
+        return recentChars + summaryChars;
+    }
+
+    public synchronized int getCompactedSegments() {
+        return compacted;
+    }
+
+    private static String note(SignalResponse signal) {
+        if (signal.getType() == null || signal.getType() == SignalResponse.SignalType.IDLE || signal.getTitle() == null) {
+            return null;
+        }
+        String note = signal.getType() + ": " + signal.getTitle();
+        if (signal.getDescription() != null && !signal.getDescription().isBlank()) {
+            note += " - " + signal.getDescription().strip();
+        }
+        return note;
+    }
+}
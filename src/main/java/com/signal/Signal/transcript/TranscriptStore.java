@@ -0,0 +1,58 @@
+package com.signal.Signal.transcript;
+
+import com.signal.Signal.dto.SignalResponse;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling per-session meeting context built from the analysed signals, so the
+ * board and code agents see the whole meeting rather than one sentence, without
+ * any audio being sent again.
+ */
+@Component
+public class TranscriptStore {
+
+    private final Map<String, SessionTranscript> transcripts = new ConcurrentHashMap<>();
+    private final int maxRecentChars;
+    private final int maxSummaryChars;
+    @Getter
+    private final int agentTokenBudget;
+
+    public TranscriptStore(@Value("${signal.transcript.max-recent-chars:8000}") int maxRecentChars,
+                           @Value("${signal.transcript.max-summary-chars:2000}") int maxSummaryChars,
+                           @Value("${signal.transcript.agent-token-budget:1500}") int agentTokenBudget) {
+        this.maxRecentChars = maxRecentChars;
+        this.maxSummaryChars = maxSummaryChars;
+        this.agentTokenBudget = agentTokenBudget;
+    }
+
+    public void record(String sessionId, SignalResponse signal) {
+        transcripts.computeIfAbsent(sessionId, id -> new SessionTranscript(maxRecentChars, maxSummaryChars))
+                .append(signal);
+    }
+
+    /** The session's context within the agent token budget; empty if nothing was said yet. */
+    public String contextFor(String sessionId) {
+        SessionTranscript transcript = transcripts.get(sessionId);
+        return transcript == null ? "" : transcript.render(agentTokenBudget);
+    }
+
+    /** What the session's most recent signal was about, if it had any yet. */
+    public Optional<String> latestNote(String sessionId) {
+        SessionTranscript transcript = transcripts.get(sessionId);
+        return Optional.ofNullable(transcript == null ? null : transcript.latestNote());
+    }
+
+    public void remove(String sessionId) {
+        transcripts.remove(sessionId);
+    }
+
+    public long getTotalChars() {
+        return transcripts.values().stream().mapToLong(SessionTranscript::getChars).sum();
+    }
+}
@@ -0,0 +1,65 @@
+package com.signal.Signal.trigger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cool-downs per session and agent. Each entry is the instant its cool-down
+ * ends; entries past their expiry are swept every few hundred acquisitions, so
+ * sessions that vanish without a close do not accumulate.
+ */
+public class CooldownTracker {
+
+    private static final int SWEEP_INTERVAL = 256;
+
+    private final Map<Key, Long> readyAt = new ConcurrentHashMap<>();
+    private final Duration expiry;
+    private final Clock clock;
+    private final AtomicInteger acquisitions = new AtomicInteger();
+
+    public CooldownTracker(Duration expiry, Clock clock) {
+        this.expiry = expiry;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the cool-down if none is running.
+     *
+     * @return false if the agent is still cooling down for this session
+     */
+    public boolean tryAcquire(String sessionId, String agent, Duration cooldown) {
+        if (acquisitions.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep();
+        }
+        long now = clock.millis();
+        AtomicBoolean acquired = new AtomicBoolean();
+        readyAt.compute(new Key(sessionId, agent), (key, until) -> {
+            if (until != null && until > now) {
+                return until;
+            }
+            acquired.set(true);
+            return now + cooldown.toMillis();
+        });
+        return acquired.get();
+    }
+
+    public void clear(String sessionId) {
+        readyAt.keySet().removeIf(key -> key.sessionId().equals(sessionId));
+    }
+
+    public int size() {
+        return readyAt.size();
+    }
+
+    void sweep() {
+        long cutoff = clock.millis() - expiry.toMillis();
+        readyAt.values().removeIf(until -> until < cutoff);
+    }
+
+    private record Key(String sessionId, String agent) {
+    }
+}
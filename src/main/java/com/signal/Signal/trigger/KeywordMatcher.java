@@ -0,0 +1,121 @@
+package com.signal.Signal.trigger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Case-insensitive Aho-Corasick automaton over a fixed keyword list. The trie
+ * is compiled into a dense transition table, so a scan touches each character
+ * of the text once regardless of how many keywords there are. Matching is by
+ * substring, like {@link String#contains}.
+ */
+public class KeywordMatcher {
+
+    private final List<String> keywords;
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int alphabetSize;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    public KeywordMatcher(List<String> keywords) {
+        this.keywords = keywords.stream().map(k -> k.toLowerCase(Locale.ROOT)).toList();
+
+        int classes = 1;
+        for (String keyword : this.keywords) {
+            for (char c : keyword.toCharArray()) {
+                if (c < 128) {
+                    if (asciiClasses[c] == 0) {
+                        asciiClasses[c] = classes++;
+                    }
+                } else if (!otherClasses.containsKey(c)) {
+                    otherClasses.put(c, classes++);
+                }
+            }
+        }
+        this.alphabetSize = classes;
+
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> matches = new ArrayList<>();
+        trie.add(newState());
+        matches.add(new ArrayList<>());
+        for (int k = 0; k < this.keywords.size(); k++) {
+            int state = 0;
+            for (char c : this.keywords.get(k).toCharArray()) {
+                int symbol = classOf(c);
+                if (trie.get(state)[symbol] <= 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState());
+                    matches.add(new ArrayList<>());
+                }
+                state = trie.get(state)[symbol];
+            }
+            matches.get(state).add(k);
+        }
+
+        // Breadth-first: fill missing edges from each state's failure state.
+        int[] failure = new int[trie.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = trie.get(0);
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            if (root[symbol] > 0) {
+                queue.add(root[symbol]);
+            } else {
+                root[symbol] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = trie.get(state);
+            matches.get(state).addAll(matches.get(failure[state]));
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int fallback = trie.get(failure[state])[symbol];
+                if (row[symbol] > 0) {
+                    failure[row[symbol]] = fallback;
+                    queue.add(row[symbol]);
+                } else {
+                    row[symbol] = fallback;
+                }
+            }
+        }
+
+        this.transitions = trie.toArray(new int[0][]);
+        this.outputs = matches.stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).distinct().toArray())
+                .toArray(int[][]::new);
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /** Reports the index of every keyword occurrence, in order of where it ends in the text. */
+    public void forEachMatch(CharSequence text, IntConsumer keyword) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state][classOf(Character.toLowerCase(text.charAt(i)))];
+            for (int match : outputs[state]) {
+                keyword.accept(match);
+            }
+        }
+    }
+
+    private int[] newState() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        return otherClasses.getOrDefault(c, 0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.signal.Signal.trigger;
+
+import com.signal.Signal.dto.SignalResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Decides which agents a signal should start. All rule keywords are compiled
+ * into one {@link KeywordMatcher}, so evaluation is a single pass over the text
+ * however many rules are configured.
+ */
+@Slf4j
+public class TriggerEngine {
+
+    private final List<TriggerProperties.Rule> rules;
+    private final KeywordMatcher matcher;
+    private final int[][] rulesByKeyword;
+    private final CooldownTracker cooldowns;
+
+    public TriggerEngine(TriggerProperties properties, Clock clock) {
+        this.rules = List.copyOf(properties.getRules());
+        this.cooldowns = new CooldownTracker(properties.getCooldownExpiry(), clock);
+
+        Map<String, List<Integer>> keywordRules = new LinkedHashMap<>();
+        for (int r = 0; r < rules.size(); r++) {
+            TriggerProperties.Rule rule = rules.get(r);
+            if (rule.getName() == null || rule.getAgent() == null) {
+                throw new IllegalArgumentException("signal.triggers.rules[" + r + "] needs a name and an agent");
+            }
+            for (String keyword : rule.getKeywords()) {
+                if (!keyword.isBlank()) {
+                    keywordRules.computeIfAbsent(keyword.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(r);
+                }
+            }
+        }
+        this.matcher = new KeywordMatcher(new ArrayList<>(keywordRules.keySet()));
+        this.rulesByKeyword = keywordRules.values().stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+        log.info("Compiled " + rules.size() + " trigger rules over " + keywordRules.size() + " keywords.");
+    }
+
+    public List<TriggerMatch> evaluate(String sessionId, SignalResponse.SignalType type, String text) {
+        return evaluate(sessionId, type, text, agent -> true);
+    }
+
+    /**
+     * Matches a signal against every rule and starts the cool-down of each agent
+     * that fires. At most one match per agent is returned; rules are reported in
+     * configuration order with the first keyword that hit them. Rules for agents
+     * that are not {@code enabled} are skipped without touching their cool-down.
+     */
+    public List<TriggerMatch> evaluate(String sessionId, SignalResponse.SignalType type, String text,
+                                       Predicate<String> enabled) {
+        if (text == null || text.isEmpty() || rules.isEmpty()) {
+            return List.of();
+        }
+        String[] firstKeyword = new String[rules.size()];
+        matcher.forEachMatch(text, keyword -> {
+            for (int r : rulesByKeyword[keyword]) {
+                if (firstKeyword[r] == null) {
+                    firstKeyword[r] = matcher.getKeywords().get(keyword);
+                }
+            }
+        });
+
+        List<TriggerMatch> matches = new ArrayList<>();
+        List<String> agents = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            TriggerProperties.Rule rule = rules.get(r);
+            if (firstKeyword[r] == null || !rule.getTypes().contains(type) || agents.contains(rule.getAgent())
+                    || !enabled.test(rule.getAgent())) {
+                continue;
+            }
+            agents.add(rule.getAgent());
+            boolean acquired = cooldowns.tryAcquire(sessionId, rule.getAgent(), rule.getCooldown());
+            matches.add(new TriggerMatch(rule.getName(), rule.getAgent(), firstKeyword[r], !acquired));
+        }
+        return matches;
+    }
+
+    /** Forgets a session's cool-downs once it disconnects. */
+    public void release(String sessionId) {
+        cooldowns.clear(sessionId);
+    }
+
+    public int getTrackedCooldowns() {
+        return cooldowns.size();
+    }
+}
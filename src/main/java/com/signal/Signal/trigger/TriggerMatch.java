@@ -0,0 +1,8 @@
+package com.signal.Signal.trigger;
+
+/**
+ * A rule whose keyword occurred in a signal. {@code suppressed} is set when the
+ * session's cool-down for the agent was still running, so nothing should run.
+ */
+public record TriggerMatch(String rule, String agent, String keyword, boolean suppressed) {
+}
@@ -0,0 +1,34 @@
+package com.signal.Signal.trigger;
+
+import com.signal.Signal.dto.SignalResponse;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Agent dispatch rules, bound from {@code signal.triggers}. A rule fires when
+ * any of its keywords occurs in a signal's description.
+ */
+@Data
+@ConfigurationProperties(prefix = "signal.triggers")
+public class TriggerProperties {
+
+    private List<Rule> rules = new ArrayList<>();
+
+    /** Idle per-session cool-down entries are dropped after this long. */
+    private Duration cooldownExpiry = Duration.ofMinutes(10);
+
+    @Data
+    public static class Rule {
+        private String name;
+        /** Agent to dispatch; rules sharing an agent share its cool-down. */
+        private String agent;
+        private List<String> keywords = new ArrayList<>();
+        private Duration cooldown = Duration.ofSeconds(10);
+        private Set<SignalResponse.SignalType> types = Set.of(SignalResponse.SignalType.DECISION_POINT);
+    }
+}
@@ -1,243 +1,749 @@
 package com.signal.Signal.websocket;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.genai.Client;
 import com.google.genai.types.*;
+import com.signal.Signal.audio.AudioSegmentPool;
+import com.signal.Signal.audio.AudioSegmenter;
+import com.signal.Signal.audio.AudioWindow;
+import com.signal.Signal.audio.WebmSegmenter;
+import com.signal.Signal.cluster.RoomFrame;
+import com.signal.Signal.cluster.SessionRegistry;
+import com.signal.Signal.cluster.SignalBus;
+import com.signal.Signal.codec.SignalCodec;
+import com.signal.Signal.codec.StreamingJsonFieldReader;
+import com.signal.Signal.dedup.SignalDeduplicator;
+import com.signal.Signal.dto.ClientCommand;
 import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.execution.AgentJob;
+import com.signal.Signal.execution.AgentJobTracker;
+import com.signal.Signal.gateway.GeminiGateway;
+import com.signal.Signal.history.HistoryService;
+import com.signal.Signal.history.HistoryWriter;
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.outbound.OutboundQueue;
+import com.signal.Signal.prompt.ContextCache;
+import com.signal.Signal.room.Room;
+import com.signal.Signal.room.RoomRegistry;
+import com.signal.Signal.room.SessionSettings;
+import com.signal.Signal.routing.ModelRouter;
+import com.signal.Signal.scheduler.InferenceScheduler;
+import com.signal.Signal.scheduler.InferenceTask;
 import com.signal.Signal.service.SignalBoardService;
 import com.signal.Signal.service.SignalCodeService;
+import com.signal.Signal.transcript.TranscriptStore;
+import com.signal.Signal.trigger.TriggerEngine;
+import com.signal.Signal.trigger.TriggerMatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.net.URI;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Slf4j
 @Component
 public class SignalSocketHandler extends TextWebSocketHandler {
 
-    private final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-    private final ObjectMapper objectMapper;
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
-    private final Client geminiClient;
+    private final SignalCodec signalCodec;
+    private final InferenceScheduler inferenceScheduler;
+    private final GeminiGateway geminiGateway;
     private final SignalBoardService signalBoardService;
     private final SignalCodeService signalCodeService;
-
-    @Value("${google.cloud.project-id}")
-    private String projectId;
-
-    private byte[] audioBuffer = new byte[0];
-    private static final int BUFFER_THRESHOLD = 60000;
-
-    private final AtomicLong lastDiagramTime = new AtomicLong(0);
-    private final AtomicLong lastCodeTime = new AtomicLong(0);
-
-
-    public SignalSocketHandler(ObjectMapper objectMapper,
-                               Client geminiClient,
+    private final AudioSegmentPool audioSegmentPool;
+    private final RoomRegistry roomRegistry;
+    private final SessionRegistry sessionRegistry;
+    private final SignalBus signalBus;
+    private final SignalMetrics signalMetrics;
+    private final TriggerEngine triggerEngine;
+    private final ModelRouter modelRouter;
+    private final TranscriptStore transcriptStore;
+    private final HistoryWriter historyWriter;
+    private final HistoryService historyService;
+    private final ExecutorService signalExecutor;
+    private final ContextCache analysisContextCache;
+    private final AgentJobTracker agentJobTracker;
+    private final SignalDeduplicator signalDeduplicator;
+
+    @Value("${signal.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    private static final SignalResponse WELCOME = SignalResponse.builder()
+            .type(SignalResponse.SignalType.IDLE)
+            .title("Signal Active")
+            .description("Listening for high-impact meeting moments...")
+            .confidence(1.0)
+            .build();
+
+    private static final SignalResponse PAUSED = SignalResponse.builder()
+            .type(SignalResponse.SignalType.IDLE)
+            .title("Signal Paused")
+            .description("Analysis is paused until the publisher resumes it.")
+            .confidence(1.0)
+            .build();
+
+    private static final Set<String> AGENTS = Set.of("board", "code");
+
+    // Focus for an agent requested without one before the room had any signal.
+    private static final String DEFAULT_FOCUS = "the most recent decision in the meeting";
+
+    private static final int MAX_FOCUS_CHARS = 500;
+
+    private static final Pattern AUDIO_FORMAT = Pattern.compile("audio/[a-z0-9.+-]{1,40}");
+
+    // Upper bound for audio merged while a room's inference is still running; the longest window the segmenter cuts.
+    private static final int MAX_MERGED_MILLIS = WebmSegmenter.MAX_WINDOW_MILLIS;
+
+    private static final Pattern ROOM_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+
+    public SignalSocketHandler(SignalCodec signalCodec,
+                               GeminiGateway geminiGateway,
                                @Lazy SignalBoardService signalBoardService,
-                               @Lazy SignalCodeService signalCodeService) {
-        this.objectMapper = objectMapper;
-        this.geminiClient = geminiClient;
+                               @Lazy SignalCodeService signalCodeService,
+                               AudioSegmentPool audioSegmentPool,
+                               RoomRegistry roomRegistry,
+                               SessionRegistry sessionRegistry,
+                               SignalBus signalBus,
+                               InferenceScheduler inferenceScheduler,
+                               SignalMetrics signalMetrics,
+                               TriggerEngine triggerEngine,
+                               ModelRouter modelRouter,
+                               TranscriptStore transcriptStore,
+                               HistoryWriter historyWriter,
+                               HistoryService historyService,
+                               ExecutorService signalExecutor,
+                               ContextCache analysisContextCache,
+                               AgentJobTracker agentJobTracker,
+                               SignalDeduplicator signalDeduplicator) {
+        this.signalCodec = signalCodec;
+        this.geminiGateway = geminiGateway;
         this.signalBoardService = signalBoardService;
         this.signalCodeService = signalCodeService;
+        this.audioSegmentPool = audioSegmentPool;
+        this.roomRegistry = roomRegistry;
+        this.sessionRegistry = sessionRegistry;
+        this.signalBus = signalBus;
+        this.inferenceScheduler = inferenceScheduler;
+        this.signalMetrics = signalMetrics;
+        this.triggerEngine = triggerEngine;
+        this.modelRouter = modelRouter;
+        this.transcriptStore = transcriptStore;
+        this.historyWriter = historyWriter;
+        this.historyService = historyService;
+        this.signalExecutor = signalExecutor;
+        this.analysisContextCache = analysisContextCache;
+        this.agentJobTracker = agentJobTracker;
+        this.signalDeduplicator = signalDeduplicator;
+        signalBus.subscribe(this::deliver);
     }
 
+    /**
+     * {@code ?room=<id>&role=publisher|subscriber} joins a shared room; without a
+     * room the session gets a private one and publishes to it. A room may span
+     * nodes; its publisher is unique across the cluster. {@code since=<instant>}
+     * replays what the room sent after that time, for a client that reconnects.
+     */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.add(session);
-        log.info("Engineer connected: " + session.getId());
+        URI uri = session.getUri();
+        var params = uri == null ? null : UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        String roomId = params == null ? null : params.getFirst("room");
+        Room.Role requested = Room.Role.PUBLISHER;
+        if (roomId == null) {
+            // session ids are only unique per node
+            roomId = sessionRegistry.getNodeId() + "/" + session.getId();
+        } else if (!ROOM_ID.matcher(roomId).matches()) {
+            log.warn("Rejected session " + session.getId() + ": invalid room id.");
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("invalid room id"));
+            return;
+        } else if (!"publisher".equalsIgnoreCase(params.getFirst("role"))) {
+            requested = Room.Role.SUBSCRIBER;
+        }
 
-        SignalResponse welcome = SignalResponse.builder()
-                .type(SignalResponse.SignalType.IDLE)
-                .title("Signal Active")
-                .description("Listening for high-impact meeting moments...")
-                .timestamp(Instant.now())
-                .confidence(1.0)
-                .build();
+        boolean claimed = requested == Room.Role.PUBLISHER && sessionRegistry.claimPublisher(roomId, session.getId());
+        RoomRegistry.Membership membership = roomRegistry.join(roomId, session, claimed ? requested : Room.Role.SUBSCRIBER);
+        Room.Role granted = membership.role();
+        if (claimed && granted != Room.Role.PUBLISHER) {
+            // another session on this node got the room first
+            sessionRegistry.releasePublisher(roomId, session.getId());
+        }
+        if (granted != requested) {
+            log.info("Room " + roomId + " already has a publisher. " + session.getId() + " joins as subscriber.");
+        }
+        log.info("Engineer connected: " + session.getId() + " (room " + roomId + ", " + granted + ")");
+
+        OutboundQueue outbound = membership.outbound();
+        outbound.offer(signalCodec.staticFrame(WELCOME).render(Instant.now()), OutboundQueue.Lane.PRIORITY);
+
+        Instant since = params == null ? null : parseInstant(params.getFirst("since"));
+        if (since != null) {
+            catchUp(roomId, since, outbound);
+        }
+    }
 
-        sendSignal(session, welcome);
+    private void catchUp(String roomId, Instant since, OutboundQueue outbound) {
+        CompletableFuture.supplyAsync(() -> historyService.catchUp(roomId, since), signalExecutor)
+                .whenComplete((frames, error) -> {
+                    if (error != null) {
+                        log.error("Catch-up for room " + roomId + " failed: " + error.getMessage());
+                        return;
+                    }
+                    // bulk lane: live analysis still overtakes the backlog
+                    frames.forEach(frame -> outbound.offer(new TextMessage(frame), OutboundQueue.Lane.BULK));
+                    log.info("Replayed " + frames.size() + " signal(s) to a client rejoining room " + roomId);
+                });
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return value.chars().allMatch(Character::isDigit)
+                    ? Instant.ofEpochMilli(Long.parseLong(value))
+                    : Instant.parse(value);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        Room room = roomRegistry.roomOf(session.getId());
+        if (room != null) {
+            sessionRegistry.releasePublisher(room.getId(), session.getId());
+        }
+        Room closed = roomRegistry.leave(session.getId());
+        if (closed != null) {
+            inferenceScheduler.cancel(closed.getId());
+            triggerEngine.release(closed.getId());
+            agentJobTracker.release(closed.getId());
+            signalDeduplicator.release(closed.getId());
+            transcriptStore.remove(closed.getId());
+            log.info("Room " + closed.getId() + " closed.");
+        }
         log.info("Engineer disconnected: " + session.getId());
     }
 
+    /**
+     * One {@link ClientCommand} per text frame, e.g. {@code {"type":"PAUSE"}}.
+     * Each is answered, in order, with a COMMAND_ACCEPTED or COMMAND_REJECTED
+     * frame to the sender; a CREDIT is only answered when rejected. CREDIT
+     * applies to the sending session; the other commands spend model calls or
+     * steer the room's pipeline, so only its publisher may send them.
+     */
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-        String payload = message.getPayload();
-        log.info("Received command: " + payload);
+        Room room = roomRegistry.roomOf(session.getId());
+        OutboundQueue outbound = room == null ? null : room.getSubscriber(session.getId());
+        if (outbound == null) {
+            return;
+        }
+        ClientCommand command;
+        try {
+            command = signalCodec.readCommand(message.getPayload());
+        } catch (IOException e) {
+            command = null;
+        }
+        if (command == null || command.getType() == null) {
+            log.debug("Unreadable command from " + session.getId() + ": " + message.getPayload());
+            reply(outbound, null, false, "Expected a JSON object with a known type");
+            return;
+        }
+
+        ClientCommand.Type type = command.getType();
+        try {
+            String result = switch (type) {
+                case CREDIT -> credit(outbound, command);
+                case PAUSE -> pause(room, session, true);
+                case RESUME -> pause(room, session, false);
+                case REQUEST_AGENT -> requestAgent(room, session, command);
+                case SETTINGS -> applySettings(room, session, command);
+            };
+            signalMetrics.command(type.name(), true);
+            if (result != null) {
+                reply(outbound, type, true, result);
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected " + type + " from " + session.getId() + ": " + e.getMessage());
+            signalMetrics.command(type.name(), false);
+            reply(outbound, type, false, e.getMessage());
+        }
+    }
+
+    private String credit(OutboundQueue outbound, ClientCommand command) {
+        Integer frames = command.getFrames();
+        if (frames == null || frames <= 0) {
+            throw new IllegalArgumentException("frames must be a positive number");
+        }
+        outbound.grant(frames);
+        return null;
+    }
+
+    private String pause(Room room, WebSocketSession session, boolean paused) {
+        requirePublisher(room, session, paused ? "pause" : "resume");
+        if (room.isPaused() == paused) {
+            return paused ? "Already paused" : "Already running";
+        }
+        room.setPaused(paused);
+        if (paused) {
+            // the window being analysed is of no interest any more
+            inferenceScheduler.cancel(room.getId());
+        }
+        log.info("Analysis " + (paused ? "paused" : "resumed") + " in room " + room.getId());
+        broadcastStatic(room.getId(), paused ? PAUSED : WELCOME);
+        return paused ? "Analysis paused" : "Analysis resumed";
+    }
+
+    private String requestAgent(Room room, WebSocketSession session, ClientCommand command) {
+        requirePublisher(room, session, "request agents");
+        String agent = command.getAgent();
+        String focus = command.getFocus() == null ? "" : command.getFocus().strip();
+        if (focus.length() > MAX_FOCUS_CHARS) {
+            throw new IllegalArgumentException("focus is longer than " + MAX_FOCUS_CHARS + " characters");
+        }
+        if (focus.isEmpty()) {
+            // follow the meeting, so a repeat request is not mistaken for work already running
+            focus = transcriptStore.latestNote(room.getId()).orElse(DEFAULT_FOCUS);
+        }
+        Consumer<AgentJob> job = agentFor(agent, focus, transcriptStore.contextFor(room.getId()));
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown agent " + agent + "; known: " + AGENTS);
+        }
+        log.info("Client requested the " + agent + " agent in room " + room.getId());
+        signalMetrics.triggered("client", agent);
+        List<AgentJob> started = agentJobTracker.dispatch(room.getId(), room.getScope(), focus, Map.of(agent, job));
+        return started.isEmpty() ? "The " + agent + " agent is already working on this" : "Started the " + agent + " agent";
+    }
+
+    /** Validates every field before applying any of them. */
+    private String applySettings(Room room, WebSocketSession session, ClientCommand command) {
+        requirePublisher(room, session, "change settings");
+        SessionSettings current = room.getSettings();
+
+        Set<String> agents = current.agents();
+        if (command.getAgents() != null) {
+            for (String agent : command.getAgents()) {
+                if (!AGENTS.contains(agent)) {
+                    throw new IllegalArgumentException("Unknown agent " + agent + "; known: " + AGENTS);
+                }
+            }
+            agents = Set.copyOf(command.getAgents());
+        }
+        String audioMimeType = current.audioMimeType();
+        if (command.getAudioFormat() != null) {
+            audioMimeType = audioMimeType(command.getAudioFormat(), command.getSampleRate());
+        } else if (command.getSampleRate() != null) {
+            throw new IllegalArgumentException("sampleRate needs an audioFormat");
+        }
+        ModelRouter.Tier tier = command.getModelTier() == null ? current.modelTier() : command.getModelTier();
+        AudioSegmenter audio = room.getAudio();
+        if (command.getWindowMillis() != null && (command.getWindowMillis() <= 0 || audio == null)) {
+            throw new IllegalArgumentException("windowMillis must be positive, and the room must have audio");
+        }
+
+        SessionSettings settings = new SessionSettings(tier, agents, audioMimeType);
+        room.setSettings(settings);
+        String result = "model tier " + tier + ", agents " + (agents == null ? AGENTS : agents) + ", audio " + audioMimeType;
+        if (command.getWindowMillis() != null) {
+            result += ", window " + audio.setWindowMillis(command.getWindowMillis()) + " ms";
+        }
+        log.info("Room " + room.getId() + " settings: " + result);
+        return result;
+    }
+
+    /**
+     * The format's MIME type for the model. Containers carry their own sample
+     * rate; raw PCM needs it declared.
+     */
+    private static String audioMimeType(String format, Integer sampleRate) {
+        String base = format.split(";", 2)[0].strip().toLowerCase(Locale.ROOT);
+        if (!AUDIO_FORMAT.matcher(base).matches()) {
+            throw new IllegalArgumentException("Unsupported audio format " + format);
+        }
+        if (sampleRate != null && (sampleRate < 8000 || sampleRate > 192000)) {
+            throw new IllegalArgumentException("sampleRate must be between 8000 and 192000");
+        }
+        boolean raw = base.equals("audio/pcm") || base.equals("audio/l16");
+        if (raw && sampleRate == null) {
+            throw new IllegalArgumentException(base + " needs a sampleRate");
+        }
+        return raw ? base + ";rate=" + sampleRate : base;
+    }
+
+    private static void requirePublisher(Room room, WebSocketSession session, String action) {
+        if (!room.isPublisher(session.getId())) {
+            throw new IllegalArgumentException("Only the room's publisher may " + action);
+        }
+    }
+
+    private void reply(OutboundQueue outbound, ClientCommand.Type type, boolean accepted, String result) {
+        SignalResponse reply = SignalResponse.builder()
+                .type(accepted ? SignalResponse.SignalType.COMMAND_ACCEPTED : SignalResponse.SignalType.COMMAND_REJECTED)
+                .title(type == null ? null : type.name())
+                .description(result)
+                .confidence(1.0)
+                .timestamp(Instant.now())
+                .build();
+        try {
+            outbound.offer(signalCodec.encode(reply), OutboundQueue.Lane.PRIORITY);
+        } catch (IOException e) {
+            log.error("Error encoding command reply", e);
+        }
     }
 
     @Override
     protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
         try {
-            byte[] newChunk = message.getPayload().array();
-            appendAudio(newChunk);
-
-            if (audioBuffer.length > BUFFER_THRESHOLD) {
-                byte[] audioToProcess = audioBuffer.clone();
-                audioBuffer = new byte[0];
-                executorService.submit(() -> processAudioWithGemini(session, audioToProcess));
+            Room room = roomRegistry.roomOf(session.getId());
+            if (room == null) {
+                return;
+            }
+            AudioSegmenter segmenter = room.getAudio();
+            if (segmenter == null || !room.isPublisher(session.getId())) {
+                log.debug("Ignoring audio from subscriber " + session.getId() + " in room " + room.getId());
+                return;
+            }
+            boolean accepted = segmenter.accept(message.getPayload(), window -> {
+                // while paused the stream is still parsed, so it resumes on a block boundary
+                if (room.isPaused()) {
+                    window.release();
+                    return;
+                }
+                signalMetrics.recordBufferFill(window.getFillNanos());
+                inferenceScheduler.submit(room.getId(), new AudioInferenceTask(room, window));
+            });
+            if (!accepted) {
+                log.warn("Audio buffer limit reached for room " + room.getId() + ". Dropping frame.");
             }
         } catch (Exception e) {
             log.error("Error handling binary audio", e);
         }
     }
 
-    private void processAudioWithGemini(WebSocketSession session, byte[] audioData) {
+    void processAudioWithGemini(Room room, AudioWindow audioData) {
+        if (room.isPaused()) {
+            return;
+        }
+        SessionSettings settings = room.getSettings();
+        String streamId = UUID.randomUUID().toString();
+        AtomicBoolean earlySent = new AtomicBoolean();
+        boolean finished = false;
         try {
-            if (geminiClient == null) {
-                log.warn("Gemini Client not initialized. Skipping.");
-                return;
-            }
-
-            String systemText = """
-            You are SIGNAL, a strict technical meeting analyst.
-            
-            CONTEXT: You are listening to a Software Engineering meeting.
-            
-            YOUR JOB:
-            1. Filter out silence, background noise, or non-technical chatter.
-            2. Only trigger if you hear explicit Engineering Intent:
-               - DECISION_POINT: "We will use Postgres", "Let's merge this."
-               - INPUT_REQUIRED: "What do you think?", "Any objections?"
-               - RISK_DETECTED: "This will crash prod", "Latency is too high."
-            
-            CONSTRAINT:
-            If the audio is unclear, silence, or not about software engineering -> Return { "type": "IDLE" }.
-            DO NOT INVENT TEXT. DO NOT HALLUCINATE.
-
-            Output JSON:
-            {
-              "type": "DECISION_POINT" | "INPUT_REQUIRED" | "RISK_DETECTED" | "IDLE",
-              "title": "Short Headline",
-              "description": "Specific details.",
-              "suggestedResponse": "First-person professional response.",
-              "confidence": 0.0 to 1.0
-            }
-            """;
-
-            Content systemInstruction = Content.builder()
-                    .parts(Collections.singletonList(Part.builder().text(systemText).build()))
-                    .build();
-
-            GenerateContentConfig config = GenerateContentConfig.builder()
-                    .responseMimeType("application/json")
-                    .systemInstruction(systemInstruction)
-                    .temperature(0.2f)
-                    .build();
-
             Content userContent = Content.builder()
                     .role("user")
                     .parts(Collections.singletonList(
                             Part.builder()
                                     .inlineData(Blob.builder()
-                                            .mimeType("audio/webm")
-                                            .data(audioData)
+                                            .mimeType(settings.audioMimeType())
+                                            .data(audioData.toByteArray())
                                             .build())
                                     .build()
                     ))
                     .build();
 
-            GenerateContentResponse response;
+            Optional<SignalResponse> result = modelRouter.route(settings.modelTier(),
+                    model -> analyse(room.getId(), streamId, audioData.getReceivedAt(), earlySent, model, userContent),
+                    Objects::nonNull);
 
-            try {
-                response = geminiClient.models.generateContent(
-                        "gemini-3-pro-preview",
-                        userContent,
-                        config
-                );
-            } catch (Exception e) {
-                if (e.getMessage().contains("429") || e.getMessage().contains("Resource exhausted") || e.getMessage().contains("404")) {
-                    log.warn("Gemini 3 Pro Issue (" + e.getMessage() + "). Switching to Flash...");
-                    response = geminiClient.models.generateContent(
-                            "gemini-3-flash-preview",
-                            userContent,
-                            config
-                    );
-                } else {
-                    throw e;
-                }
+            SignalResponse signal = result.filter(s -> s.getType() != SignalResponse.SignalType.IDLE).orElse(null);
+            if (signal == null) {
+                return;
+            }
+            boolean admitted = signalDeduplicator.admit(room.getId(), signal);
+            if (admitted) {
+                transcriptStore.record(room.getId(), signal);
+            }
+            // a repeat whose early frame already went out is still completed, but triggers nothing
+            if (!admitted && !earlySent.get()) {
+                log.debug("Suppressed near-duplicate " + signal.getType() + " in room " + room.getId());
+                return;
             }
+            signal.setTimestamp(Instant.now());
+            signal.setAudioReceivedAt(audioData.getReceivedAt());
+            if (streamingEnabled) {
+                signal.setStreamId(streamId);
+            }
+
+            broadcast(room.getId(), signal);
+            finished = true;
+
+            if (admitted) {
+                dispatchAgents(room, signal);
+            }
+
+        } catch (Exception e) {
+            log.error("Signal Processing Error: " + e.getMessage());
+        } finally {
+            if (earlySent.get() && !finished) {
+                endStream(room.getId(), streamId);
+            }
+        }
+    }
 
-            String resultText = response.text();
-            if (resultText != null) {
-                resultText = resultText.replace("```json", "").replace("```", "").trim();
+    /** One model's answer parsed into a signal, or null if it gave no usable answer. */
+    private SignalResponse analyse(String roomId, String streamId, Instant audioReceivedAt, AtomicBoolean earlySent,
+                                   String model, Content userContent) {
+        GenerateContentConfig config = analysisContextCache.configFor(model);
+        String resultText = requestAnalysis(roomId, streamId, audioReceivedAt, earlySent, model, userContent, config);
+        if (resultText == null) {
+            return null;
+        }
+        try {
+            long parseStart = System.nanoTime();
+            SignalResponse signal = signalCodec.readSignal(resultText);
+            signalMetrics.recordParse(System.nanoTime() - parseStart);
+            return signal;
+        } catch (IOException e) {
+            log.warn("Unparseable answer from " + model + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-                SignalResponse signal = objectMapper.readValue(resultText, SignalResponse.class);
+    /**
+     * Returns the model's full answer. When streaming, an early partial frame with
+     * the signal's type and title is sent as soon as both fields have parsed, once
+     * per stream even when a hedged request races this one.
+     */
+    private String requestAnalysis(String roomId, String streamId, Instant audioReceivedAt, AtomicBoolean earlySent,
+                                   String model, Content userContent, GenerateContentConfig config) {
+        if (!streamingEnabled) {
+            return geminiGateway.generateContent(model, userContent, config).text();
+        }
+
+        StringBuilder text = new StringBuilder();
+        SignalResponse early = SignalResponse.builder()
+                .streamId(streamId)
+                .partial(true)
+                .audioReceivedAt(audioReceivedAt)
+                .build();
+        AtomicBoolean settled = new AtomicBoolean();
+        StreamingJsonFieldReader reader = signalCodec.newFieldReader((field, value) -> {
+            if (settled.get()) {
+                return;
+            }
+            if ("type".equals(field)) {
+                try {
+                    early.setType(SignalResponse.SignalType.valueOf(value));
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    settled.set(true);
+                }
+            } else if ("title".equals(field)) {
+                early.setTitle(value);
+            }
+            if (early.getType() != null && early.getTitle() != null && settled.compareAndSet(false, true)
+                    && early.getType() != SignalResponse.SignalType.IDLE
+                    && !signalDeduplicator.isLikelyDuplicate(roomId, early.getType(), early.getTitle())
+                    && earlySent.compareAndSet(false, true)) {
+                early.setTimestamp(Instant.now());
+                broadcast(roomId, early);
+            }
+        });
 
-                if (signal.getType() != SignalResponse.SignalType.IDLE) {
-                    signal.setTimestamp(Instant.now());
+        try (Stream<GenerateContentResponse> chunks = geminiGateway.generateContentStream(model, userContent, config)) {
+            Iterator<GenerateContentResponse> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Analysis by " + model + " cancelled");
+                }
+                String delta = iterator.next().text();
+                if (delta != null) {
+                    text.append(delta);
+                    reader.feed(delta);
+                }
+            }
+        }
+        return text.isEmpty() ? null : text.toString();
+    }
 
-                    sendSignal(session, signal);
+    private void dispatchAgents(Room room, SignalResponse signal) {
+        SessionSettings settings = room.getSettings();
+        // disabled agents are left out before their cool-downs are spent
+        List<TriggerMatch> matches = triggerEngine.evaluate(room.getId(), signal.getType(), signal.getDescription(),
+                settings::isEnabled);
+        String meetingContext = matches.isEmpty() ? "" : transcriptStore.contextFor(room.getId());
+        Map<String, Consumer<AgentJob>> agents = new LinkedHashMap<>();
+        for (TriggerMatch match : matches) {
+            if (match.suppressed()) {
+                log.info("Agent " + match.agent() + " cool-down active (rule " + match.rule() + ")");
+                signalMetrics.cooldownSuppressed(match.agent());
+                continue;
+            }
+            Consumer<AgentJob> agent = agentFor(match.agent(), signal.getDescription(), meetingContext);
+            if (agent == null) {
+                log.warn("Trigger rule " + match.rule() + " names unknown agent " + match.agent());
+                continue;
+            }
+            log.info("Triggering " + match.agent() + " agent (rule " + match.rule() + ", keyword '" + match.keyword() + "')");
+            signalMetrics.triggered(match.rule(), match.agent());
+            agents.putIfAbsent(match.agent(), agent);
+        }
+        if (!agents.isEmpty()) {
+            // the agents run in parallel and supersede the room's older jobs
+            agentJobTracker.dispatch(room.getId(), room.getScope(), signal.getDescription(), agents);
+        }
+    }
 
-                    if (signal.getType() == SignalResponse.SignalType.DECISION_POINT) {
+    private Consumer<AgentJob> agentFor(String agent, String focus, String meetingContext) {
+        if (agent == null) {
+            return null;
+        }
+        return switch (agent) {
+            case "board" -> job -> signalBoardService.generateDiagram(job, focus, meetingContext);
+            case "code" -> job -> signalCodeService.generateLiveCode(job, focus, meetingContext);
+            default -> null;
+        };
+    }
 
-                        String desc = signal.getDescription().toLowerCase();
-                        long now = System.currentTimeMillis();
+    public int getActiveSessions() {
+        return roomRegistry.getActiveSessions();
+    }
 
+    /** Bytes buffered for one room's publisher, or 0 if it has none. */
+    public int getBufferedAudioBytes(String roomId) {
+        Room room = roomRegistry.get(roomId);
+        AudioSegmenter audio = room == null ? null : room.getAudio();
+        return audio == null ? 0 : audio.bufferedBytes();
+    }
 
-                        if (desc.contains("architecture") || desc.contains("design") ||
-                                desc.contains("structure") || desc.contains("flow") || desc.contains("diagram")) {
+    /** Bytes buffered across every session on this node. */
+    public long getBufferedAudioBytes() {
+        return audioSegmentPool.getBufferedBytes();
+    }
 
-                            if (now - lastDiagramTime.get() > 15000) {
-                                lastDiagramTime.set(now);
-                                log.info("Triggering Visual Agent...");
-                                signalBoardService.generateDiagram(session, signal.getDescription());
-                            } else {
-                                log.info("Visual Agent Cool-down Active");
-                            }
-                        }
+    /**
+     * Serializes the signal once and queues the same frame for every subscriber
+     * of the room, on this node and on every other node holding part of the
+     * room. Never waits for the network.
+     */
+    public void broadcast(String roomId, SignalResponse signal) {
+        TextMessage frame;
+        try {
+            frame = signalCodec.encode(signal);
+        } catch (IOException e) {
+            log.error("Error encoding signal for room " + roomId, e);
+            return;
+        }
+        // partial frames are superseded by the final one
+        if (!Boolean.TRUE.equals(signal.getPartial())) {
+            historyWriter.record(roomId, signal, frame.getPayload());
+        }
+        route(roomId, frame, signal.getType());
+    }
 
+    /**
+     * Closes a stream whose partial frames went out but that ended without a
+     * final signal, so clients do not keep a dangling partial. Not recorded in
+     * the history, as its partial frames are not either.
+     */
+    public void endStream(String roomId, String streamId) {
+        SignalResponse end = SignalResponse.builder()
+                .type(SignalResponse.SignalType.IDLE)
+                .streamId(streamId)
+                .partial(false)
+                .timestamp(Instant.now())
+                .build();
+        try {
+            route(roomId, signalCodec.encode(end), end.getType());
+        } catch (IOException e) {
+            log.error("Error encoding the end of stream " + streamId, e);
+        }
+    }
 
-                        if (desc.contains("json") || desc.contains("database") || desc.contains("api") ||
-                                desc.contains("field") || desc.contains("entity") || desc.contains("class") ||
-                                desc.contains("function") || desc.contains("code")) {
+    /**
+     * Broadcasts a constant signal from its pre-serialized frame, stamped with the
+     * current time. {@code template} must be a constant that is never modified.
+     */
+    public void broadcastStatic(String roomId, SignalResponse template) {
+        route(roomId, signalCodec.staticFrame(template).render(Instant.now()), template.getType());
+    }
 
-                            if (now - lastCodeTime.get() > 10000) {
-                                lastCodeTime.set(now);
-                                log.info("Triggering Code Agent...");
-                                signalCodeService.generateLiveCode(session, signal.getDescription());
-                            } else {
-                                log.info("Code Agent Cool-down Active");
-                            }
-                        }
-                    }
-                }
+    private void route(String roomId, TextMessage frame, SignalResponse.SignalType type) {
+        for (String node : sessionRegistry.nodesFor(roomId)) {
+            if (!node.equals(sessionRegistry.getNodeId())) {
+                signalBus.publish(node, new RoomFrame(roomId, type, frame.getPayload()));
             }
+        }
+        Room room = roomRegistry.get(roomId);
+        if (room != null) {
+            fanOut(room, frame, type);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Signal Processing Error: " + e.getMessage());
+    /** A frame another node produced for a room with subscribers on this one. */
+    private void deliver(RoomFrame frame) {
+        Room room = roomRegistry.get(frame.roomId());
+        if (room != null) {
+            fanOut(room, new TextMessage(frame.payload()), frame.type());
         }
     }
 
-    private void appendAudio(byte[] newChunk) {
-        byte[] combined = new byte[audioBuffer.length + newChunk.length];
-        System.arraycopy(audioBuffer, 0, combined, 0, audioBuffer.length);
-        System.arraycopy(newChunk, 0, combined, audioBuffer.length, newChunk.length);
-        audioBuffer = combined;
+    private void fanOut(Room room, TextMessage frame, SignalResponse.SignalType type) {
+        long sendStart = System.nanoTime();
+        // analysis signals are small and time-sensitive; agent results may be large
+        OutboundQueue.Lane lane = type == SignalResponse.SignalType.IMAGE_GENERATED
+                || type == SignalResponse.SignalType.CODE_GENERATED ? OutboundQueue.Lane.BULK : OutboundQueue.Lane.PRIORITY;
+        for (OutboundQueue subscriber : room.getSubscribers()) {
+            subscriber.offer(frame, lane);
+        }
+        signalMetrics.recordSend(type, System.nanoTime() - sendStart);
+        signalMetrics.recordFanOut(room.size());
     }
 
-    public void sendSignal(WebSocketSession session, SignalResponse signal) {
-        try {
-            if (session.isOpen()) {
-                String json = objectMapper.writeValueAsString(signal);
-                session.sendMessage(new TextMessage(json));
+    private final class AudioInferenceTask implements InferenceTask {
+        private final Room room;
+        private final AudioWindow window;
+
+        private AudioInferenceTask(Room room, AudioWindow window) {
+            this.room = room;
+            this.window = window;
+        }
+
+        @Override
+        public void run() {
+            try {
+                processAudioWithGemini(room, window);
+            } finally {
+                window.release();
             }
-        } catch (IOException e) {
-            log.error("Error sending signal to frontend", e);
+        }
+
+        @Override
+        public void discard() {
+            window.release();
+        }
+
+        /** Byte windows of unknown duration are not merged; the newer one replaces the older. */
+        @Override
+        public InferenceTask mergeWith(InferenceTask newer) {
+            if (newer instanceof AudioInferenceTask next && window.getDurationMillis() > 0
+                    && next.window.getDurationMillis() > 0
+                    && window.getDurationMillis() + next.window.getDurationMillis() <= MAX_MERGED_MILLIS) {
+                return new AudioInferenceTask(room, window.append(next.window));
+            }
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.signal.Signal.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioAccumulatorTest {
+
+    private final AudioSegmentPool pool = new AudioSegmentPool(8, 16, 64, 100);
+
+    @Test
+    void drainReturnsFramesInOrderAcrossSegments() {
+        AudioAccumulator buffer = pool.newAccumulator();
+        assertTrue(buffer.append(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5})));
+        assertTrue(buffer.append(ByteBuffer.wrap(new byte[]{6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17})));
+
+        AudioWindow window = buffer.drain();
+
+        assertEquals(17, window.size());
+        assertEquals(0, buffer.size());
+        byte[] data = window.toByteArray();
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(i + 1, data[i]);
+        }
+        assertEquals(17, pool.getBufferedBytes());
+
+        window.release();
+        window.release();
+        assertEquals(0, pool.getBufferedBytes());
+        assertEquals(3, pool.getPooledSegments());
+    }
+
+    @Test
+    void appendHonoursOnlyTheRemainingBytesOfTheFrame() {
+        AudioAccumulator buffer = pool.newAccumulator();
+        ByteBuffer frame = ByteBuffer.wrap(new byte[]{9, 9, 1, 2, 9});
+        frame.position(2).limit(4);
+
+        buffer.append(frame);
+
+        assertArrayEquals(new byte[]{1, 2}, buffer.drain().toByteArray());
+        assertEquals(2, frame.position());
+    }
+
+    @Test
+    void rejectsFramesOverSessionAndNodeLimits() {
+        AudioAccumulator first = pool.newAccumulator();
+        AudioAccumulator second = pool.newAccumulator();
+
+        assertTrue(first.append(ByteBuffer.allocate(60)));
+        assertFalse(first.append(ByteBuffer.allocate(5)));
+        assertFalse(second.append(ByteBuffer.allocate(41)));
+        assertTrue(second.append(ByteBuffer.allocate(40)));
+
+        first.close();
+        assertFalse(first.append(ByteBuffer.allocate(1)));
+        assertEquals(40, pool.getBufferedBytes());
+    }
+}
@@ -0,0 +1,120 @@
+package com.signal.Signal.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds MediaRecorder-shaped WebM/Opus streams: a header followed by
+ * unknown-size clusters of 20 ms SimpleBlocks. Speech packets are large,
+ * silence packets are a few bytes, as Opus DTX produces.
+ */
+public final class SyntheticWebm {
+
+    public static final int PACKET_MILLIS = 20;
+    public static final int SPEECH_PACKET_BYTES = 80;
+    public static final int SILENCE_PACKET_BYTES = 3;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final int clusterMillis;
+    private final long ticksPerMilli;
+    private long elapsedMillis;
+    private long clusterStart = -1;
+
+    public SyntheticWebm(int clusterMillis) {
+        this(clusterMillis, 1_000_000);
+    }
+
+    /** @param timecodeScaleNanos length of one timecode tick; must divide a millisecond */
+    public SyntheticWebm(int clusterMillis, long timecodeScaleNanos) {
+        this.clusterMillis = clusterMillis;
+        this.ticksPerMilli = 1_000_000 / timecodeScaleNanos;
+        out.writeBytes(header(timecodeScaleNanos));
+    }
+
+    public static byte[] header() {
+        return header(1_000_000);
+    }
+
+    public static byte[] header(long timecodeScaleNanos) {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.writeBytes(element(0x1A45DFA3, concat(
+                element(0x4282, "webm".getBytes(StandardCharsets.US_ASCII)),
+                element(0x4287, new byte[]{4}))));
+        header.writeBytes(new byte[]{0x18, 0x53, (byte) 0x80, 0x67, 0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        header.writeBytes(element(0x1549A966, element(0x2AD7B1, new byte[]{(byte) (timecodeScaleNanos >>> 16),
+                (byte) (timecodeScaleNanos >>> 8), (byte) timecodeScaleNanos})));
+        header.writeBytes(element(0x1654AE6B, element(0xAE, concat(
+                element(0xD7, new byte[]{1}),
+                element(0x86, "A_OPUS".getBytes(StandardCharsets.US_ASCII))))));
+        return header.toByteArray();
+    }
+
+    public SyntheticWebm speech(int millis) {
+        return packets(millis, SPEECH_PACKET_BYTES);
+    }
+
+    public SyntheticWebm silence(int millis) {
+        return packets(millis, SILENCE_PACKET_BYTES);
+    }
+
+    /** A BlockGroup whose Block claims more bytes than the group holds. */
+    public SyntheticWebm truncatedBlockGroup() {
+        out.writeBytes(element(0xA0, new byte[]{(byte) 0xA1, (byte) 0xFE, (byte) 0x81, 0x00}));
+        return this;
+    }
+
+    /** Bytes written so far, header included. */
+    public int size() {
+        return out.size();
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private SyntheticWebm packets(int millis, int packetBytes) {
+        for (int i = 0; i < millis / PACKET_MILLIS; i++) {
+            if (clusterStart < 0 || elapsedMillis - clusterStart >= clusterMillis) {
+                clusterStart = elapsedMillis;
+                out.writeBytes(new byte[]{0x1F, 0x43, (byte) 0xB6, 0x75, 0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                        (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+                long clusterTicks = clusterStart * ticksPerMilli;
+                out.writeBytes(element(0xE7, new byte[]{(byte) (clusterTicks >>> 16), (byte) (clusterTicks >>> 8),
+                        (byte) clusterTicks}));
+            }
+            long relative = (elapsedMillis - clusterStart) * ticksPerMilli;
+            byte[] block = new byte[4 + packetBytes];
+            block[0] = (byte) 0x81;
+            block[1] = (byte) (relative >>> 8);
+            block[2] = (byte) relative;
+            block[3] = (byte) 0x80;
+            // SILK wideband, 20 ms, one frame
+            block[4] = 0x08;
+            out.writeBytes(element(0xA3, block));
+            elapsedMillis += PACKET_MILLIS;
+        }
+        return this;
+    }
+
+    private static byte[] element(int id, byte[] payload) {
+        ByteArrayOutputStream element = new ByteArrayOutputStream();
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            if ((id >>> shift) != 0) {
+                element.write(id >>> shift);
+            }
+        }
+        element.write(0x40 | (payload.length >>> 8));
+        element.write(payload.length);
+        element.writeBytes(payload);
+        return element.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            joined.writeBytes(part);
+        }
+        return joined.toByteArray();
+    }
+}
@@ -0,0 +1,183 @@
+package com.signal.Signal.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebmSegmenterTest {
+
+    private final AudioSegmentPool pool = new AudioSegmentPool(4096, 64, 1 << 20, 1 << 22);
+    private final AudioSegmenterFactory factory = new AudioSegmenterFactory(pool, 2000, 500, 1.0, 0.2, 1000);
+
+    @Test
+    void cutsWindowsOnBlockBoundariesWithHeaderAndOverlap() {
+        byte[] stream = new SyntheticWebm(1000).speech(5000).toByteArray();
+
+        List<AudioWindow> windows = feed(factory.create(), stream, 37);
+
+        assertEquals(2, windows.size());
+        byte[] header = SyntheticWebm.header();
+        byte[] first = windows.get(0).toByteArray();
+        byte[] second = windows.get(1).toByteArray();
+        assertArrayEquals(header, Arrays.copyOf(first, header.length));
+        assertArrayEquals(header, Arrays.copyOf(second, header.length));
+        assertEquals(range(0, 1980), blockTimecodes(first, header.length));
+        assertEquals(range(1480, 3980), blockTimecodes(second, header.length));
+        assertEquals(2, factory.getEmittedWindows());
+        windows.forEach(AudioWindow::release);
+    }
+
+    @Test
+    void gatesWindowsWithoutSpeech() {
+        byte[] stream = new SyntheticWebm(1000).speech(2000).silence(4000).speech(2100).toByteArray();
+
+        List<AudioWindow> windows = feed(factory.create(), stream, 512);
+
+        assertEquals(2, windows.size());
+        assertEquals(2, factory.getGatedWindows());
+        assertEquals(range(5480, 7980), blockTimecodes(windows.get(1).toByteArray(), SyntheticWebm.header().length));
+        windows.forEach(AudioWindow::release);
+    }
+
+    @Test
+    void mergedWindowsKeepASingleHeaderAndPlayEachBlockOnce() {
+        byte[] stream = new SyntheticWebm(1000).speech(5000).toByteArray();
+        AudioSegmenter segmenter = factory.create();
+        List<AudioWindow> windows = feed(segmenter, stream, 4096);
+        int headerLength = SyntheticWebm.header().length;
+        assertEquals(2000, windows.get(0).getDurationMillis());
+        assertEquals(2000, windows.get(1).getDurationMillis());
+
+        AudioWindow merged = windows.get(0).append(windows.get(1));
+
+        byte[] data = merged.toByteArray();
+        assertEquals(data.length, merged.size());
+        assertEquals(range(0, 3980), blockTimecodes(data, headerLength));
+        assertEquals(4000, merged.getDurationMillis());
+        merged.release();
+        segmenter.close();
+        assertEquals(0, pool.getBufferedBytes());
+    }
+
+    @Test
+    void startsANewClusterBeforeABlockOffsetOverflows() {
+        // at 100 µs ticks an 8 s window spans 80000 ticks, past a block's signed 16-bit offset
+        AudioSegmenterFactory longWindows = new AudioSegmenterFactory(pool, 8000, 500, 1.0, 0.2, 1000);
+        byte[] stream = new SyntheticWebm(1000, 100_000).speech(10_000).toByteArray();
+
+        List<AudioWindow> windows = feed(longWindows.create(), stream, 4096);
+
+        assertEquals(1, windows.size());
+        List<Long> ticks = range(0, 7980).stream().map(millis -> millis * 10).toList();
+        assertEquals(ticks, blockTimecodes(windows.get(0).toByteArray(), SyntheticWebm.header(100_000).length));
+        assertEquals(8000, windows.get(0).getDurationMillis());
+        windows.forEach(AudioWindow::release);
+    }
+
+    @Test
+    void windowLengthCanChangeMidStream() {
+        AudioSegmenter segmenter = factory.create();
+        assertEquals(501, segmenter.setWindowMillis(100));
+        assertEquals(WebmSegmenter.MAX_WINDOW_MILLIS - 500, segmenter.setWindowMillis(60_000));
+        assertEquals(1000, segmenter.setWindowMillis(1000));
+
+        List<AudioWindow> windows = feed(segmenter, new SyntheticWebm(1000).speech(5000).toByteArray(), 512);
+
+        assertEquals(4, windows.size());
+        assertEquals(range(480, 1980), blockTimecodes(windows.get(1).toByteArray(), SyntheticWebm.header().length));
+        windows.forEach(AudioWindow::release);
+    }
+
+    @Test
+    void fallsBackToByteWindowsForOtherStreams() {
+        List<AudioWindow> windows = feed(factory.create(), new byte[2500], 300);
+
+        assertEquals(2, windows.size());
+        assertEquals(1200, windows.get(0).size());
+        windows.forEach(AudioWindow::release);
+    }
+
+    @Test
+    void malformedBlocksFallBackToByteWindows() {
+        byte[] stream = new SyntheticWebm(1000).speech(1000).truncatedBlockGroup().speech(1000).toByteArray();
+
+        List<AudioWindow> windows = feed(factory.create(), stream, 64);
+
+        assertFalse(windows.isEmpty());
+        windows.forEach(window -> assertEquals(1024, window.size()));
+        windows.forEach(AudioWindow::release);
+    }
+
+    @Test
+    void closeReleasesBufferedAudio() {
+        AudioSegmenter segmenter = factory.create();
+        feed(segmenter, new SyntheticWebm(1000).speech(1000).toByteArray(), 1000);
+        assertTrue(pool.getBufferedBytes() > 0);
+
+        segmenter.close();
+
+        assertEquals(0, pool.getBufferedBytes());
+        assertFalse(segmenter.accept(ByteBuffer.allocate(1), window -> fail()));
+    }
+
+    @Test
+    void readsOpusPacketDurations() {
+        assertEquals(20, WebmSegmenter.opusPacketMillis(new byte[]{0x08}, 0, 1));
+        assertEquals(40, WebmSegmenter.opusPacketMillis(new byte[]{0x09}, 0, 1));
+        assertEquals(60, WebmSegmenter.opusPacketMillis(new byte[]{(byte) 0xFB, 0x03}, 0, 2));
+    }
+
+    private static List<AudioWindow> feed(AudioSegmenter segmenter, byte[] stream, int chunkSize) {
+        List<AudioWindow> windows = new ArrayList<>();
+        for (int offset = 0; offset < stream.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, stream.length - offset);
+            assertTrue(segmenter.accept(ByteBuffer.wrap(stream, offset, length), windows::add));
+        }
+        return windows;
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> values = new ArrayList<>();
+        for (long value = from; value <= to; value += SyntheticWebm.PACKET_MILLIS) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    /** Absolute block timecodes in a window, reading every cluster after the header. */
+    private static List<Long> blockTimecodes(byte[] data, int offset) {
+        List<Long> timecodes = new ArrayList<>();
+        long clusterTimecode = 0;
+        int position = offset;
+        while (position < data.length) {
+            int idLength = WebmSegmenter.vintLength(data[position]);
+            int id = WebmSegmenter.readId(data, position);
+            int sizeLength = WebmSegmenter.vintLength(data[position + idLength]);
+            long size = WebmSegmenter.readSize(data, position + idLength, sizeLength);
+            int payload = position + idLength + sizeLength;
+            if (id == 0x1F43B675) {
+                assertEquals(-1, size);
+                position = payload;
+                continue;
+            }
+            if (id == 0xE7) {
+                clusterTimecode = 0;
+                for (int i = 0; i < size; i++) {
+                    clusterTimecode = (clusterTimecode << 8) | (data[payload + i] & 0xFF);
+                }
+            } else if (id == 0xA3) {
+                short relative = (short) (((data[payload + 1] & 0xFF) << 8) | (data[payload + 2] & 0xFF));
+                timecodes.add(clusterTimecode + relative);
+            } else {
+                fail("Unexpected element " + Integer.toHexString(id));
+            }
+            position = (int) (payload + size);
+        }
+        return timecodes;
+    }
+}
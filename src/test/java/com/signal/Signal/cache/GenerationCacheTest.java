@@ -0,0 +1,130 @@
+package com.signal.Signal.cache;
+
+import com.signal.Signal.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationCacheTest {
+
+    @Test
+    void keyIgnoresCasePunctuationAndSpacing() {
+        assertEquals(
+                GenerationCache.key("We will use  Postgres.", "pro", "v1"),
+                GenerationCache.key("we will use postgres", "pro", "v1"));
+        assertNotEquals(
+                GenerationCache.key("we will use postgres", "pro", "v1"),
+                GenerationCache.key("we will use postgres", "pro", "v2"));
+    }
+
+    @Test
+    void roomKeysCoverTheRoom() {
+        String key = GenerationCache.key("use postgres", "pro", "v1", "room-a");
+
+        assertEquals(key, GenerationCache.key("Use Postgres!", "pro", "v1", "room-a"));
+        assertNotEquals(key, GenerationCache.key("use postgres", "pro", "v1", "room-b"));
+        assertNotEquals(key, GenerationCache.key("use postgres", "pro", "v1"));
+    }
+
+    @Test
+    void concurrentMissesShareOneGeneration() throws Exception {
+        GenerationCache<String> cache = new GenerationCache<>("test", 10, Duration.ofMinutes(1));
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Optional<String>> first = executor.submit(() -> cache.getOrCompute("k", () -> {
+                generations.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Optional.of("diagram");
+            }));
+            while (cache.getStats().misses() == 0) {
+                Thread.sleep(5);
+            }
+            Future<Optional<String>> second = executor.submit(() -> cache.getOrCompute("k", () -> {
+                generations.incrementAndGet();
+                return Optional.of("other");
+            }));
+            while (cache.getStats().joins() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals(Optional.of("diagram"), first.get());
+            assertEquals(Optional.of("diagram"), second.get());
+        }
+        assertEquals(1, generations.get());
+        assertEquals(Optional.of("diagram"), cache.getIfPresent("k"));
+    }
+
+    @Test
+    void joinersRetryWhenTheLeaderIsCancelled() throws Exception {
+        GenerationCache<String> cache = new GenerationCache<>("test", 10, Duration.ofMinutes(1));
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Optional<String>> leader = executor.submit(() -> cache.getOrCompute("k", () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new CancellationException("superseded");
+            }));
+            while (cache.getStats().misses() == 0) {
+                Thread.sleep(5);
+            }
+            Future<Optional<String>> joiner = executor.submit(() -> cache.getOrCompute("k", () -> Optional.of("fresh")));
+            while (cache.getStats().joins() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            ExecutionException failure = assertThrows(ExecutionException.class, leader::get);
+            assertInstanceOf(CancellationException.class, failure.getCause());
+            assertEquals(Optional.of("fresh"), joiner.get());
+        }
+        assertEquals(Optional.of("fresh"), cache.getIfPresent("k"));
+    }
+
+    @Test
+    void expiresAndEvictsEntries() {
+        MutableClock clock = new MutableClock();
+        GenerationCache<String> cache = new GenerationCache<>("test", 2, Duration.ofSeconds(10), v -> true, clock);
+
+        cache.getOrCompute("a", () -> Optional.of("A"));
+        cache.getOrCompute("b", () -> Optional.of("B"));
+        cache.getIfPresent("a");
+        cache.getOrCompute("c", () -> Optional.of("C"));
+
+        assertTrue(cache.getIfPresent("b").isEmpty());
+        assertEquals(Optional.of("A"), cache.getIfPresent("a"));
+
+        clock.advance(Duration.ofSeconds(11));
+        assertTrue(cache.getIfPresent("a").isEmpty());
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    void emptyResultsAreNotCached() {
+        GenerationCache<String> cache = new GenerationCache<>("test", 10, Duration.ofMinutes(1));
+        cache.getOrCompute("k", Optional::empty);
+        assertEquals(Optional.of("v"), cache.getOrCompute("k", () -> Optional.of("v")));
+        assertEquals(2, cache.getStats().misses());
+    }
+}
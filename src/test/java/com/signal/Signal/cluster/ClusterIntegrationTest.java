@@ -0,0 +1,117 @@
+package com.signal.Signal.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signal.SignalApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes in one JVM, joined through the loopback transport.
+ */
+class ClusterIntegrationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String clusterName = "it-" + UUID.randomUUID();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final List<WebSocketSession> clients = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() throws Exception {
+        for (WebSocketSession client : clients) {
+            client.close();
+        }
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void signalsReachSubscribersOnAnotherNode() throws Exception {
+        ConfigurableApplicationContext nodeA = start("a");
+        ConfigurableApplicationContext nodeB = start("b");
+        BlockingQueue<JsonNode> onA = new LinkedBlockingQueue<>();
+        BlockingQueue<JsonNode> onB = new LinkedBlockingQueue<>();
+
+        WebSocketSession publisher = connect(nodeA, "?room=review&role=publisher", onA);
+        // the room's publisher is on node A, so this one only listens
+        WebSocketSession listener = connect(nodeB, "?room=review&role=publisher", onB);
+        assertEquals("Signal Active", onA.poll(5, TimeUnit.SECONDS).get("title").asText());
+        assertEquals("Signal Active", onB.poll(5, TimeUnit.SECONDS).get("title").asText());
+        assertEquals(2, nodeA.getBean(SessionRegistry.class).nodesFor("review").size());
+
+        listener.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        publisher.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+
+        List<JsonNode> heard = new ArrayList<>();
+        JsonNode frame;
+        while ((frame = onB.poll(10, TimeUnit.SECONDS)) != null) {
+            heard.add(frame);
+            if (hasFinal(heard, "IMAGE_GENERATED") && hasFinal(heard, "CODE_GENERATED")) {
+                break;
+            }
+        }
+        assertEquals(1, heard.stream().filter(f -> "DECISION_POINT".equals(f.get("type").asText())
+                && !f.get("partial").asBoolean(false)).count());
+        assertTrue(hasFinal(heard, "IMAGE_GENERATED"));
+        assertTrue(hasFinal(heard, "CODE_GENERATED"));
+    }
+
+    @Test
+    void publisherSlotIsFreedWhenItsNodeGoesAway() {
+        ConfigurableApplicationContext nodeA = start("a");
+        ConfigurableApplicationContext nodeB = start("b");
+        SessionRegistry registryA = nodeA.getBean(SessionRegistry.class);
+        SessionRegistry registryB = nodeB.getBean(SessionRegistry.class);
+
+        assertTrue(registryA.claimPublisher("review", "1"));
+        assertFalse(registryB.claimPublisher("review", "1"));
+
+        nodeA.close();
+        assertTrue(registryB.claimPublisher("review", "1"));
+    }
+
+    private boolean hasFinal(List<JsonNode> received, String type) {
+        return received.stream().anyMatch(f -> type.equals(f.get("type").asText()) && !f.get("partial").asBoolean(false));
+    }
+
+    private ConfigurableApplicationContext start(String nodeId) {
+        // command-line arguments, so they override application.yml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SignalApplication.class)
+                .run("--server.port=0",
+                        "--signal.gateway.mode=fake",
+                        "--google.cloud.project-id=test",
+                        "--signal.cluster.name=" + clusterName,
+                        "--signal.cluster.node-id=" + nodeId);
+        nodes.add(context);
+        return context;
+    }
+
+    private WebSocketSession connect(ConfigurableApplicationContext node, String query, BlockingQueue<JsonNode> queue)
+            throws Exception {
+        int port = node.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        WebSocketSession session = new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                queue.add(objectMapper.readTree(message.getPayload()));
+            }
+        }, "ws://localhost:" + port + "/ws-signal" + query).get(5, TimeUnit.SECONDS);
+        clients.add(session);
+        return session;
+    }
+}
@@ -0,0 +1,66 @@
+package com.signal.Signal.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.gateway.FakeGeminiGateway;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignalCodecTest {
+
+    private final SignalCodec codec = new SignalCodec(new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    @Test
+    void readsSignalsWrappedInFencesOrProse() throws Exception {
+        String fenced = "```json\n" + FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE + "```\n";
+        String prose = "Here is the analysis: " + FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE + " Hope it helps!";
+
+        for (String output : new String[]{fenced, prose, FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE}) {
+            SignalResponse signal = codec.readSignal(output);
+            assertEquals(SignalResponse.SignalType.DECISION_POINT, signal.getType());
+            assertEquals(0.9, signal.getConfidence());
+            assertNotNull(signal.getTranscript());
+        }
+        assertNull(codec.readSignal("no json here"));
+    }
+
+    @Test
+    void readsCode() throws Exception {
+        Map<String, String> code = codec.readCode("```json\n" + FakeGeminiGateway.DEFAULT_CODE_RESPONSE + "```");
+
+        assertEquals(3, code.size());
+        assertTrue(code.containsKey("go"));
+    }
+
+    @Test
+    void staticFramesMatchFullSerialization() throws Exception {
+        SignalResponse template = SignalResponse.builder()
+                .type(SignalResponse.SignalType.IDLE)
+                .title("Signal Active")
+                .description("Listening \"now\"")
+                .confidence(1.0)
+                .build();
+        Instant now = Instant.parse("2026-10-16T09:30:00.123456Z");
+
+        String spliced = codec.staticFrame(template).render(now).getPayload();
+
+        assertEquals(codec.encode(template.toBuilder().timestamp(now).build()).getPayload(), spliced);
+        assertSame(codec.staticFrame(template), codec.staticFrame(template));
+    }
+
+    @Test
+    void transcriptIsNeverSentToClients() throws Exception {
+        SignalResponse signal = SignalResponse.builder().type(SignalResponse.SignalType.RISK_DETECTED)
+                .transcript("private words").build();
+
+        assertFalse(codec.encode(signal).getPayload().contains("private words"));
+    }
+}
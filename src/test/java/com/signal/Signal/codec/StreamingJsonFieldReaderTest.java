@@ -0,0 +1,54 @@
+package com.signal.Signal.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingJsonFieldReaderTest {
+
+    @Test
+    void reportsTopLevelFieldsAsSoonAsTheyComplete() {
+        List<String> seen = new ArrayList<>();
+        StreamingJsonFieldReader reader = new StreamingJsonFieldReader(new JsonFactory(),
+                (name, value) -> seen.add(name + "=" + value));
+
+        reader.feed("```json\n{\"type\": \"DECI");
+        assertTrue(seen.isEmpty());
+        reader.feed("SION_POINT\", \"title\": \"Use Pos");
+        assertEquals(List.of("type=DECISION_POINT"), seen);
+        reader.feed("tgres\", \"nested\": {\"skip\": 1}, \"confidence\": 0.8}\n```");
+
+        assertEquals(List.of("type=DECISION_POINT", "title=Use Postgres", "confidence=0.8"), seen);
+        assertTrue(reader.isComplete());
+    }
+
+    @Test
+    void malformedInputStopsTheReaderWithoutThrowing() {
+        List<String> seen = new ArrayList<>();
+        StreamingJsonFieldReader reader = new StreamingJsonFieldReader(new JsonFactory(),
+                (name, value) -> seen.add(name + "=" + value));
+
+        reader.feed("{\"type\": \"RISK_DETECTED\", \"title\": oops");
+        reader.feed(", \"confidence\": 0.8}");
+
+        assertEquals(List.of("type=RISK_DETECTED"), seen);
+        assertTrue(reader.isFailed());
+        assertFalse(reader.isComplete());
+    }
+
+    @Test
+    void handlesMultiByteTextSplitAcrossChunks() {
+        List<String> seen = new ArrayList<>();
+        StreamingJsonFieldReader reader = new StreamingJsonFieldReader(new JsonFactory(),
+                (name, value) -> seen.add(value));
+
+        reader.feed("{\"go\": \"// café ");
+        reader.feed("☕\"}");
+
+        assertEquals(List.of("// café ☕"), seen);
+    }
+}
@@ -0,0 +1,73 @@
+package com.signal.Signal.controller;
+
+import com.signal.Signal.diagram.DiagramStore;
+import com.signal.Signal.diagram.StoredDiagram;
+import com.signal.Signal.history.HistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class DiagramControllerTest {
+
+    private final DiagramStore diagramStore = new DiagramStore(1 << 20, 16);
+    private final HistoryService historyService = mock(HistoryService.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new DiagramController(diagramStore, historyService)).build();
+
+    @Test
+    void servesStoredDiagramsAsImmutableWithTheirHashAsETag() throws Exception {
+        StoredDiagram diagram = diagramStore.put(new byte[]{1, 2, 3}, "image/jpeg");
+
+        mvc.perform(get("/api/diagrams/" + diagram.hash()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + diagram.hash() + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=31536000")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(new byte[]{1, 2, 3}));
+        verifyNoInteractions(historyService);
+    }
+
+    @Test
+    void answersAMatchingIfNoneMatchWithNotModified() throws Exception {
+        StoredDiagram diagram = diagramStore.put(new byte[]{1, 2, 3}, "image/png");
+
+        mvc.perform(get("/api/diagrams/" + diagram.hash()).header(HttpHeaders.IF_NONE_MATCH, "\"" + diagram.hash() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void fallsBackToHistoryAndOtherwiseNotFound() throws Exception {
+        StoredDiagram archived = new StoredDiagram("abc", new byte[]{9}, "image/png", 1, 1, Instant.now());
+        when(historyService.findDiagram(anyString())).thenReturn(Optional.empty());
+        when(historyService.findDiagram("abc")).thenReturn(Optional.of(archived));
+
+        mvc.perform(get("/api/diagrams/abc"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[]{9}));
+        mvc.perform(get("/api/diagrams/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void servesMissingMalformedOrNonImageTypesAsPng() throws Exception {
+        for (String mimeType : new String[]{null, "", "not a type", "text/html", "image/*"}) {
+            StoredDiagram diagram = new StoredDiagram("h", new byte[]{7}, mimeType, 0, 0, Instant.now());
+            when(historyService.findDiagram("h")).thenReturn(Optional.of(diagram));
+
+            mvc.perform(get("/api/diagrams/h"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("image/png"));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.signal.Signal.dedup;
+
+import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.metrics.SignalMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.signal.Signal.dto.SignalResponse.SignalType.DECISION_POINT;
+import static com.signal.Signal.dto.SignalResponse.SignalType.RISK_DETECTED;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignalDeduplicatorTest {
+
+    private final SignalMetrics metrics = new SignalMetrics(new SimpleMeterRegistry());
+    private final SignalDeduplicator dedup = new SignalDeduplicator(true, Duration.ofMinutes(1), 32, 12, metrics);
+
+    @Test
+    void nearIdenticalWordingIsCloseAndUnrelatedTextIsNot() {
+        long original = SimHash.of("Postgres for the order service. We will use Postgres behind a REST API.");
+        long reworded = SimHash.of("postgres for the order service: we'll use Postgres behind a REST api");
+        long unrelated = SimHash.of("Latency too high on checkout. The p99 is above two seconds and will breach the SLO.");
+
+        assertTrue(SimHash.distance(original, reworded) <= 12);
+        assertTrue(SimHash.distance(original, unrelated) > 20);
+    }
+
+    @Test
+    void suppressesARepeatOfTheSameType() {
+        assertTrue(dedup.admit("room", signal(DECISION_POINT, "Postgres for the order service",
+                "We will use Postgres behind a REST API and redesign the order service architecture.")));
+
+        assertFalse(dedup.admit("room", signal(DECISION_POINT, "Postgres for order service",
+                "We'll use Postgres behind a REST API and redesign the order service architecture")));
+        assertTrue(dedup.admit("room", signal(RISK_DETECTED, "Postgres for the order service",
+                "We will use Postgres behind a REST API and redesign the order service architecture.")));
+        assertTrue(dedup.admit("room", signal(DECISION_POINT, "Kafka for order events",
+                "The team decided to publish order events to Kafka instead of polling.")));
+    }
+
+    @Test
+    void roomsAreIndependent() {
+        SignalResponse signal = signal(DECISION_POINT, "Merge the branch", "Let's merge this after the review.");
+
+        assertTrue(dedup.admit("a", signal));
+        assertTrue(dedup.admit("b", signal));
+        assertFalse(dedup.admit("a", signal));
+    }
+
+    @Test
+    void forgetsSignalsOutsideTheWindow() throws InterruptedException {
+        SignalDeduplicator shortWindow = new SignalDeduplicator(true, Duration.ofMillis(50), 32, 12, metrics);
+        SignalResponse signal = signal(DECISION_POINT, "Merge the branch", "Let's merge this after the review.");
+
+        assertTrue(shortWindow.admit("room", signal));
+        Thread.sleep(100);
+
+        assertTrue(shortWindow.admit("room", signal));
+    }
+
+    @Test
+    void keepsAtMostMaxEntriesPerRoom() {
+        SignalDeduplicator small = new SignalDeduplicator(true, Duration.ofMinutes(1), 2, 12, metrics);
+        SignalResponse first = signal(DECISION_POINT, "Merge the branch", "Let's merge this after the review.");
+
+        small.admit("room", first);
+        small.admit("room", signal(DECISION_POINT, "Kafka for order events", "Publish order events to Kafka."));
+        small.admit("room", signal(DECISION_POINT, "Redis for sessions", "Keep the session state in Redis."));
+
+        assertTrue(small.admit("room", first));
+    }
+
+    @Test
+    void flagsAnEarlyTitleThatRepeatsARecentSignal() {
+        dedup.admit("room", signal(RISK_DETECTED, "Checkout latency is too high", "p99 above two seconds."));
+
+        assertTrue(dedup.isLikelyDuplicate("room", RISK_DETECTED, "Checkout latency is too high"));
+        assertFalse(dedup.isLikelyDuplicate("room", RISK_DETECTED, "Disk almost full on the build agents"));
+        assertFalse(dedup.isLikelyDuplicate("other", RISK_DETECTED, "Checkout latency is too high"));
+    }
+
+    @Test
+    void disabledAdmitsEverything() {
+        SignalDeduplicator off = new SignalDeduplicator(false, Duration.ofMinutes(1), 32, 12, metrics);
+        SignalResponse signal = signal(DECISION_POINT, "Merge the branch", "Let's merge this after the review.");
+
+        assertTrue(off.admit("room", signal));
+        assertTrue(off.admit("room", signal));
+    }
+
+    private static SignalResponse signal(SignalResponse.SignalType type, String title, String description) {
+        return SignalResponse.builder().type(type).title(title).description(description).build();
+    }
+}
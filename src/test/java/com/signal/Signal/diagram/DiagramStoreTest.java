@@ -0,0 +1,77 @@
+package com.signal.Signal.diagram;
+
+import com.signal.Signal.gateway.FakeGeminiGateway;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiagramStoreTest {
+
+    @Test
+    void storesEachImageOnceUnderItsSha256() throws Exception {
+        DiagramStore store = new DiagramStore(1 << 20, 16);
+        byte[] png = FakeGeminiGateway.placeholderImage();
+
+        StoredDiagram first = store.put(png, "image/png");
+        StoredDiagram again = store.put(png.clone(), "image/png");
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png)), first.hash());
+        assertSame(first, again);
+        assertEquals(1, store.size());
+        assertEquals(png.length, store.getTotalBytes());
+        assertSame(first, store.get(first.hash()).orElseThrow());
+        assertTrue(store.get("0".repeat(64)).isEmpty());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyFetchedOnceOverTheEntryLimit() {
+        DiagramStore store = new DiagramStore(1 << 20, 2);
+        StoredDiagram a = store.put(new byte[]{1}, "image/png");
+        StoredDiagram b = store.put(new byte[]{2}, "image/png");
+        store.get(a.hash());
+
+        StoredDiagram c = store.put(new byte[]{3}, "image/png");
+
+        assertTrue(store.get(a.hash()).isPresent());
+        assertTrue(store.get(b.hash()).isEmpty());
+        assertTrue(store.get(c.hash()).isPresent());
+        assertEquals(2, store.getTotalBytes());
+    }
+
+    @Test
+    void evictsOnceOverTheByteLimitButKeepsTheNewestImage() {
+        DiagramStore store = new DiagramStore(100, 16);
+        StoredDiagram a = store.put(new byte[60], "image/png");
+        StoredDiagram b = store.put(new byte[50], "image/png");
+
+        assertTrue(store.get(a.hash()).isEmpty());
+        assertEquals(50, store.getTotalBytes());
+
+        StoredDiagram large = store.put(new byte[200], "image/png");
+
+        assertTrue(store.get(b.hash()).isEmpty());
+        assertTrue(store.get(large.hash()).isPresent());
+        assertEquals(200, store.getTotalBytes());
+    }
+
+    @Test
+    void readsPngAndJpegDimensions() throws IOException {
+        assertArrayEquals(new int[]{120, 80}, DiagramStore.readDimensions(encode("png", 120, 80)));
+        assertArrayEquals(new int[]{120, 80}, DiagramStore.readDimensions(encode("jpg", 120, 80)));
+        assertArrayEquals(new int[]{0, 0}, DiagramStore.readDimensions(new byte[]{(byte) 0x89, 'P', 'N', 'G'}));
+        assertArrayEquals(new int[]{0, 0}, DiagramStore.readDimensions("GIF89a".getBytes()));
+    }
+
+    private static byte[] encode(String format, int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+}
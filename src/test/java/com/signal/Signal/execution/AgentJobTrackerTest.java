@@ -0,0 +1,148 @@
+package com.signal.Signal.execution;
+
+import com.signal.Signal.metrics.SignalMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentJobTrackerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SessionScope scope = new SessionScope("room-1", executor);
+
+    @AfterEach
+    void shutdown() {
+        scope.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void aNewerDecisionSupersedesTheRunningJob() throws Exception {
+        AgentJobTracker tracker = tracker(Duration.ofSeconds(10));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        AgentJob first = single(tracker, "postgres for orders", job -> {
+            running.countDown();
+            awaitInterrupt(interrupted);
+        });
+        assertTrue(running.await(2, TimeUnit.SECONDS));
+        AgentJob second = single(tracker, "kafka for events", job -> { });
+
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+        assertEquals(AgentJob.Outcome.SUPERSEDED, first.getOutcome());
+        assertFalse(first.isCurrent());
+        awaitOutcome(second, AgentJob.Outcome.COMPLETED);
+        assertNull(tracker.current("room-1", "board"));
+    }
+
+    @Test
+    void theSameFocusKeepsTheRunningJob() {
+        AgentJobTracker tracker = tracker(Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+
+        AgentJob first = single(tracker, "Postgres for orders", job -> awaitQuietly(release));
+        List<AgentJob> again = tracker.dispatch("room-1", scope, "postgres, for orders!", Map.of("board", job -> { }));
+
+        assertTrue(again.isEmpty());
+        assertSame(first, tracker.current("room-1", "board"));
+        assertTrue(first.isCurrent());
+        release.countDown();
+    }
+
+    @Test
+    void agentsOfOneDecisionRunInParallelUnderOneDeadline() throws Exception {
+        AgentJobTracker tracker = tracker(Duration.ofMillis(200));
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        Consumer<AgentJob> slow = job -> {
+            bothRunning.countDown();
+            awaitInterrupt(interrupted);
+        };
+        Map<String, Consumer<AgentJob>> agents = new LinkedHashMap<>();
+        agents.put("board", slow);
+        agents.put("code", slow);
+
+        List<AgentJob> jobs = tracker.dispatch("room-1", scope, "postgres for orders", agents);
+
+        assertEquals(2, jobs.size());
+        assertTrue(bothRunning.await(1, TimeUnit.SECONDS));
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+        for (AgentJob job : jobs) {
+            assertEquals(AgentJob.Outcome.EXPIRED, job.getOutcome());
+            assertFalse(job.isCurrent());
+        }
+    }
+
+    @Test
+    void releaseStopsTheRoomsJobs() throws Exception {
+        AgentJobTracker tracker = tracker(Duration.ofSeconds(10));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AgentJob job = single(tracker, "postgres for orders", j -> {
+            running.countDown();
+            awaitInterrupt(interrupted);
+        });
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+
+        tracker.release("room-1");
+
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+        assertEquals(AgentJob.Outcome.CANCELLED, job.getOutcome());
+    }
+
+    @Test
+    void aClosedScopeStartsNothing() {
+        AgentJobTracker tracker = tracker(Duration.ofSeconds(10));
+        scope.close();
+
+        assertTrue(tracker.dispatch("room-1", scope, "postgres", Map.of("board", job -> fail("started"))).isEmpty());
+        assertNull(tracker.current("room-1", "board"));
+    }
+
+    private AgentJobTracker tracker(Duration deadline) {
+        return new AgentJobTracker(deadline, executor, new SignalMetrics(new SimpleMeterRegistry()));
+    }
+
+    private AgentJob single(AgentJobTracker tracker, String focus, Consumer<AgentJob> work) {
+        List<AgentJob> jobs = tracker.dispatch("room-1", scope, focus, Map.of("board", work));
+        assertEquals(1, jobs.size());
+        return jobs.get(0);
+    }
+
+    private static void awaitInterrupt(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(Duration.ofSeconds(30));
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitOutcome(AgentJob job, AgentJob.Outcome expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (job.getOutcome() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, job.getOutcome());
+    }
+}
@@ -0,0 +1,137 @@
+package com.signal.Signal.history;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "signal.gateway.mode=fake",
+        "google.cloud.project-id=test",
+        "signal.history.linger=0ms"
+})
+class HistoryIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private DiagramBlobRepository diagramBlobs;
+
+    @Autowired
+    private HistoryWriter historyWriter;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private final List<WebSocketSession> clients = new ArrayList<>();
+
+    @AfterEach
+    void disconnect() throws Exception {
+        for (WebSocketSession client : clients) {
+            client.close();
+        }
+    }
+
+    @Test
+    void finalSignalsArePersistedPagedAndReplayedOnReconnect() throws Exception {
+        long joinedAt = System.currentTimeMillis();
+        BlockingQueue<JsonNode> live = new LinkedBlockingQueue<>();
+        WebSocketSession publisher = connect("?room=retro&role=publisher", live);
+        assertEquals("Signal Active", live.poll(5, TimeUnit.SECONDS).get("title").asText());
+
+        publisher.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        awaitAgents(live);
+
+        List<String> types = new ArrayList<>();
+        String imageHash = null;
+        Long after = null;
+        for (int attempt = 0; attempt < 50 && types.size() < 3; attempt++) {
+            JsonNode page = rest.getForObject("/api/rooms/retro/signals?limit=2" + (after == null ? "" : "&after=" + after),
+                    JsonNode.class);
+            for (JsonNode entry : page.get("signals")) {
+                JsonNode signal = entry.get("signal");
+                assertFalse(signal.get("partial").asBoolean(false));
+                types.add(signal.get("type").asText());
+                if (signal.hasNonNull("imageHash")) {
+                    imageHash = signal.get("imageHash").asText();
+                }
+                after = entry.get("id").asLong();
+            }
+            if (types.size() < 3) {
+                Thread.sleep(50);
+            }
+        }
+        assertEquals("DECISION_POINT", types.get(0));
+        assertTrue(types.containsAll(List.of("IMAGE_GENERATED", "CODE_GENERATED")));
+        assertNotNull(imageHash);
+        assertTrue(diagramBlobs.existsById(imageHash));
+
+        BlockingQueue<JsonNode> rejoined = new LinkedBlockingQueue<>();
+        connect("?room=retro&since=" + joinedAt, rejoined);
+        assertEquals("Signal Active", rejoined.poll(5, TimeUnit.SECONDS).get("title").asText());
+        List<String> replayed = new ArrayList<>();
+        JsonNode frame;
+        while (replayed.size() < 3 && (frame = rejoined.poll(5, TimeUnit.SECONDS)) != null) {
+            replayed.add(frame.get("type").asText());
+        }
+        assertEquals(types, replayed);
+    }
+
+    @Test
+    void writerStopsOnlyAfterTheWebServer() {
+        // lifecycles stop from the highest phase down
+        for (String server : List.of("webServerGracefulShutdown", "webServerStartStop")) {
+            assertTrue(historyWriter.getPhase() < context.getBean(server, SmartLifecycle.class).getPhase(), server);
+        }
+    }
+
+    private void awaitAgents(BlockingQueue<JsonNode> queue) throws InterruptedException {
+        boolean image = false;
+        boolean code = false;
+        JsonNode frame;
+        while (!(image && code) && (frame = queue.poll(10, TimeUnit.SECONDS)) != null) {
+            boolean last = !frame.get("partial").asBoolean(false);
+            image |= last && "IMAGE_GENERATED".equals(frame.get("type").asText());
+            code |= last && "CODE_GENERATED".equals(frame.get("type").asText());
+        }
+        assertTrue(image && code, "agents did not finish");
+    }
+
+    private WebSocketSession connect(String query, BlockingQueue<JsonNode> queue) throws Exception {
+        WebSocketSession session = new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                queue.add(objectMapper.readTree(message.getPayload()));
+            }
+        }, "ws://localhost:" + port + "/ws-signal" + query).get(5, TimeUnit.SECONDS);
+        clients.add(session);
+        return session;
+    }
+}
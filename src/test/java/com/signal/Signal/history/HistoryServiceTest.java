@@ -0,0 +1,44 @@
+package com.signal.Signal.history;
+
+import com.signal.Signal.dto.SignalResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "signal.history.catch-up-limit=2")
+@Import(HistoryService.class)
+class HistoryServiceTest {
+
+    @Autowired
+    private SignalRecordRepository signalRecords;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Test
+    void catchUpAfterALongGapReplaysTheNewestFramesInOrder() {
+        // whole seconds, so the column's rounding cannot move a frame across the cut-off
+        Instant since = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(60);
+        for (int i = 1; i <= 5; i++) {
+            signalRecords.save(new SignalRecord("retro", signal(since.plusSeconds(i)), "frame " + i));
+        }
+        signalRecords.save(new SignalRecord("other", signal(since.plusSeconds(6)), "elsewhere"));
+
+        assertEquals(List.of("frame 4", "frame 5"), historyService.catchUp("retro", since));
+        assertEquals(List.of("frame 5"), historyService.catchUp("retro", since.plusSeconds(4)));
+    }
+
+    private static SignalResponse signal(Instant at) {
+        return SignalResponse.builder()
+                .type(SignalResponse.SignalType.DECISION_POINT)
+                .timestamp(at)
+                .build();
+    }
+}
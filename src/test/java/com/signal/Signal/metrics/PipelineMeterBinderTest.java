@@ -0,0 +1,50 @@
+package com.signal.Signal.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "signal.gateway.mode=fake",
+        "google.cloud.project-id=test"
+})
+class PipelineMeterBinderTest {
+
+    @Autowired
+    private PipelineMeterBinder binder;
+
+    @Test
+    void bindsTheGaugesAndCountersTheDashboardsRead() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        binder.bindTo(registry);
+
+        for (String gauge : List.of("signal.sessions.active", "signal.rooms.active", "signal.audio.buffered.bytes",
+                "signal.audio.pooled.segments", "signal.scheduler.pending", "signal.scheduler.inflight",
+                "signal.scheduler.wait.max", "signal.outbound.queued.bytes", "signal.transcript.chars",
+                "signal.history.queued", "signal.diagrams.stored.bytes")) {
+            assertNotNull(registry.find(gauge).gauge(), gauge);
+        }
+        for (String counter : List.of("signal.scheduler.dropped", "signal.scheduler.merged",
+                "signal.outbound.evicted", "signal.outbound.disconnected")) {
+            assertNotNull(registry.find(counter).functionCounter(), counter);
+        }
+        for (String result : List.of("emitted", "silent", "dropped")) {
+            assertNotNull(registry.find("signal.audio.windows").tag("result", result).functionCounter(), result);
+        }
+        for (String result : List.of("written", "dropped", "failed")) {
+            assertNotNull(registry.find("signal.history.records").tag("result", result).functionCounter(), result);
+        }
+        for (String cache : List.of("board", "code")) {
+            for (String result : List.of("hit", "miss", "joined")) {
+                assertNotNull(registry.find("signal.cache.requests").tags("cache", cache, "result", result)
+                        .functionCounter(), cache + " " + result);
+            }
+        }
+        assertEquals("bytes", registry.get("signal.audio.buffered.bytes").gauge().getId().getBaseUnit());
+    }
+}
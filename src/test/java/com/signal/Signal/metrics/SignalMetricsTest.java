@@ -0,0 +1,81 @@
+package com.signal.Signal.metrics;
+
+import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.execution.AgentJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The meter names and tags the dashboards query. */
+class SignalMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SignalMetrics metrics = new SignalMetrics(registry);
+
+    @Test
+    void timesEachStage() {
+        metrics.recordBufferFill(1_000_000);
+        metrics.recordParse(1_000_000);
+        metrics.recordSend(SignalResponse.SignalType.RISK_DETECTED, 1_000_000);
+        metrics.recordWrite(1_000_000);
+        metrics.recordFanOut(3);
+
+        for (String name : List.of("signal.buffer.fill", "signal.parse", "signal.ws.send", "signal.ws.write")) {
+            assertEquals(1, registry.get(name).timer().count(), name);
+        }
+        assertEquals(3, registry.get("signal.room.fanout").summary().totalAmount());
+        assertEquals(1, registry.get("signal.sent").tag("type", "RISK_DETECTED").counter().count());
+        assertEquals(0, registry.get("signal.sent").tag("type", "DECISION_POINT").counter().count());
+    }
+
+    @Test
+    void tagsGeminiCallsByModelAndOutcome() {
+        metrics.recordGeminiCall("pro", true, 1_000_000);
+        metrics.recordGeminiCall("pro", true, 1_000_000);
+        metrics.recordGeminiCall("flash", false, 1_000_000);
+
+        assertEquals(2, registry.get("signal.gemini.call").tags("model", "pro", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("signal.gemini.call").tags("model", "flash", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void countsEventsUnderTheirTags() {
+        metrics.fallback("pro", "flash");
+        metrics.hedged("pro", "flash");
+        metrics.routedTo("flash");
+        metrics.sloMissed();
+        metrics.retry("pro");
+        metrics.throttled("pro");
+        metrics.circuitOpened("pro");
+        metrics.triggered("decisions", "board");
+        metrics.cooldownSuppressed("board");
+        metrics.duplicateSuppressed(SignalResponse.SignalType.RISK_DETECTED);
+        metrics.agentJob("code", AgentJob.Outcome.SUPERSEDED);
+        metrics.contextCache("pro", "created");
+        metrics.command("PAUSE", true);
+        metrics.command("PAUSE", false);
+        metrics.command("PAUSE", false);
+
+        assertEquals(1, count("signal.gemini.fallback", "from", "pro", "to", "flash"));
+        assertEquals(1, count("signal.routing.hedged", "primary", "pro", "secondary", "flash"));
+        assertEquals(1, count("signal.routing.winner", "model", "flash"));
+        assertEquals(1, count("signal.routing.slo.missed"));
+        assertEquals(1, count("signal.gemini.retry", "model", "pro"));
+        assertEquals(1, count("signal.gemini.throttled", "model", "pro"));
+        assertEquals(1, count("signal.gemini.circuit.opened", "model", "pro"));
+        assertEquals(1, count("signal.agent.triggered", "rule", "decisions", "agent", "board"));
+        assertEquals(1, count("signal.agent.cooldown.suppressed", "agent", "board"));
+        assertEquals(1, count("signal.dedup.suppressed", "type", "RISK_DETECTED"));
+        assertEquals(1, count("signal.agent.jobs", "agent", "code", "outcome", "superseded"));
+        assertEquals(1, count("signal.gemini.context.cache", "model", "pro", "outcome", "created"));
+        assertEquals(1, count("signal.ws.commands", "type", "PAUSE", "outcome", "accepted"));
+        assertEquals(2, count("signal.ws.commands", "type", "PAUSE", "outcome", "rejected"));
+    }
+
+    private double count(String name, String... tags) {
+        return registry.get(name).tags(tags).counter().count();
+    }
+}
@@ -0,0 +1,152 @@
+package com.signal.Signal.outbound;
+
+import com.signal.Signal.metrics.SignalMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch firstWrite = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final WebSocketSession session = slowSession();
+
+    @Test
+    void offerNeverWaitsForTheClient() throws Exception {
+        OutboundQueue queue = factory(1 << 20, 64, OutboundQueueFactory.OverflowPolicy.DROP_OLDEST).create(session);
+
+        queue.offer(frame("a"), OutboundQueue.Lane.PRIORITY);
+        assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        queue.offer(frame("b"), OutboundQueue.Lane.PRIORITY);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(1, queue.getQueuedMessages());
+
+        release.countDown();
+        awaitWritten(2);
+        assertEquals(List.of("a", "b"), written);
+    }
+
+    @Test
+    void priorityFramesOvertakeQueuedBulkFrames() throws Exception {
+        OutboundQueue queue = factory(1 << 20, 64, OutboundQueueFactory.OverflowPolicy.DROP_OLDEST).create(session);
+
+        queue.offer(frame("first"), OutboundQueue.Lane.BULK);
+        assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+        queue.offer(frame("image"), OutboundQueue.Lane.BULK);
+        queue.offer(frame("decision"), OutboundQueue.Lane.PRIORITY);
+        release.countDown();
+
+        awaitWritten(3);
+        assertEquals(List.of("first", "decision", "image"), written);
+    }
+
+    @Test
+    void evictsTheOldestBulkFramesWhenFull() throws Exception {
+        OutboundQueueFactory factory = factory(1 << 20, 2, OutboundQueueFactory.OverflowPolicy.DROP_OLDEST);
+        OutboundQueue queue = factory.create(session);
+
+        queue.offer(frame("first"), OutboundQueue.Lane.BULK);
+        assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+        queue.offer(frame("code-1"), OutboundQueue.Lane.BULK);
+        queue.offer(frame("decision"), OutboundQueue.Lane.PRIORITY);
+        queue.offer(frame("code-2"), OutboundQueue.Lane.BULK);
+        assertEquals(1, factory.getEvicted());
+        release.countDown();
+
+        awaitWritten(3);
+        assertEquals(List.of("first", "decision", "code-2"), written);
+        assertEquals(0, factory.getQueuedBytes());
+    }
+
+    @Test
+    void closePolicyDisconnectsTheSlowSession() throws Exception {
+        OutboundQueueFactory factory = factory(8, 64, OutboundQueueFactory.OverflowPolicy.CLOSE);
+        OutboundQueue queue = factory.create(session);
+
+        queue.offer(frame("first"), OutboundQueue.Lane.PRIORITY);
+        assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+        queue.offer(frame("too large"), OutboundQueue.Lane.BULK);
+
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, factory.getSlowConsumersClosed());
+        queue.offer(frame("ignored"), OutboundQueue.Lane.PRIORITY);
+        assertEquals(0, queue.getQueuedMessages());
+        release.countDown();
+    }
+
+    @Test
+    void grantedCreditLimitsWhatIsWritten() throws Exception {
+        release.countDown();
+        OutboundQueueFactory factory = factory(1 << 20, 2, OutboundQueueFactory.OverflowPolicy.CLOSE);
+        OutboundQueue queue = factory.create(session);
+
+        queue.grant(1);
+        queue.offer(frame("a"), OutboundQueue.Lane.PRIORITY);
+        awaitWritten(1);
+        queue.offer(frame("b"), OutboundQueue.Lane.BULK);
+        queue.offer(frame("c"), OutboundQueue.Lane.PRIORITY);
+        // over the limit while out of credit: the oldest bulk frame goes, the session stays
+        queue.offer(frame("d"), OutboundQueue.Lane.PRIORITY);
+        Thread.sleep(50);
+
+        assertEquals(List.of("a"), written);
+        assertEquals(0, queue.getCredits());
+        assertEquals(1, factory.getEvicted());
+        verify(session, never()).close(any(CloseStatus.class));
+
+        queue.grant(5);
+        awaitWritten(3);
+        assertEquals(List.of("a", "c", "d"), written);
+        assertEquals(3, queue.getCredits());
+    }
+
+    private void awaitWritten(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && written.size() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private OutboundQueueFactory factory(int maxBytes, int maxMessages, OutboundQueueFactory.OverflowPolicy policy) {
+        return new OutboundQueueFactory(maxBytes, maxMessages, policy, Duration.ofSeconds(30), executor,
+                new SignalMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static TextMessage frame(String payload) {
+        return new TextMessage(payload);
+    }
+
+    /** A client whose first write stalls until the test releases it. */
+    private WebSocketSession slowSession() {
+        WebSocketSession mock = mock(WebSocketSession.class);
+        when(mock.getId()).thenReturn("s1");
+        when(mock.isOpen()).thenReturn(true);
+        try {
+            doAnswer(invocation -> {
+                firstWrite.countDown();
+                release.await();
+                written.add(((TextMessage) invocation.getArgument(0)).getPayload());
+                return null;
+            }).when(mock).sendMessage(any());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return mock;
+    }
+}
@@ -0,0 +1,135 @@
+package com.signal.Signal.prompt;
+
+import com.google.genai.errors.ClientException;
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.Part;
+import com.signal.Signal.gateway.FakeGeminiGateway;
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.support.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextCacheTest {
+
+    private final SignalMetrics metrics = new SignalMetrics(new SimpleMeterRegistry());
+    // starts at the real time, because the fake gateway stamps expiry from it
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    @Test
+    void sendsTheInstructionInlineUntilItIsCachedThenOnlyTheHandle() {
+        FakeGeminiGateway gateway = FakeGeminiGateway.instant();
+        ContextCache cache = cache(gateway);
+
+        GenerateContentConfig first = cache.configFor("pro");
+        assertSame(Prompts.ANALYSIS.config(), first);
+
+        GenerateContentConfig cached = cache.configFor("pro");
+        assertTrue(cached.systemInstruction().isEmpty());
+        assertEquals(cache.handleFor("pro"), cached.cachedContent().orElseThrow());
+        assertEquals(0.2f, cached.temperature().orElseThrow());
+        assertSame(cached, cache.configFor("pro"));
+
+        String answer = gateway.generateContent("pro", audio(), cached).text();
+        assertEquals(FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE, answer);
+    }
+
+    @Test
+    void keepsOneHandlePerModel() {
+        FakeGeminiGateway gateway = FakeGeminiGateway.instant();
+        ContextCache cache = cache(gateway);
+
+        cache.configFor("pro");
+        cache.configFor("flash");
+
+        assertEquals(2, gateway.getCachedContents());
+        assertNotEquals(cache.handleFor("pro"), cache.handleFor("flash"));
+    }
+
+    @Test
+    void recreatesTheHandleBeforeItExpires() {
+        FakeGeminiGateway gateway = FakeGeminiGateway.instant();
+        ContextCache cache = cache(gateway);
+        cache.configFor("pro");
+        String original = cache.handleFor("pro");
+
+        clock.advance(Duration.ofMinutes(50));
+        assertEquals(original, cache.configFor("pro").cachedContent().orElseThrow());
+        assertEquals(original, cache.handleFor("pro"));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertEquals(original, cache.configFor("pro").cachedContent().orElseThrow());
+        String refreshed = cache.handleFor("pro");
+        assertNotEquals(original, refreshed);
+        assertEquals(refreshed, cache.configFor("pro").cachedContent().orElseThrow());
+    }
+
+    @Test
+    void fallsBackToInlineWhenTheModelRefusesAndRetriesLater() {
+        AtomicBoolean refuse = new AtomicBoolean(true);
+        FakeGeminiGateway gateway = new FakeGeminiGateway(Duration.ZERO, 0, 429, 42,
+                FakeGeminiGateway.DEFAULT_ANALYSIS_RESPONSE, FakeGeminiGateway.DEFAULT_CODE_RESPONSE,
+                FakeGeminiGateway.placeholderImage()) {
+            @Override
+            public CachedContent createCachedContent(String model, Content systemInstruction, Duration ttl) {
+                if (refuse.get()) {
+                    throw new ClientException(400, "INVALID_ARGUMENT", "Cached content is too small");
+                }
+                return super.createCachedContent(model, systemInstruction, ttl);
+            }
+        };
+        ContextCache cache = cache(gateway);
+
+        assertSame(Prompts.ANALYSIS.config(), cache.configFor("pro"));
+        refuse.set(false);
+        assertSame(Prompts.ANALYSIS.config(), cache.configFor("pro"));
+        assertNull(cache.handleFor("pro"));
+
+        clock.advance(Duration.ofMinutes(11));
+        cache.configFor("pro");
+        assertNotNull(cache.configFor("pro").cachedContent().orElse(null));
+    }
+
+    @Test
+    void closeDeletesTheHandles() {
+        FakeGeminiGateway gateway = FakeGeminiGateway.instant();
+        ContextCache cache = cache(gateway);
+        cache.configFor("pro");
+        cache.configFor("flash");
+
+        cache.close();
+
+        assertEquals(0, gateway.getCachedContents());
+        assertNull(cache.handleFor("pro"));
+    }
+
+    @Test
+    void disabledAlwaysSendsTheInstructionInline() {
+        FakeGeminiGateway gateway = FakeGeminiGateway.instant();
+        ContextCache cache = new ContextCache(Prompts.ANALYSIS, gateway, false, Duration.ofHours(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(10), Runnable::run, metrics, clock);
+
+        cache.configFor("pro");
+
+        assertSame(Prompts.ANALYSIS.config(), cache.configFor("pro"));
+        assertEquals(0, gateway.getCachedContents());
+    }
+
+    // runs creation on the calling thread, so each step is deterministic
+    private ContextCache cache(FakeGeminiGateway gateway) {
+        return new ContextCache(Prompts.ANALYSIS, gateway, true, Duration.ofHours(1),
+                Duration.ofMinutes(5), Duration.ofMinutes(10), Runnable::run, metrics, clock);
+    }
+
+    private static Content audio() {
+        return Content.builder().role("user").parts(List.of(Part.builder().text("audio").build())).build();
+    }
+}
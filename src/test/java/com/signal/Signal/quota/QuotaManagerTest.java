@@ -0,0 +1,150 @@
+package com.signal.Signal.quota;
+
+import com.google.genai.errors.ClientException;
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.support.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaManagerTest {
+
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SignalMetrics metrics = new SignalMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void retriesQuotaErrorsWithBackoffUntilTheCallSucceeds() throws Exception {
+        QuotaManager quota = new QuotaManager(properties(5), executor, metrics, Clock.systemUTC());
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = quota.submit("pro", model -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ClientException(429, "RESOURCE_EXHAUSTED", "quota");
+            }
+            return model;
+        }).get(2, TimeUnit.SECONDS);
+
+        assertEquals("pro", result);
+        assertEquals(2, quota.getRetried());
+        assertEquals(CircuitBreaker.State.CLOSED, quota.getBreakerState("pro"));
+    }
+
+    @Test
+    void openCircuitRoutesToTheFallbackUntilAProbeSucceeds() throws Exception {
+        MutableClock clock = new MutableClock();
+        QuotaManager quota = new QuotaManager(properties(2), executor, metrics, clock);
+        AtomicBoolean proLimited = new AtomicBoolean(true);
+        Function<String, String> call = model -> {
+            if (model.equals("pro") && proLimited.get()) {
+                throw new ClientException(429, "RESOURCE_EXHAUSTED", "quota");
+            }
+            return model;
+        };
+
+        assertEquals("flash", quota.submit("pro", call).get(2, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.OPEN, quota.getBreakerState("pro"));
+        assertEquals("flash", quota.submit("pro", call).get(2, TimeUnit.SECONDS));
+
+        proLimited.set(false);
+        clock.advance(Duration.ofSeconds(31));
+        assertEquals("pro", quota.submit("pro", call).get(2, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, quota.getBreakerState("pro"));
+    }
+
+    @Test
+    void unavailableModelIsReroutedImmediately() throws Exception {
+        QuotaManager quota = new QuotaManager(properties(3), executor, metrics, Clock.systemUTC());
+
+        String result = quota.submit("pro", model -> {
+            if (model.equals("pro")) {
+                throw new ClientException(404, "NOT_FOUND", "no such model");
+            }
+            return model;
+        }).get(2, TimeUnit.SECONDS);
+
+        assertEquals("flash", result);
+        assertEquals(0, quota.getRetried());
+        assertEquals(1, quota.getRerouted());
+    }
+
+    @Test
+    void delaysCallsOverTheBucketAndRefusesThoseThatWouldWaitTooLong() throws Exception {
+        QuotaProperties properties = properties(3);
+        properties.setModels(Map.of("pro", new QuotaProperties.Limit(600, 1), "slow", new QuotaProperties.Limit(6, 1)));
+        QuotaManager quota = new QuotaManager(properties, executor, metrics, Clock.systemUTC());
+
+        quota.submit("pro", model -> model).get(1, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        assertEquals("pro", quota.submit("pro", model -> model).get(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, quota.getThrottled());
+
+        quota.submit("slow", model -> model).get(1, TimeUnit.SECONDS);
+        ExecutionException refused = assertThrows(ExecutionException.class,
+                () -> quota.submit("slow", model -> model).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(QuotaExceededException.class, refused.getCause());
+    }
+
+    @Test
+    void otherErrorsAreNotRetried() {
+        QuotaManager quota = new QuotaManager(properties(3), executor, metrics, Clock.systemUTC());
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> quota.submit("pro", model -> {
+            throw new ClientException(400, "INVALID_ARGUMENT", "bad request");
+        }).get(1, TimeUnit.SECONDS));
+
+        assertInstanceOf(ClientException.class, failure.getCause());
+        assertEquals(0, quota.getRetried());
+    }
+
+    @Test
+    void cancellingInterruptsTheRunningRetryAndStopsFurtherOnes() throws Exception {
+        QuotaManager quota = new QuotaManager(properties(5), executor, metrics, Clock.systemUTC());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch retrying = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<String> result = quota.submit("pro", model -> {
+            if (calls.incrementAndGet() > 1) {
+                retrying.countDown();
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+            throw new ClientException(429, "RESOURCE_EXHAUSTED", "quota");
+        });
+        assertTrue(retrying.await(2, TimeUnit.SECONDS));
+        result.cancel(true);
+
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(2, calls.get());
+        assertEquals(1, quota.getRetried());
+    }
+
+    private static QuotaProperties properties(int breakerThreshold) {
+        QuotaProperties properties = new QuotaProperties();
+        properties.setBaseBackoff(Duration.ofMillis(10));
+        properties.setMaxBackoff(Duration.ofMillis(40));
+        properties.setMaxWait(Duration.ofSeconds(1));
+        properties.setBreakerFailureThreshold(breakerThreshold);
+        properties.setFallbacks(Map.of("pro", "flash"));
+        return properties;
+    }
+}
@@ -0,0 +1,92 @@
+package com.signal.Signal.room;
+
+import com.signal.Signal.audio.AudioSegmentPool;
+import com.signal.Signal.audio.AudioSegmenterFactory;
+import com.signal.Signal.cluster.LoopbackHub;
+import com.signal.Signal.cluster.LoopbackSessionRegistry;
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.outbound.OutboundQueue;
+import com.signal.Signal.outbound.OutboundQueueFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomRegistryTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AudioSegmenterFactory segmenters = new AudioSegmenterFactory(
+            new AudioSegmentPool(4096, 64, 1 << 20, 1 << 22), 8000, 1000, 1.0, 0.2, 60000);
+    private final OutboundQueueFactory outbound = new OutboundQueueFactory(1 << 20, 64,
+            OutboundQueueFactory.OverflowPolicy.DROP_OLDEST, Duration.ofSeconds(30), executor,
+            new SignalMetrics(new SimpleMeterRegistry()));
+    private final LoopbackSessionRegistry cluster = new LoopbackSessionRegistry(LoopbackHub.forCluster("room-registry-test"), "n1");
+    private final RoomRegistry registry = new RoomRegistry(segmenters, outbound, cluster, executor);
+
+    @AfterEach
+    void leaveCluster() {
+        cluster.close();
+    }
+
+    @Test
+    void roomHasOnePublisherAndEveryoneSubscribes() {
+        WebSocketSession alice = session("a");
+        WebSocketSession bob = session("b");
+
+        assertEquals(Room.Role.PUBLISHER, registry.join("standup", alice, Room.Role.PUBLISHER).role());
+        assertEquals(Room.Role.SUBSCRIBER, registry.join("standup", bob, Room.Role.PUBLISHER).role());
+
+        Room room = registry.get("standup");
+        assertSame(room, registry.roomOf("b"));
+        assertTrue(room.isPublisher("a"));
+        assertFalse(room.isPublisher("b"));
+        assertNotNull(room.getAudio());
+        assertEquals(2, room.getSubscribers().size());
+        assertEquals(1, registry.getActiveRooms());
+        assertEquals(Set.of("n1"), cluster.nodesFor("standup"));
+    }
+
+    @Test
+    void publisherSlotFreesOnLeaveAndRoomClosesWithItsLastMember() {
+        registry.join("standup", session("a"), Room.Role.PUBLISHER);
+        registry.join("standup", session("b"), Room.Role.SUBSCRIBER);
+        Room room = registry.get("standup");
+
+        assertNull(registry.leave("a"));
+        assertNull(room.getAudio());
+        assertEquals(Room.Role.PUBLISHER, registry.join("standup", session("c"), Room.Role.PUBLISHER).role());
+
+        assertNull(registry.leave("b"));
+        assertSame(room, registry.leave("c"));
+        assertTrue(room.getScope().isClosed());
+        assertNull(registry.get("standup"));
+        assertTrue(cluster.nodesFor("standup").isEmpty());
+        assertEquals(0, registry.getActiveSessions());
+        assertNull(registry.leave("c"));
+    }
+
+    @Test
+    void roomsAreIndependent() {
+        registry.join("one", session("a"), Room.Role.PUBLISHER);
+        registry.join("two", session("b"), Room.Role.PUBLISHER);
+
+        assertEquals(List.of("a"), registry.get("one").getSubscribers().stream().map(OutboundQueue::getSessionId).toList());
+        assertTrue(registry.get("two").isPublisher("b"));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+}
@@ -0,0 +1,127 @@
+package com.signal.Signal.routing;
+
+import com.signal.Signal.metrics.SignalMetrics;
+import com.signal.Signal.quota.QuotaManager;
+import com.signal.Signal.quota.QuotaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelRouterTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SignalMetrics metrics = new SignalMetrics(new SimpleMeterRegistry());
+    private final QuotaManager quota = new QuotaManager(new QuotaProperties(), executor, metrics, Clock.systemUTC());
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+        ModelRouter router = router(Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+        assertEquals(Optional.of("pro"), router.route(model -> model, Objects::nonNull));
+        assertEquals(0, router.tracker("flash").size());
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() throws Exception {
+        ModelRouter router = router(Duration.ofMillis(50), Duration.ofSeconds(5));
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        Optional<String> answer = router.route(model -> {
+            if (model.equals("pro")) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+            return model;
+        }, Objects::nonNull);
+
+        assertEquals(Optional.of("flash"), answer);
+        assertTrue(primaryCancelled.await(1, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        // the cancelled primary still counts towards its tail
+        assertEquals(1, router.tracker("pro").size());
+        assertEquals(1, router.tracker("flash").size());
+    }
+
+    @Test
+    void failedPrimaryIsHedgedWithoutWaitingForTheDelay() {
+        ModelRouter router = router(Duration.ofSeconds(10), Duration.ofSeconds(20));
+        long start = System.nanoTime();
+
+        Optional<String> answer = router.route(model -> model.equals("pro") ? "not json" : model,
+                value -> !value.equals("not json"));
+
+        assertEquals(Optional.of("flash"), answer);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void givesUpAtTheSlo() throws Exception {
+        ModelRouter router = router(Duration.ofMillis(20), Duration.ofMillis(200));
+
+        Optional<String> answer = router.route(model -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return model;
+        }, Objects::nonNull);
+
+        assertTrue(answer.isEmpty());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        // nobody won, so the cancelled racers' times are not samples
+        assertEquals(0, router.tracker("pro").size());
+        assertEquals(0, router.tracker("flash").size());
+    }
+
+    @Test
+    void hedgeDelayFollowsThePrimarysTail() {
+        ModelRouter router = router(Duration.ofSeconds(3), Duration.ofSeconds(10));
+        for (int i = 1; i <= 100; i++) {
+            router.tracker("pro").record(i * 10);
+        }
+
+        assertEquals(950, router.getHedgeDelayMillis());
+    }
+
+    @Test
+    void tiersSpendOneCallOnTheirModel() {
+        ModelRouter router = router(Duration.ofMillis(10), Duration.ofSeconds(5));
+        List<String> called = new CopyOnWriteArrayList<>();
+
+        assertEquals(Optional.of("flash"), router.route(ModelRouter.Tier.FAST, model -> {
+            called.add(model);
+            return model;
+        }, Objects::nonNull));
+        // a failing primary is not hedged on the quality tier
+        assertEquals(Optional.empty(), router.route(ModelRouter.Tier.QUALITY, model -> {
+            called.add(model);
+            return null;
+        }, Objects::nonNull));
+
+        assertEquals(List.of("flash", "pro"), called);
+    }
+
+    private ModelRouter router(Duration hedgeDelay, Duration slo) {
+        return new ModelRouter("pro", "flash", hedgeDelay, slo, 256, executor, quota, metrics);
+    }
+}
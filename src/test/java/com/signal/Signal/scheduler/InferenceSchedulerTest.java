@@ -0,0 +1,184 @@
+package com.signal.Signal.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InferenceSchedulerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private InferenceScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void neverExceedsGlobalConcurrency() throws Exception {
+        scheduler = new InferenceScheduler(2, InferenceScheduler.OverflowPolicy.DROP_NEWEST, executor);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(6);
+
+        for (int i = 0; i < 6; i++) {
+            scheduler.submit("session-" + i, new TestTask(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(30);
+                running.decrementAndGet();
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void coalescesBacklogIntoOnePendingTaskPerLane() throws Exception {
+        scheduler = new InferenceScheduler(1, InferenceScheduler.OverflowPolicy.MERGE, executor);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        scheduler.submit("a", new TestTask("1", ran, () -> await(release), finished));
+        waitUntil(() -> scheduler.getStats().inFlight() == 1);
+        scheduler.submit("a", new TestTask("2", ran, null, finished));
+        scheduler.submit("a", new TestTask("3", ran, null, finished));
+        scheduler.submit("a", new TestTask("4", ran, null, finished));
+
+        SchedulerStats stats = scheduler.getStats();
+        assertEquals(1, stats.pending());
+        assertEquals(2, stats.merged());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("1", "2+3+4"), ran);
+    }
+
+    @Test
+    void servesLanesRoundRobin() throws Exception {
+        scheduler = new InferenceScheduler(1, InferenceScheduler.OverflowPolicy.DROP_OLDEST, executor);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(4);
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        scheduler.submit("a", new TestTask("a1", ran, () -> await(release), finished));
+        waitUntil(() -> scheduler.getStats().inFlight() == 1);
+        scheduler.submit("a", new TestTask("a2", ran, null, finished));
+        scheduler.submit("b", new TestTask("b1", ran, null, finished));
+        scheduler.submit("c", new TestTask("c1", ran, null, finished));
+        release.countDown();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a1", "b1", "c1", "a2"), ran);
+    }
+
+    @Test
+    void cancelDiscardsPendingWork() throws Exception {
+        scheduler = new InferenceScheduler(1, InferenceScheduler.OverflowPolicy.DROP_OLDEST, executor);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger discarded = new AtomicInteger();
+
+        scheduler.submit("a", new TestTask(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }));
+        waitUntil(() -> scheduler.getStats().inFlight() == 1);
+        scheduler.submit("a", new TestTask(() -> fail("should not run")) {
+            @Override
+            public void discard() {
+                discarded.incrementAndGet();
+            }
+        });
+
+        scheduler.cancel("a");
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, discarded.get());
+        waitUntil(() -> scheduler.getStats().inFlight() == 0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class TestTask implements InferenceTask {
+        private final String name;
+        private final List<String> ran;
+        private final Runnable body;
+        private final CountDownLatch finished;
+
+        TestTask(Runnable body) {
+            this(null, null, body, null);
+        }
+
+        TestTask(String name, List<String> ran, Runnable body, CountDownLatch finished) {
+            this.name = name;
+            this.ran = ran;
+            this.body = body;
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            if (ran != null) {
+                ran.add(name);
+            }
+            if (body != null) {
+                body.run();
+            }
+            if (finished != null) {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public void discard() {
+        }
+
+        @Override
+        public InferenceTask mergeWith(InferenceTask newer) {
+            TestTask next = (TestTask) newer;
+            return new TestTask(name + "+" + next.name, ran, null, finished) {
+                @Override
+                public void run() {
+                    super.run();
+                    finished.countDown();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.signal.Signal.service;
+
+import com.signal.Signal.cache.GenerationCache;
+import com.signal.Signal.diagram.DiagramStore;
+import com.signal.Signal.dto.SignalResponse;
+import com.signal.Signal.execution.AgentJob;
+import com.signal.Signal.gateway.FakeGeminiGateway;
+import com.signal.Signal.history.HistoryWriter;
+import com.signal.Signal.websocket.SignalSocketHandler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SignalBoardServiceTest {
+
+    private final FakeGeminiGateway gateway = FakeGeminiGateway.instant();
+    private final GenerationCache<String> cache = new GenerationCache<>("board", 10, Duration.ofMinutes(1));
+    private final SignalSocketHandler socketHandler = mock(SignalSocketHandler.class);
+    private final SignalBoardService service = new SignalBoardService(gateway, new DiagramStore(1 << 20, 16), cache,
+            mock(HistoryWriter.class), socketHandler);
+
+    @Test
+    void repeatedTriggersInOneRoomHitTheCacheAsTheMeetingGoesOn() {
+        service.generateDiagram(job("room-a"), "Move orders to Postgres", "DECISION_POINT: Split the monolith");
+        service.generateDiagram(job("room-a"), "move orders to postgres",
+                "DECISION_POINT: Split the monolith\nDECISION_POINT: Move orders to Postgres");
+
+        assertEquals(1, gateway.getCalls());
+        assertEquals(1, cache.getStats().hits());
+        verify(socketHandler, times(2)).broadcast(eq("room-a"), any(SignalResponse.class));
+
+        service.generateDiagram(job("room-b"), "Move orders to Postgres", "");
+        assertEquals(2, gateway.getCalls());
+    }
+
+    private static AgentJob job(String roomId) {
+        AgentJob job = mock(AgentJob.class);
+        when(job.getRoomId()).thenReturn(roomId);
+        when(job.isCurrent()).thenReturn(true);
+        return job;
+    }
+}
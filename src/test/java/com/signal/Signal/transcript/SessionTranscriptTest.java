@@ -0,0 +1,79 @@
+package com.signal.Signal.transcript;
+
+import com.signal.Signal.dto.SignalResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTranscriptTest {
+
+    @Test
+    void compactsOldSegmentsIntoSignalNotes() {
+        SessionTranscript transcript = new SessionTranscript(100, 200);
+
+        transcript.append(signal("Use Postgres", "x".repeat(60)));
+        transcript.append(signal("Add a cache", "y".repeat(60)));
+
+        assertEquals(1, transcript.getCompactedSegments());
+        String context = transcript.render(1000);
+        assertTrue(context.startsWith("Earlier in the meeting:\n- DECISION_POINT: Use Postgres"));
+        assertTrue(context.endsWith("y".repeat(60)));
+        assertFalse(context.contains("x"));
+    }
+
+    @Test
+    void memoryStaysBoundedAsTheMeetingGoesOn() {
+        SessionTranscript transcript = new SessionTranscript(500, 300);
+
+        for (int i = 0; i < 1000; i++) {
+            transcript.append(signal("Decision " + i, "words ".repeat(20)));
+        }
+
+        assertTrue(transcript.getChars() <= 500 + 300);
+        assertTrue(transcript.render(1000).contains("Decision 999"));
+    }
+
+    @Test
+    void renderKeepsTheNewestTextWithinTheTokenBudget() {
+        SessionTranscript transcript = new SessionTranscript(10_000, 1000);
+        for (int i = 0; i < 50; i++) {
+            transcript.append(signal("Point " + i, "segment " + i + " " + "z".repeat(40)));
+        }
+
+        String context = transcript.render(50);
+
+        assertTrue(context.length() <= 50 * 4 + "Recent discussion:\n".length());
+        assertTrue(context.contains("segment 49"));
+        assertFalse(context.contains("segment 10 "));
+    }
+
+    @Test
+    void latestNoteFollowsTheMeeting() {
+        SessionTranscript transcript = new SessionTranscript(100, 200);
+        assertNull(transcript.latestNote());
+
+        transcript.append(signal("Use Postgres", "x".repeat(60)));
+        assertEquals("DECISION_POINT: Use Postgres", transcript.latestNote());
+
+        transcript.append(signal("Add a cache", "y".repeat(60)));
+        assertEquals("DECISION_POINT: Add a cache", transcript.latestNote());
+    }
+
+    @Test
+    void ignoresIdleSignalsWithoutText() {
+        SessionTranscript transcript = new SessionTranscript(100, 100);
+
+        transcript.append(SignalResponse.builder().type(SignalResponse.SignalType.IDLE).build());
+
+        assertEquals("", transcript.render(100));
+    }
+
+    private static SignalResponse signal(String title, String text) {
+        return SignalResponse.builder()
+                .type(SignalResponse.SignalType.DECISION_POINT)
+                .title(title)
+                .description("")
+                .transcript(text)
+                .build();
+    }
+}
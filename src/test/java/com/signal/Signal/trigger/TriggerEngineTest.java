@@ -0,0 +1,83 @@
+package com.signal.Signal.trigger;
+
+import com.signal.Signal.dto.SignalResponse.SignalType;
+import com.signal.Signal.support.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TriggerEngineTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final TriggerEngine engine = new TriggerEngine(properties(), clock);
+
+    @Test
+    void matcherFindsOverlappingKeywordsInOnePass() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of("he", "she", "his", "hers"));
+        List<String> found = new ArrayList<>();
+
+        matcher.forEachMatch("uSHErs", k -> found.add(matcher.getKeywords().get(k)));
+
+        assertEquals(List.of("she", "he", "hers"), found);
+    }
+
+    @Test
+    void reportsTheRuleAndKeywordThatFired() {
+        List<TriggerMatch> matches = engine.evaluate("s1", SignalType.DECISION_POINT,
+                "Moving to an event-driven Architecture with a new REST API");
+
+        assertEquals(List.of(
+                new TriggerMatch("architecture", "board", "architecture", false),
+                new TriggerMatch("data-model", "code", "api", false)), matches);
+    }
+
+    @Test
+    void coolDownsArePerSessionAndAgent() {
+        engine.evaluate("s1", SignalType.DECISION_POINT, "diagram");
+
+        assertTrue(engine.evaluate("s1", SignalType.DECISION_POINT, "design").get(0).suppressed());
+        assertFalse(engine.evaluate("s2", SignalType.DECISION_POINT, "design").get(0).suppressed());
+        assertFalse(engine.evaluate("s1", SignalType.DECISION_POINT, "database").get(0).suppressed());
+
+        clock.advance(Duration.ofSeconds(16));
+        assertFalse(engine.evaluate("s1", SignalType.DECISION_POINT, "design").get(0).suppressed());
+    }
+
+    @Test
+    void disabledAgentsKeepTheirCoolDowns() {
+        List<TriggerMatch> matches = engine.evaluate("s1", SignalType.DECISION_POINT, "diagram of the api",
+                "code"::equals);
+
+        assertEquals(List.of(new TriggerMatch("data-model", "code", "api", false)), matches);
+        assertFalse(engine.evaluate("s1", SignalType.DECISION_POINT, "diagram").get(0).suppressed());
+    }
+
+    @Test
+    void ignoresOtherSignalTypesAndForgetsClosedSessions() {
+        assertTrue(engine.evaluate("s1", SignalType.RISK_DETECTED, "architecture").isEmpty());
+
+        engine.evaluate("s1", SignalType.DECISION_POINT, "architecture");
+        assertEquals(1, engine.getTrackedCooldowns());
+        engine.release("s1");
+        assertEquals(0, engine.getTrackedCooldowns());
+    }
+
+    private static TriggerProperties properties() {
+        TriggerProperties.Rule board = new TriggerProperties.Rule();
+        board.setName("architecture");
+        board.setAgent("board");
+        board.setCooldown(Duration.ofSeconds(15));
+        board.setKeywords(List.of("architecture", "design", "diagram"));
+        TriggerProperties.Rule code = new TriggerProperties.Rule();
+        code.setName("data-model");
+        code.setAgent("code");
+        code.setKeywords(List.of("api", "database"));
+        TriggerProperties properties = new TriggerProperties();
+        properties.setRules(List.of(board, code));
+        return properties;
+    }
+}
@@ -0,0 +1,244 @@
+package com.signal.Signal.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.signal.Signal.dedup.SignalDeduplicator;
+import com.signal.Signal.transcript.TranscriptStore;
+import com.signal.Signal.trigger.TriggerEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "signal.gateway.mode=fake",
+        "google.cloud.project-id=test"
+})
+class SignalSocketHandlerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TranscriptStore transcriptStore;
+
+    @SpyBean
+    private SignalDeduplicator signalDeduplicator;
+
+    @SpyBean
+    private TriggerEngine triggerEngine;
+
+    private final BlockingQueue<JsonNode> frames = new LinkedBlockingQueue<>();
+    private final List<WebSocketSession> clients = new ArrayList<>();
+    private WebSocketSession client;
+
+    @AfterEach
+    void disconnect() throws Exception {
+        for (WebSocketSession session : clients) {
+            session.close();
+        }
+    }
+
+    @Test
+    void streamsAnalysisAndAgentResultsForOneWindow() throws Exception {
+        client = connect("", frames);
+        assertEquals("Signal Active", next(frames).get("title").asText());
+
+        client.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+
+        List<JsonNode> received = untilAgentsFinish(frames);
+
+        JsonNode early = received.get(0);
+        assertEquals("DECISION_POINT", early.get("type").asText());
+        assertTrue(early.get("partial").asBoolean());
+        assertTrue(early.get("description").isNull());
+
+        JsonNode analysis = received.get(1);
+        assertEquals("DECISION_POINT", analysis.get("type").asText());
+        assertEquals(early.get("streamId").asText(), analysis.get("streamId").asText());
+        assertFalse(analysis.get("partial").asBoolean(false));
+        assertEquals(early.get("audioReceivedAt").asText(), analysis.get("audioReceivedAt").asText());
+        assertFalse(Instant.parse(analysis.get("audioReceivedAt").asText()).isAfter(Instant.parse(analysis.get("timestamp").asText())));
+
+        JsonNode image = received.stream().filter(f -> "IMAGE_GENERATED".equals(f.get("type").asText())).findFirst().orElseThrow();
+        assertEquals(64, image.get("imageWidth").asInt());
+        assertEquals(64, image.get("imageHash").asText().length());
+
+        long partialCode = received.stream()
+                .filter(f -> "CODE_GENERATED".equals(f.get("type").asText()) && f.get("partial").asBoolean(false))
+                .count();
+        assertEquals(3, partialCode);
+    }
+
+    @Test
+    @DirtiesContext // leaves the generation caches warm
+    void roomFansOneAnalysisOutToEverySubscriber() throws Exception {
+        BlockingQueue<JsonNode> listenerFrames = new LinkedBlockingQueue<>();
+        WebSocketSession publisher = connect("?room=standup&role=publisher", frames);
+        WebSocketSession listener = connect("?room=standup&role=publisher", listenerFrames);
+        assertEquals("Signal Active", next(frames).get("title").asText());
+        assertEquals("Signal Active", next(listenerFrames).get("title").asText());
+
+        // the room already has a publisher, so this session's audio is ignored
+        listener.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        publisher.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+
+        List<JsonNode> published = untilAgentsFinish(frames);
+        List<JsonNode> heard = untilAgentsFinish(listenerFrames);
+
+        assertEquals(1, finals(heard, "DECISION_POINT"));
+        assertEquals(streamIds(published), streamIds(heard));
+        assertTrue(hasFinal(heard, "IMAGE_GENERATED"));
+        assertTrue(hasFinal(heard, "CODE_GENERATED"));
+    }
+
+    @Test
+    void commandsSteerTheRoomsPipeline() throws Exception {
+        BlockingQueue<JsonNode> listenerFrames = new LinkedBlockingQueue<>();
+        WebSocketSession publisher = connect("?room=commands&role=publisher", frames);
+        WebSocketSession listener = connect("?room=commands", listenerFrames);
+        next(frames);
+        next(listenerFrames);
+
+        listener.sendMessage(new TextMessage("hello"));
+        assertEquals("COMMAND_REJECTED", next(listenerFrames).get("type").asText());
+        listener.sendMessage(new TextMessage("{\"type\":\"PAUSE\"}"));
+        assertEquals("Only the room's publisher may pause", next(listenerFrames).get("description").asText());
+
+        publisher.sendMessage(new TextMessage("{\"type\":\"PAUSE\"}"));
+        assertEquals("Signal Paused", next(frames).get("title").asText());
+        assertEquals("COMMAND_ACCEPTED", next(frames).get("type").asText());
+        assertEquals("Signal Paused", next(listenerFrames).get("title").asText());
+        publisher.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        assertNull(frames.poll(1, TimeUnit.SECONDS), "analysed while paused");
+
+        publisher.sendMessage(new TextMessage("{\"type\":\"SETTINGS\",\"agents\":[\"board\"],\"modelTier\":\"FAST\"}"));
+        JsonNode settings = next(frames);
+        assertEquals("COMMAND_ACCEPTED", settings.get("type").asText());
+        assertTrue(settings.get("description").asText().startsWith("model tier FAST, agents [board]"));
+        publisher.sendMessage(new TextMessage("{\"type\":\"SETTINGS\",\"audioFormat\":\"audio/pcm\"}"));
+        assertEquals("audio/pcm needs a sampleRate", next(frames).get("description").asText());
+        publisher.sendMessage(new TextMessage("{\"type\":\"RESUME\"}"));
+        assertEquals("Signal Active", next(frames).get("title").asText());
+        assertEquals("COMMAND_ACCEPTED", next(frames).get("type").asText());
+
+        publisher.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        List<JsonNode> received = untilFinal(frames, "IMAGE_GENERATED");
+        assertEquals(1, finals(received, "DECISION_POINT"));
+        // the code agent is disabled for triggers, but may still be asked for
+        assertNull(frames.poll(500, TimeUnit.MILLISECONDS));
+
+        publisher.sendMessage(new TextMessage("{\"type\":\"REQUEST_AGENT\",\"agent\":\"code\",\"focus\":\"orders table\"}"));
+        received = untilFinal(frames, "CODE_GENERATED");
+        // the reply and the agent's frames go out on different lanes, in either order
+        while (received.stream().noneMatch(f -> "COMMAND_ACCEPTED".equals(f.get("type").asText()))) {
+            received.add(next(frames));
+        }
+        assertTrue(received.stream().anyMatch(f -> "COMMAND_ACCEPTED".equals(f.get("type").asText())
+                && "Started the code agent".equals(f.get("description").asText())));
+    }
+
+    @Test
+    void completesADuplicateWhosePartialWentOutButStartsNoAgents() throws Exception {
+        // as when a second window's partial goes out before the first window's signal is admitted
+        doReturn(false).when(signalDeduplicator).isLikelyDuplicate(eq("repeats"), any(), any());
+        client = connect("?room=repeats&role=publisher", frames);
+        next(frames);
+
+        client.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        String title = untilAgentsFinish(frames).get(0).get("title").asText();
+        client.sendMessage(new BinaryMessage(ByteBuffer.allocate(70000)));
+        List<JsonNode> repeat = untilFinal(frames, "DECISION_POINT");
+
+        assertEquals(2, repeat.size());
+        assertTrue(repeat.get(0).get("partial").asBoolean());
+        assertEquals(repeat.get(0).get("streamId").asText(), repeat.get(1).get("streamId").asText());
+        assertNull(frames.poll(500, TimeUnit.MILLISECONDS), "agents started for a duplicate");
+        verify(triggerEngine, times(1)).evaluate(eq("repeats"), any(), any(), any());
+        String context = transcriptStore.contextFor("repeats");
+        assertEquals(context.indexOf(title), context.lastIndexOf(title), "duplicate recorded in the transcript");
+    }
+
+    @Test
+    void rejectsInvalidRoomIds() throws Exception {
+        WebSocketSession rejected = connect("?room=" + "x".repeat(65), frames);
+        for (int i = 0; i < 50 && rejected.isOpen(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(rejected.isOpen());
+    }
+
+    private List<JsonNode> untilAgentsFinish(BlockingQueue<JsonNode> queue) throws InterruptedException {
+        List<JsonNode> received = new ArrayList<>();
+        JsonNode frame;
+        while ((frame = queue.poll(10, TimeUnit.SECONDS)) != null) {
+            received.add(frame);
+            if (hasFinal(received, "IMAGE_GENERATED") && hasFinal(received, "CODE_GENERATED")) {
+                break;
+            }
+        }
+        return received;
+    }
+
+    private List<JsonNode> untilFinal(BlockingQueue<JsonNode> queue, String type) throws InterruptedException {
+        List<JsonNode> received = new ArrayList<>();
+        while (!hasFinal(received, type)) {
+            received.add(next(queue));
+        }
+        return received;
+    }
+
+    private long finals(List<JsonNode> received, String type) {
+        return received.stream().filter(f -> type.equals(f.get("type").asText()) && !f.get("partial").asBoolean(false)).count();
+    }
+
+    private List<String> streamIds(List<JsonNode> received) {
+        return received.stream().filter(f -> "DECISION_POINT".equals(f.get("type").asText()))
+                .map(f -> f.get("streamId").asText()).toList();
+    }
+
+    private boolean hasFinal(List<JsonNode> received, String type) {
+        return received.stream().anyMatch(f -> type.equals(f.get("type").asText()) && !f.get("partial").asBoolean(false));
+    }
+
+    private WebSocketSession connect(String query, BlockingQueue<JsonNode> queue) throws Exception {
+        WebSocketSession session = new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                queue.add(objectMapper.readTree(message.getPayload()));
+            }
+        }, "ws://localhost:" + port + "/ws-signal" + query).get(5, TimeUnit.SECONDS);
+        clients.add(session);
+        return session;
+    }
+
+    private JsonNode next(BlockingQueue<JsonNode> queue) throws InterruptedException {
+        JsonNode frame = queue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame, "no frame received");
+        return frame;
+    }
+}
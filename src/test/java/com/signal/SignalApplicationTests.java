@@ -3,7 +3,10 @@ package com.signal;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"signal.gateway.mode=fake",
+		"google.cloud.project-id=test"
+})
 class SignalApplicationTests {
 
 	@Test